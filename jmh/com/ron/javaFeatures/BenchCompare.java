@@ -0,0 +1,72 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regression gate for the JMH results (-rf json):
+ *   java com.ron.javaFeatures.BenchCompare baseline.json current.json [tolerance]
+ * exits with status 1 if any benchmark is slower than the baseline by more than tolerance (default 0.10).
+ * A benchmark is identified by its name and its parameters, e.g. filterSumLoop{size=100}.
+ * The scores are compared as they are, so both files should be in the same mode (avgt, the default here).
+ */
+public final class BenchCompare {
+
+    private static final Pattern BENCHMARK = Pattern.compile("\"benchmark\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern PARAMS = Pattern.compile("\"params\"\\s*:\\s*\\{([^}]*)}");
+    private static final Pattern SCORE = Pattern.compile("\"primaryMetric\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private BenchCompare() {
+    }
+
+    static Map<String, Double> readScores(Path file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        // one result per "jmhVersion" entry
+        for (String result : Files.readString(file, StandardCharsets.UTF_8).split("\"jmhVersion\"")) {
+            Matcher benchmark = BENCHMARK.matcher(result);
+            Matcher score = SCORE.matcher(result);
+            if (benchmark.find() && score.find()) {
+                Matcher params = PARAMS.matcher(result);
+                String key = benchmark.group(1);
+                if (params.find()) {
+                    key += "{" + params.group(1).replaceAll("[\"\\s]", "").replace(':', '=') + "}";
+                }
+                scores.put(key, Double.parseDouble(score.group(1)));
+            }
+        }
+        return scores;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            Utils.printerr("usage: BenchCompare baseline.json current.json [tolerance]");
+            System.exit(2);
+        }
+        Map<String, Double> baseline = readScores(Paths.get(args[0]));
+        Map<String, Double> current = readScores(Paths.get(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> e : current.entrySet()) {
+            Double before = baseline.get(e.getKey());
+            if (before == null) {
+                continue;
+            }
+            double change = e.getValue() / before - 1;
+            if (change > tolerance) {
+                regressions++;
+                Utils.printerr(String.format("REGRESSION %s: %.1f -> %.1f (%+.1f%%)",
+                        e.getKey(), before, e.getValue(), change * 100));
+            }
+        }
+        Utils.print(regressions, "regression(s) in", current.size(), "benchmarks");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for processing every line of a large text file:
+ * counting the greetings which start with 'h' (as in Java11Features.otherFeatures),
+ * sequentially with BufferedReader and MappedTextFile, and in parallel with Files.lines() and ChunkedLines.
+ *
+ * megabytes is the file size, e.g.
+ *   gradle jmh -Pjmh='ChunkedLinesBenchmark -p megabytes=1024,16384'
+ * The test file is written to the temp directory and deleted afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkedLinesBenchmark {
+
+    @Param({"64", "512"})
+    public int megabytes;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = MappedTextFileBenchmark.greetingsFile(megabytes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long bufferedReader() throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (startsWithH(line)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long mappedTextFileLines() throws IOException {
+        return MappedTextFile.open(file).lines().filter(ChunkedLinesBenchmark::startsWithH).count();
+    }
+
+    @Benchmark
+    public long filesLinesParallel() throws IOException {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.parallel().filter(ChunkedLinesBenchmark::startsWithH).count();
+        }
+    }
+
+    @Benchmark
+    public long chunkedLines() throws IOException {
+        try (Stream<CharSequence> lines = ChunkedLines.lines(file)) {
+            return lines.filter(ChunkedLinesBenchmark::startsWithH).count();
+        }
+    }
+
+    private static boolean startsWithH(CharSequence line) {
+        return line.length() > 0 && line.charAt(0) == 'h';
+    }
+}
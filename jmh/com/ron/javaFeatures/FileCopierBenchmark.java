@@ -0,0 +1,113 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for copying a text file, as in Java7Features:
+ * the stream-based readers and writers compared to FileCopier.
+ *
+ * megabytes is the file size, e.g.
+ *   gradle jmh -Pjmh='FileCopierBenchmark -p megabytes=16,256'
+ * The test files are written to the temp directory and deleted afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileCopierBenchmark {
+
+    @Param({"16", "256"})
+    public int megabytes;
+
+    private Path in;
+    private Path out;
+
+    @Setup
+    public void setUp() throws IOException {
+        in = MappedTextFileBenchmark.greetingsFile(megabytes);
+        out = Files.createTempFile("copy", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(in);
+        Files.delete(out);
+    }
+
+
+    // ----------------------------------------
+    // raw copies
+
+    @Benchmark
+    public long copyBufferedReader() throws IOException {
+        long chars = 0;
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                writer.write(line);
+                writer.newLine();
+                chars += line.length() + 1;
+            }
+        }
+        return chars;
+    }
+
+    @Benchmark
+    public long copyInputStream() throws IOException {
+        try (InputStream is = Files.newInputStream(in);
+             OutputStream os = Files.newOutputStream(out)) {
+            return is.transferTo(os);
+        }
+    }
+
+    @Benchmark
+    public long copyTransferTo() throws IOException {
+        return FileCopier.copy(in, out);
+    }
+
+
+    // ----------------------------------------
+    // copies with a transform
+
+    @Benchmark
+    public long upperCaseBufferedReader() throws IOException {
+        long chars = 0;
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                writer.write(line.toUpperCase());
+                writer.newLine();
+                chars += line.length() + 1;
+            }
+        }
+        return chars;
+    }
+
+    @Benchmark
+    public long upperCasePooledBuffer() throws IOException {
+        return FileCopier.transform(in, out, FileCopier.ASCII_UPPER_CASE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the calls of Java7Features.doSomething(): varargs calls, each with a new int[],
+ * compared to IntBatch, whose fixed-arity overloads copy the arguments into one reusable buffer.
+ *
+ * Each operation makes calls calls, alternately with 3 and 5 arguments; run with -prof gc
+ * for the allocations (gc.alloc.rate.norm). The varargs arrays are only free when the JIT inlines
+ * the call and sees that the array does not escape ("varargsImmediate"); "varargs" keeps them
+ * until they are processed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntBatchBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int calls;
+
+    private long total;
+    private final int[][] pending = new int[1024][];
+    private int numPending;
+    private IntBatch batch;
+
+    @Setup
+    public void setUp() {
+        batch = new IntBatch(1024, (numbers, from, to) -> total += IntBatch.sum(numbers, from, to));
+    }
+
+    @Benchmark
+    public long varargsImmediate() {
+        for (int i = 0; i < calls; i += 2) {
+            total += sum(i, 2, 3);
+            total += sum(i, 20, 30, 40, 50);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long varargs() {
+        for (int i = 0; i < calls; i += 2) {
+            varargs(i, 2, 3);
+            varargs(i, 20, 30, 40, 50);
+        }
+        flushVarargs();
+        return total;
+    }
+
+    @Benchmark
+    public long intBatch() {
+        for (int i = 0; i < calls; i += 2) {
+            batch.add(i, 2, 3);
+            batch.add(i, 20, 30, 40, 50);
+        }
+        batch.flush();
+        return total;
+    }
+
+    private static long sum(int... numbers) {
+        return IntBatch.sum(numbers, 0, numbers.length);
+    }
+
+    // like doSomething(int...) with the calls batched: the arrays are kept until processed
+    private void varargs(int... numbers) {
+        if (numPending == pending.length) {
+            flushVarargs();
+        }
+        pending[numPending++] = numbers;
+    }
+
+    private void flushVarargs() {
+        for (int i = 0; i < numPending; i++) {
+            total += IntBatch.sum(pending[i], 0, pending[i].length);
+            pending[i] = null;
+        }
+        numPending = 0;
+    }
+}
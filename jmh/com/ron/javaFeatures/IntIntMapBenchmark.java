@@ -0,0 +1,158 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks for the map of Utils.getRandomMap() and Java8Features_forEach.mapIteration():
+ * HashMap<Integer, Integer> compared to IntIntMap, for building, lookups and iteration.
+ * The memory each map retains is not a JMH metric: main() prints it (measured after a GC,
+ * so run it with a large enough -Xmx, e.g. 4g for 10M).
+ *
+ * Note that get() of consecutive keys favours HashMap: Integer.hashCode() is the value itself, so consecutive
+ * keys are in consecutive buckets, while IntIntMap scatters them (which protects it from clustering).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IntIntMapBenchmark {
+
+    @Param({"10000000"})
+    public int size;
+
+    private Map<Integer, Integer> hashMap;
+    private IntIntMap intIntMap;
+
+    @Setup
+    public void setUp() {
+        hashMap = hashMap(size);
+        intIntMap = intIntMap(size);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> hashMapPut() {
+        return hashMap(size);
+    }
+
+    @Benchmark
+    public IntIntMap intIntMapPut() {
+        return intIntMap(size);
+    }
+
+    @Benchmark
+    public long hashMapGet() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += hashMap.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intIntMapGet() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += intIntMap.get(i, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long hashMapForEach() {
+        long[] sum = {0};
+        hashMap.forEach((k, v) -> sum[0] += k + v);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long intIntMapForEach() {
+        long[] sum = {0};
+        intIntMap.forEach((k, v) -> sum[0] += k + v);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long hashMapParallelStream() {
+        return hashMap.entrySet().parallelStream().mapToLong(e -> e.getKey() + e.getValue()).sum();
+    }
+
+    @Benchmark
+    public long intIntMapEntriesParallel() {
+        return intIntMap.entries().parallel().map(e -> IntIntMap.key(e) + IntIntMap.value(e)).sum();
+    }
+
+    @Benchmark
+    public long intIntMapParallelForEach() {
+        LongAdder sum = new LongAdder();
+        intIntMap.parallelForEach((k, v) -> sum.add(k + v));
+        return sum.sum();
+    }
+
+    // as in Utils.getRandomMap(): i -> i * i
+    private static Map<Integer, Integer> hashMap(int size) {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i * i);
+        }
+        return map;
+    }
+
+    private static IntIntMap intIntMap(int size) {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i * i);
+        }
+        return map;
+    }
+
+
+    // ----------------------------------------
+    // retained memory
+
+    /**
+     * print the bytes retained by each map, for the sizes given as arguments (default 10M)
+     */
+    public static void main(String[] args) {
+        for (String arg : args.length == 0 ? new String[]{"10000000"} : args) {
+            int size = (int) Double.parseDouble(arg);
+            Utils.print(String.format("retained bytes, size %,d: HashMap %,d, IntIntMap %,d",
+                    size, retained(() -> hashMap(size)), retained(() -> intIntMap(size))));
+        }
+    }
+
+    // heap used by the object, approximately
+    private static long retained(Supplier<?> factory) {
+        long before = usedAfterGc();
+        Object o = factory.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(o);  // keep o alive until after the GC
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
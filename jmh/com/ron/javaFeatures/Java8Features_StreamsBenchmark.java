@@ -0,0 +1,393 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for the stream pipelines shown in Java8Features_Streams.
+ * Each pipeline is measured as a hand written loop, a sequential stream and a parallel stream.
+ *
+ * Run with e.g.
+ *   gradle jmh -Pjmh='Java8Features_StreamsBenchmark -p size=100,10000,1000000'
+ * The default sizes go up to 1e8, which needs a large heap (boxed Integers): the forks get -Xmx8g.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class Java8Features_StreamsBenchmark {
+
+    @Param({"100", "10000", "1000000", "100000000"})
+    public int size;
+
+    private List<Integer> list;
+    private int[] values;
+    private double[] doubles;
+    private List<List<Integer>> lists;
+    private ExternalSort<Integer> externalSort;
+
+    @Setup
+    public void setUp() {
+        list = randomList(size, -500, 500);
+        values = list.stream().mapToInt(i -> i).toArray();
+        doubles = list.stream().mapToDouble(i -> i * 0.1).toArray();
+        // split the list into sub lists of (at most) 16 elements
+        lists = new ArrayList<>();
+        for (int i = 0; i < size; i += 16) {
+            lists.add(list.subList(i, Math.min(size, i + 16)));
+        }
+        // in eight runs, written to temp files and merged
+        externalSort = ExternalSort.builder(ExternalSort.Codec.INTS)
+                .runSize(Math.max(1, size / 8))
+                .build();
+    }
+
+    // exactly size elements, unlike Utils.getRandomList which picks a random size
+    private static List<Integer> randomList(int size, int minValue, int maxValue) {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(Utils.getRandomInt(minValue, maxValue));
+        }
+        return list;
+    }
+
+
+    // ----------------------------------------
+    // whyDoWeNeedStreams: sum of all positive values
+
+    @Benchmark
+    public int filterSumLoop() {
+        int sum = 0;
+        for (Integer i : list) {
+            if (i > 0) {
+                sum += i;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int filterSumStream() {
+        return list.stream().filter(p -> p > 0).mapToInt(i -> i).sum();
+    }
+
+    @Benchmark
+    public int filterSumParallelStream() {
+        return list.parallelStream().filter(p -> p > 0).mapToInt(i -> i).sum();
+    }
+
+    @Benchmark
+    public int filterSumIntStream() {
+        return Arrays.stream(values).filter(p -> p > 0).sum();
+    }
+
+    @Benchmark
+    public int filterSumIntPipeline() {
+        return IntPipeline.of(values).filter(p -> p > 0).sum();
+    }
+
+    @Benchmark
+    public int filterSumParallelIntPipeline() {
+        return IntPipeline.of(values).parallel().filter(p -> p > 0).sum();
+    }
+
+
+    // ----------------------------------------
+    // terminalOperations: boxed reduce
+
+    @Benchmark
+    public int reduceSumLoop() {
+        int sum = 0;
+        for (Integer i : list) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Optional<Integer> reduceSumStream() {
+        return list.stream().reduce((i, j) -> i + j);
+    }
+
+    @Benchmark
+    public Optional<Integer> reduceSumParallelStream() {
+        return list.parallelStream().reduce((i, j) -> i + j);
+    }
+
+    @Benchmark
+    public Object reduceSumExact() {
+        return list.stream().collect(Reductions.summing(i -> i));
+    }
+
+    @Benchmark
+    public Object reduceSumParallelExact() {
+        return list.parallelStream().collect(Reductions.summing(i -> i));
+    }
+
+    // the product overflows: the boxed reduce wraps around, Reductions promotes to BigInteger
+    @Benchmark
+    public Optional<Integer> reduceProductStream() {
+        return list.stream().reduce((i, j) -> i * j);
+    }
+
+    @Benchmark
+    public Object reduceProductExact() {
+        return list.stream().collect(Reductions.multiplying(i -> i));
+    }
+
+    @Benchmark
+    public double doubleSumStream() {
+        return Arrays.stream(doubles).sum();
+    }
+
+    @Benchmark
+    public double doubleSumExact() {
+        return Reductions.sum(Arrays.stream(doubles)).doubleValue();
+    }
+
+    @Benchmark
+    public double doubleSumParallelExact() {
+        return Reductions.sum(Arrays.stream(doubles).parallel()).doubleValue();
+    }
+
+
+    // ----------------------------------------
+    // intermediateOperations: sorted()
+
+    @Benchmark
+    public List<Integer> sortedLoop() {
+        List<Integer> copy = new ArrayList<>(list);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Integer> sortedStream() {
+        return list.stream().sorted().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sortedParallelStream() {
+        return list.parallelStream().sorted().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sortedExternal() {
+        try (Stream<Integer> sorted = externalSort.sorted(list.stream())) {
+            return sorted.collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    // ----------------------------------------
+    // intermediateOperations: flatMap(Collection::stream)
+
+    @Benchmark
+    public List<Integer> flatMapLoop() {
+        List<Integer> flat = new ArrayList<>();
+        for (List<Integer> l : lists) {
+            flat.addAll(l);
+        }
+        return flat;
+    }
+
+    @Benchmark
+    public List<Integer> flatMapStream() {
+        return lists.stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> flatMapParallelStream() {
+        return lists.parallelStream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+
+    // ----------------------------------------
+    // convertingStreams: Collectors.toMap(k -> k, v -> v * v)
+    // the random list contains duplicates, so the first value wins (as with putIfAbsent)
+
+    @Benchmark
+    public Map<Integer, Integer> toMapLoop() {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (Integer i : list) {
+            map.putIfAbsent(i, i * i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapStream() {
+        return list.stream().collect(Collectors.toMap(k -> k, v -> v * v, (a, b) -> a));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapParallelStream() {
+        return list.parallelStream().collect(Collectors.toMap(k -> k, v -> v * v, (a, b) -> a));
+    }
+
+
+    // ----------------------------------------
+    // terminalOperations: anyMatch, noneMatch, allMatch, findFirst and findAny; the values are in -500..500,
+    // so the three matches need a full pass, and the finds stop after a thousand elements or so
+
+    @Benchmark
+    public Object[] matchFindStreams() {
+        return new Object[]{
+                list.stream().anyMatch(i -> i == 1_000),
+                list.stream().noneMatch(i -> i < -1_000),
+                list.stream().allMatch(i -> i >= -500),
+                list.stream().filter(i -> i == 500).findFirst(),
+                list.stream().filter(i -> i == 499).findAny()};
+    }
+
+    @Benchmark
+    public Object[] matchFindParallelStreams() {
+        return new Object[]{
+                list.parallelStream().anyMatch(i -> i == 1_000),
+                list.parallelStream().noneMatch(i -> i < -1_000),
+                list.parallelStream().allMatch(i -> i >= -500),
+                list.parallelStream().filter(i -> i == 500).findFirst(),
+                list.parallelStream().filter(i -> i == 499).findAny()};
+    }
+
+    @Benchmark
+    public Object[] matchFindScan() {
+        return matchScan(list, false);
+    }
+
+    @Benchmark
+    public Object[] matchFindParallelScan() {
+        return matchScan(list, true);
+    }
+
+    private static Object[] matchScan(List<Integer> list, boolean parallel) {
+        MatchScan<Integer> scan = MatchScan.of(list);
+        Object[] results = {
+                scan.anyMatch(i -> i == 1_000),
+                scan.noneMatch(i -> i < -1_000),
+                scan.allMatch(i -> i >= -500),
+                scan.findFirst(i -> i == 500),
+                scan.findAny(i -> i == 499)};
+        if (parallel) {
+            scan.parallel();
+        }
+        scan.run();
+        return results;
+    }
+
+
+    // ----------------------------------------
+    // convertingStreams: the JDK Collectors compared to SizedCollectors, on size distinct keys
+    // (a SIZED stream, so the containers can be sized up front)
+
+    private Stream<Integer> keys() {
+        return IntStream.range(0, size).boxed();
+    }
+
+    @Benchmark
+    public List<Integer> toListCollectors() {
+        return keys().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> toListSized() {
+        return SizedCollectors.toList(keys());
+    }
+
+    @Benchmark
+    public List<Integer> toListParallelCollectors() {
+        return keys().parallel().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> toListParallelSized() {
+        return SizedCollectors.toList(keys().parallel());
+    }
+
+    @Benchmark
+    public Set<Integer> toSetCollectors() {
+        return keys().collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<Integer> toSetSized() {
+        return SizedCollectors.toSet(keys());
+    }
+
+    @Benchmark
+    public Set<Integer> toSetParallelCollectors() {
+        return keys().parallel().collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<Integer> toSetParallelSized() {
+        return SizedCollectors.toSet(keys().parallel());
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapCollectors() {
+        return keys().collect(Collectors.toMap(k -> k, v -> v * v));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapSized() {
+        return SizedCollectors.toMap(keys(), k -> k, v -> v * v);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapParallelCollectors() {
+        return keys().parallel().collect(Collectors.toMap(k -> k, v -> v * v));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> toMapParallelSized() {
+        return SizedCollectors.toMap(keys().parallel(), k -> k, v -> v * v);
+    }
+
+    @Benchmark
+    public ConcurrentMap<Integer, Integer> toMapConcurrentCollectors() {
+        return keys().parallel().collect(Collectors.toConcurrentMap(k -> k, v -> v * v, (a, b) -> a));
+    }
+
+    @Benchmark
+    public ConcurrentMap<Integer, Integer> toMapConcurrentSized() {
+        return SizedCollectors.toConcurrentMap(keys().parallel(), k -> k, v -> v * v, (a, b) -> a);
+    }
+
+    @Benchmark
+    public IntIntMap toMapIntIntMap() {
+        return SizedCollectors.toIntIntMap(keys().parallel(), k -> k, v -> v * v, (a, b) -> a);
+    }
+
+    @Benchmark
+    public int[] toIntArrayCollectors() {
+        return keys().collect(Collectors.toList()).stream().mapToInt(i -> i).toArray();
+    }
+
+    @Benchmark
+    public int[] toIntArraySized() {
+        return SizedCollectors.toIntArray(keys(), i -> i);
+    }
+}
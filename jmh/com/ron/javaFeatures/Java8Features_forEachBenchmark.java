@@ -0,0 +1,264 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Benchmarks for the traversals of Java8Features_forEach.forLoopProgression(), each of them on a boxed
+ * List<Integer> (an ArrayList) and on an IntList holding the same values. Every traversal sums the values.
+ *
+ * The iterator-with-remove traversal removes the negative values (about half of them) from a copy of the list;
+ * each removal moves the rest of the list, so it is quadratic and only run on the smaller sizes
+ * (the Small state). removeIf() does the same in one pass.
+ *
+ * Each benchmark runs in its own JVM, so each forEach() call site only sees the consumer class
+ * of that benchmark, and the JIT can inline it.
+ *
+ * Run with e.g.
+ *   gradle jmh -Pjmh='Java8Features_forEachBenchmark -p size=1000,100000'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Java8Features_forEachBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Lists {
+        @Param({"1000", "100000", "10000000"})
+        public int size;
+
+        IntList intList;
+        List<Integer> list;
+
+        @Setup
+        public void setUp() {
+            intList = IntList.of(RandomInts.array(size, -1_000, 1_000, size));
+            list = boxed(intList);
+        }
+    }
+
+    /**
+     * the lists for the quadratic iteratorRemove benchmarks
+     */
+    @State(Scope.Benchmark)
+    public static class Small {
+        @Param({"1000", "100000"})
+        public int size;
+
+        IntList intList;
+        List<Integer> list;
+
+        @Setup
+        public void setUp() {
+            intList = IntList.of(RandomInts.array(size, -1_000, 1_000, size));
+            list = boxed(intList);
+        }
+    }
+
+    private static List<Integer> boxed(IntList intList) {
+        List<Integer> list = new ArrayList<>(intList.size());
+        intList.forEach(list::add);
+        return list;
+    }
+
+
+    // ----------------------------------------
+    // boxed
+
+    @Benchmark
+    public long boxedIndexedLoop(Lists lists) {
+        List<Integer> list = lists.list;
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long boxedEnhancedFor(Lists lists) {
+        long sum = 0;
+        for (Integer i : lists.list) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long boxedIterator(Lists lists) {
+        long sum = 0;
+        Iterator<Integer> iter = lists.list.iterator();
+        while (iter.hasNext()) {
+            sum += iter.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long boxedForEachAnonymousClass(Lists lists) {
+        long[] sum = {0};
+        lists.list.forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer t) {
+                sum[0] += t;
+            }
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long boxedForEachNamedClass(Lists lists) {
+        Sum sum = new Sum();
+        lists.list.forEach(sum);
+        return sum.total;
+    }
+
+    @Benchmark
+    public long boxedForEachLambda(Lists lists) {
+        long[] sum = {0};
+        lists.list.forEach(t -> sum[0] += t);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long boxedParallelStream(Lists lists) {
+        LongAdder sum = new LongAdder();
+        lists.list.parallelStream().forEach(sum::add);
+        return sum.sum();
+    }
+
+    @Benchmark
+    public List<Integer> boxedIteratorRemove(Small lists) {
+        List<Integer> copy = new ArrayList<>(lists.list);
+        for (Iterator<Integer> iter = copy.iterator(); iter.hasNext(); ) {
+            if (iter.next() < 0) {
+                iter.remove();
+            }
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public List<Integer> boxedRemoveIf(Lists lists) {
+        List<Integer> copy = new ArrayList<>(lists.list);
+        copy.removeIf(i -> i < 0);
+        return copy;
+    }
+
+
+    // ----------------------------------------
+    // primitive
+
+    @Benchmark
+    public long primitiveIndexedLoop(Lists lists) {
+        IntList list = lists.intList;
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveForEachIndexed(Lists lists) {
+        long[] sum = {0};
+        lists.intList.forEachIndexed((i, value) -> sum[0] += value);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long primitiveIterator(Lists lists) {
+        long sum = 0;
+        PrimitiveIterator.OfInt iter = lists.intList.iterator();
+        while (iter.hasNext()) {
+            sum += iter.nextInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveForEachAnonymousClass(Lists lists) {
+        long[] sum = {0};
+        lists.intList.forEach(new IntConsumer() {
+            @Override
+            public void accept(int t) {
+                sum[0] += t;
+            }
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long primitiveForEachNamedClass(Lists lists) {
+        Sum sum = new Sum();
+        lists.intList.forEach(sum);
+        return sum.total;
+    }
+
+    @Benchmark
+    public long primitiveForEachLambda(Lists lists) {
+        long[] sum = {0};
+        lists.intList.forEach(t -> sum[0] += t);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long primitiveParallelForEach(Lists lists) {
+        LongAdder sum = new LongAdder();
+        lists.intList.parallelForEach(sum::add);
+        return sum.sum();
+    }
+
+    @Benchmark
+    public IntList primitiveIteratorRemove(Small lists) {
+        IntList copy = IntList.copyOf(lists.intList);
+        for (PrimitiveIterator.OfInt iter = copy.iterator(); iter.hasNext(); ) {
+            if (iter.nextInt() < 0) {
+                iter.remove();
+            }
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public IntList primitiveRemoveIf(Lists lists) {
+        IntList copy = IntList.copyOf(lists.intList);
+        copy.removeIf(i -> i < 0);
+        return copy;
+    }
+
+    // a reusable named consumer, as MyConsumer and MyIntConsumer in Java8Features_forEach
+    private static final class Sum implements Consumer<Integer>, IntConsumer {
+        long total;
+
+        @Override
+        public void accept(Integer t) {
+            total += t;
+        }
+
+        @Override
+        public void accept(int t) {
+            total += t;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading every line of a text file:
+ * BufferedReader (as in Java7Features) compared to MappedTextFile.
+ *
+ * megabytes is the file size, e.g. for multi-GB files
+ *   gradle jmh -Pjmh='MappedTextFileBenchmark -p megabytes=1024,4096'
+ * The test file is written to the temp directory and deleted afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedTextFileBenchmark {
+
+    // the greetings of hello.txt
+    static final List<String> GREETINGS = List.of("hello", "hi there", "g'day", "howdy", "hallo", "hiya", "hey", "wotcha", "oi");
+
+    @Param({"64", "512"})
+    public int megabytes;
+
+    private Path file;
+    private MappedTextFile mapped;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = greetingsFile(megabytes);
+        // the mapped file is opened once and shared, as in Java7Features
+        mapped = MappedTextFile.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    // the BufferedReader version opens the file for each run, as in Java7Features
+    @Benchmark
+    public long bufferedReaderReadLine() throws IOException {
+        long chars = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                chars += line.length();
+            }
+        }
+        return chars;
+    }
+
+    @Benchmark
+    public long mappedReadLine() {
+        long chars = 0;
+        try (MappedTextFile.LineReader reader = mapped.reader()) {
+            for (CharSequence line = reader.readLine(); line != null; line = reader.readLine()) {
+                chars += line.length();
+            }
+        }
+        return chars;
+    }
+
+    @Benchmark
+    public long mappedReadLineToString() {
+        long chars = 0;
+        try (MappedTextFile.LineReader reader = mapped.reader()) {
+            for (CharSequence line = reader.readLine(); line != null; line = reader.readLine()) {
+                chars += line.toString().length();
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * a temp file of about the given size, with one greeting (and a number) per line
+     */
+    static Path greetingsFile(long megabytes) throws IOException {
+        Path file = Files.createTempFile("greetings", ".txt");
+        long bytes = megabytes << 20;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < bytes; i++) {
+                String line = GREETINGS.get(i % GREETINGS.size()) + " " + i;
+                writer.write(line);
+                writer.newLine();
+                written += line.length() + 1;
+            }
+        }
+        return file;
+    }
+}
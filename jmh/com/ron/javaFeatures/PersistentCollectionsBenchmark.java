@@ -0,0 +1,119 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for making a modified version of an immutable collection, as in Java11Features.immutableCollections:
+ * rebuilding List.of() / Map.ofEntries() with one change, compared to PersistentList / PersistentMap,
+ * and for building them from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistentCollectionsBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Integer> source;
+    private Map<Integer, Integer> sourceMap;
+    private List<Integer> listOf;
+    private PersistentList<Integer> persistentList;
+    private Map<Integer, Integer> mapOfEntries;
+    private PersistentMap<Integer, Integer> persistentMap;
+    private int counter;
+
+    // the entries as an array, for Map.ofEntries() (an array of a generic type can only be created unchecked)
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<Integer, Integer>[] entries(Map<Integer, Integer> map) {
+        return map.entrySet().toArray((Map.Entry<Integer, Integer>[]) new Map.Entry<?, ?>[0]);
+    }
+
+    @Setup
+    public void setUp() {
+        source = new ArrayList<>();
+        sourceMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            source.add(i);
+            sourceMap.put(i, i * i);
+        }
+        listOf = List.copyOf(source);
+        persistentList = PersistentList.copyOf(source);
+        mapOfEntries = Map.ofEntries(entries(sourceMap));
+        persistentMap = PersistentMap.copyOf(sourceMap);
+    }
+
+    @Benchmark
+    public List<Integer> listUpdateListOf() {
+        List<Integer> copy = new ArrayList<>(listOf);
+        copy.set(counter++ % size, -1);
+        return List.copyOf(copy);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> listUpdatePersistent() {
+        return persistentList.with(counter++ % size, -1);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> listAppendPersistent() {
+        return persistentList.plus(-1);
+    }
+
+    @Benchmark
+    public List<Integer> listBuildListOf() {
+        return List.copyOf(source);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> listBuildPersistent() {
+        return PersistentList.copyOf(source);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> mapUpdateMapOfEntries() {
+        Map.Entry<Integer, Integer>[] entries = entries(mapOfEntries);
+        int i = counter++ % size;
+        entries[i] = Map.entry(entries[i].getKey(), -1);
+        return Map.ofEntries(entries);
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> mapUpdatePersistent() {
+        return persistentMap.with(counter++ % size, -1);
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> mapWithoutPersistent() {
+        return persistentMap.without(counter++ % size);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> mapBuildMapOfEntries() {
+        return Map.ofEntries(entries(sourceMap));
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> mapBuildPersistent() {
+        return PersistentMap.copyOf(sourceMap);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for PersonTable: a full sort compared to a top-k sort of the first page (k = 100).
+ * Neither uses the result cache of the table. The collation keys of the names are computed
+ * (and cached) before the measurements start.
+ *
+ * Run with e.g.
+ *   gradle jmh -Pjmh='PersonTableBenchmark -p size=10000000 -jvmArgsAppend -Xmx8g'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonTableBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private PersonTable table;
+
+    @Setup
+    public void setUp() {
+        table = new PersonTable();
+        int[] ages = RandomInts.array(size, 0, 110, 1L);
+        int[] names = RandomInts.array(size, 0, 1_000_000, 2L);
+        int[] streets = RandomInts.array(size, 0, 10_000, 3L);
+        for (int i = 0; i < size; i++) {
+            table.add("name" + names[i], streets[i] + " Main Street", ages[i]);
+        }
+        table.topRows(PersonTable.NAME, true, 1);  // compute the collation keys
+    }
+
+    @Benchmark
+    public int[] ageFullSort() {
+        return table.sortRows(PersonTable.AGE, true);
+    }
+
+    @Benchmark
+    public int[] ageTop100() {
+        return table.topRows(PersonTable.AGE, true, PAGE);
+    }
+
+    @Benchmark
+    public int[] nameFullSort() {
+        return table.sortRows(PersonTable.NAME, true);
+    }
+
+    @Benchmark
+    public int[] nameTop100() {
+        return table.topRows(PersonTable.NAME, true, PAGE);
+    }
+}
@@ -0,0 +1,195 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for dispatching on String keys, as in Java7Features.stringsInSwitch_2:
+ * an if/else chain of equals(), a switch on String, and a StringDispatch table.
+ *
+ * Each operation dispatches QUERIES new String objects (a new String has no cached hash code,
+ * as for keys parsed from requests); "copyOnly" is the cost of making the copies.
+ * With the cases of stringsInSwitch_2 (the demo* benchmarks) the if/else chain and the switch are written out;
+ * with generated cases (route-like keys, the cases* benchmarks) the if/else chain is a loop over equals(),
+ * and HashMap.get() stands in for the switch, which also hashes the key, then calls equals().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringDispatchBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    /**
+     * the cases of stringsInSwitch_2
+     */
+    @State(Scope.Benchmark)
+    public static class Demo {
+        char[][] queries;
+        StringDispatch<Integer> dispatch;
+
+        @Setup
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom(42);
+            String[] keys = {"abc", "def", "foo", "bar", "janfu", "ijk", "xyz"};
+            queries = new char[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = keys[random.nextInt(keys.length)].toCharArray();
+            }
+            dispatch = StringDispatch.<Integer>builder()
+                    .on(1, "abc").on(2, "def").on(3, "foo", "bar", "janfu").on(4, "ijk").otherwise(0).build();
+        }
+    }
+
+    /**
+     * generated cases, 90% hits and 10% misses
+     */
+    @State(Scope.Benchmark)
+    public static class Cases {
+        @Param({"10", "100", "1000"})
+        public int cases;
+
+        String[] keys;
+        Map<String, Integer> map;
+        StringDispatch<Integer> dispatch;
+        char[][] queries;
+
+        @Setup
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom(42);
+            keys = new String[cases];
+            map = new HashMap<>();
+            StringDispatch.Builder<Integer> builder = StringDispatch.builder();
+            for (int i = 0; i < cases; i++) {
+                do {
+                    keys[i] = "/" + word(random) + "/" + word(random);
+                } while (map.containsKey(keys[i]));
+                map.put(keys[i], i);
+                builder.on(i, keys[i]);
+            }
+            dispatch = builder.otherwise(-1).build();
+            queries = new char[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                String query = random.nextInt(10) == 0 ? "/" + word(random) + "/" + word(random) : keys[random.nextInt(cases)];
+                queries[i] = query.toCharArray();
+            }
+        }
+    }
+
+    @Benchmark
+    public long demoCopyOnly(Demo demo) {
+        return dispatch(demo.queries, s -> s.length());
+    }
+
+    @Benchmark
+    public long demoIfElse(Demo demo) {
+        return dispatch(demo.queries, StringDispatchBenchmark::ifElse);
+    }
+
+    @Benchmark
+    public long demoSwitch(Demo demo) {
+        return dispatch(demo.queries, StringDispatchBenchmark::switchOnString);
+    }
+
+    @Benchmark
+    public long demoDispatchTable(Demo demo) {
+        return dispatch(demo.queries, demo.dispatch::get);
+    }
+
+    @Benchmark
+    public long casesCopyOnly(Cases cases) {
+        return dispatch(cases.queries, s -> s.length());
+    }
+
+    @Benchmark
+    public long casesIfElse(Cases cases) {
+        String[] keys = cases.keys;
+        return dispatch(cases.queries, s -> {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(s)) {
+                    return i;
+                }
+            }
+            return -1;
+        });
+    }
+
+    @Benchmark
+    public long casesHashMap(Cases cases) {
+        Map<String, Integer> map = cases.map;
+        return dispatch(cases.queries, s -> map.getOrDefault(s, -1));
+    }
+
+    @Benchmark
+    public long casesDispatchTable(Cases cases) {
+        return dispatch(cases.queries, cases.dispatch::get);
+    }
+
+    private interface Lookup {
+        int apply(String key);
+    }
+
+    // look up a new String of each query (made from its chars: new String(String) would copy the hash code)
+    private static long dispatch(char[][] queries, Lookup lookup) {
+        long sum = 0;
+        for (char[] query : queries) {
+            sum += lookup.apply(new String(query));
+        }
+        return sum;
+    }
+
+    private static String word(SplittableRandom random) {
+        char[] chars = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static int ifElse(String s) {
+        if ("abc".equals(s)) {
+            return 1;
+        } else if ("def".equals(s)) {
+            return 2;
+        } else if ("foo".equals(s) || "bar".equals(s) || "janfu".equals(s)) {
+            return 3;
+        } else if ("ijk".equals(s)) {
+            return 4;
+        } else {
+            return 0;
+        }
+    }
+
+    private static int switchOnString(String s) {
+        switch (s) {
+            case "abc":
+                return 1;
+            case "def":
+                return 2;
+            case "foo":
+            case "bar":
+            case "janfu":
+                return 3;
+            case "ijk":
+                return 4;
+            default:
+                return 0;
+        }
+    }
+}
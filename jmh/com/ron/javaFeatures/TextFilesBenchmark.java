@@ -0,0 +1,95 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for writing and reading a text file, as in Java11Features.otherFeatures:
+ * Files.writeString() / Files.readString().lines() compared to TextFiles.
+ * Run with -prof gc to see the memory (gc.alloc.rate.norm): the Files versions hold the whole file in memory.
+ *
+ * megabytes is the file size, e.g.
+ *   gradle jmh -Pjmh='TextFilesBenchmark -p megabytes=16,256 -prof gc'
+ * The test files are written to the temp directory and deleted afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextFilesBenchmark {
+
+    @Param({"16", "256"})
+    public int megabytes;
+
+    private Path in;
+    private Path out;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        in = MappedTextFileBenchmark.greetingsFile(megabytes);
+        out = Files.createTempFile("text", ".txt");
+        text = Files.readString(in);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(in);
+        Files.delete(out);
+    }
+
+    @Benchmark
+    public int readFilesReadStringLines() throws IOException {
+        return Files.readString(in).lines().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int readTextFilesLines() throws IOException {
+        try (Stream<String> lines = TextFiles.lines(in)) {
+            return lines.mapToInt(String::length).sum();
+        }
+    }
+
+    @Benchmark
+    public Path writeFilesWriteString() throws IOException {
+        return Files.writeString(out, text);
+    }
+
+    @Benchmark
+    public Path writeTextFilesWriteString() throws IOException {
+        return TextFiles.writeString(out, text);
+    }
+
+    // the lines are generated while writing, so the text is never held in memory
+    @Benchmark
+    public Path writeTextFilesLines() throws IOException {
+        try (Stream<String> lines = TextFiles.lines(in)) {
+            return TextFiles.write(out, lines, false);
+        }
+    }
+
+    @Benchmark
+    public Path writeTextFilesLinesAsync() throws IOException {
+        try (Stream<String> lines = TextFiles.lines(in)) {
+            return TextFiles.write(out, lines, true);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ron.javaFeatures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks for Utils.
+ *
+ * The random data generators (the random* benchmarks): the Utils methods pick a random number of items,
+ * so the benchmarks use the generators behind them with an exact size.
+ *
+ * The formatting of print() (the print* and format* benchmarks): output goes to a sink which only keeps
+ * the last line, so only formatting is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Size {
+        @Param({"10000000"})
+        public int size;
+    }
+
+    @State(Scope.Thread)
+    public static class Print {
+        final int value = 42;
+        final long time = 1_600_000_000_000L;
+        final StringBuilder reused = new StringBuilder();
+        CharSequence printed;
+        private PrintSink previous;
+
+        @Setup
+        public void setUp() {
+            previous = Utils.setSink((isOk, s) -> printed = s);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Utils.setSink(previous);
+        }
+    }
+
+
+    // ----------------------------------------
+    // random data
+
+    // the original getRandomList: one boxed element at a time with Math.random()
+    @Benchmark
+    public List<Integer> randomListBoxedLoop(Size s) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < s.size; i++) {
+            list.add(Utils.getRandomInt(-1000, 1000));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public List<Integer> randomListGetRandomList(Size s) {
+        return RandomInts.asList(RandomInts.array(s.size, -1000, 1000));
+    }
+
+    @Benchmark
+    public List<Integer> randomListGetRandomListByStream(Size s) {
+        return RandomInts.stream(s.size, -1000, 1000).parallel().boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int[] randomArrayArray(Size s) {
+        return RandomInts.array(s.size, -1000, 1000);
+    }
+
+    @Benchmark
+    public int[] randomArraySeeded(Size s) {
+        return RandomInts.array(s.size, -1000, 1000, 42L);
+    }
+
+    @Benchmark
+    public int[] randomArrayStream(Size s) {
+        return RandomInts.stream(s.size, -1000, 1000).toArray();
+    }
+
+    @Benchmark
+    public int[] randomArrayParallelStream(Size s) {
+        return RandomInts.stream(s.size, -1000, 1000).parallel().toArray();
+    }
+
+
+    // ----------------------------------------
+    // print formatting
+
+    // the original print(boolean, char, Object...): new builder, toString() per argument, boxed values
+    @Benchmark
+    public String printOriginal(Print p) {
+        StringBuilder sb = new StringBuilder();
+        for (Object o : new Object[]{"sum =", p.value, "at", p.time}) {
+            if (o != null) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(o.toString());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public CharSequence printVarargs(Print p) {
+        Utils.print("sum =", p.value, "at", p.time);
+        return p.printed;
+    }
+
+    @Benchmark
+    public CharSequence printBoxedPair(Print p) {
+        Utils.print("sum =", (Object) p.value);
+        return p.printed;
+    }
+
+    @Benchmark
+    public CharSequence printIntPair(Print p) {
+        Utils.printInt("sum =", p.value);
+        return p.printed;
+    }
+
+    @Benchmark
+    public Object formatAppendable(Print p) {
+        p.reused.setLength(0);
+        return Utils.format(p.reused, Utils.SPACE, "sum =", p.value, "at", p.time);
+    }
+}
@@ -0,0 +1,181 @@
+package com.ron.javaFeatures;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A java.util.logging Handler which hands the records to another Handler on a background thread,
+ * so that logging threads do not wait for I/O.
+ *
+ * The queue is bounded. When it is full the OverflowPolicy decides:
+ *   BLOCK - the logging thread waits for space (nothing is lost)
+ *   DROP  - the record is discarded and counted (logging never waits)
+ *
+ * close() waits for the threads which are queueing a record, then publishes everything queued,
+ * so no record is lost in a race with close(). Records logged after close() are discarded and counted.
+ *
+ * It can be created in code:
+ *   logger.addHandler(new AsyncLogHandler(new ConsoleHandler(), 8192, AsyncLogHandler.OverflowPolicy.DROP));
+ * or from a logging.properties file (java -Djava.util.logging.config.file=...):
+ *   handlers = com.ron.javaFeatures.AsyncLogHandler
+ *   com.ron.javaFeatures.AsyncLogHandler.capacity = 8192        (default 1024)
+ *   com.ron.javaFeatures.AsyncLogHandler.policy = DROP          (default BLOCK)
+ *   com.ron.javaFeatures.AsyncLogHandler.level = INFO           (default ALL)
+ * in which case the records go to a ConsoleHandler.
+ */
+public class AsyncLogHandler extends Handler {
+
+    public enum OverflowPolicy {BLOCK, DROP}
+
+    private final Handler target;
+    private final OverflowPolicy policy;
+    private final BlockingQueue<LogRecord> queue;
+    private final Thread worker;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();  // records taken from the queue and published
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicInteger producers = new AtomicInteger();  // threads in publish(), which close() waits for
+    private volatile boolean closed;
+    private volatile boolean stopped;  // set by close() once no producer can queue a record anymore
+
+    /**
+     * configured from the LogManager properties, publishing to a ConsoleHandler
+     */
+    public AsyncLogHandler() {
+        this(new ConsoleHandler(), intProperty("capacity", 1024),
+                OverflowPolicy.valueOf(property("policy", OverflowPolicy.BLOCK.name()).strip().toUpperCase()));
+        setLevel(Level.parse(property("level", Level.ALL.getName()).strip()));
+    }
+
+    public AsyncLogHandler(Handler target, int capacity, OverflowPolicy policy) {
+        this.target = target;
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        worker = new Thread(this::publishLoop, "AsyncLogHandler-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + "." + name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, String.valueOf(defaultValue)).strip());
+    }
+
+    /**
+     * number of records discarded because the queue was full (DROP policy) or the handler was closed
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        // register before looking at closed: either close() sees this producer and waits for it,
+        // or this producer sees closed and discards the record
+        producers.incrementAndGet();
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            // the caller is inferred lazily from the stack, which must happen on this thread
+            record.getSourceMethodName();
+            if (policy == OverflowPolicy.DROP) {
+                if (queue.offer(record)) {
+                    queued.incrementAndGet();
+                } else {
+                    dropped.incrementAndGet();
+                }
+                return;
+            }
+            queue.put(record);  // the worker keeps taking records until close() has seen no producer
+            queued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reportError("interrupted while queueing a log record", e, ErrorManager.WRITE_FAILURE);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private void publishLoop() {
+        while (!stopped) {
+            try {
+                LogRecord record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    publishToTarget(record);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void publishToTarget(LogRecord record) {
+        try {
+            target.publish(record);
+        } catch (RuntimeException e) {
+            reportError("failed to publish a log record", e, ErrorManager.WRITE_FAILURE);
+        } finally {
+            published.incrementAndGet();
+        }
+    }
+
+    /**
+     * wait until the records queued so far have been published, then flush the target
+     */
+    @Override
+    public void flush() {
+        long target = queued.get();
+        while (published.get() < target && worker.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+        this.target.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // producers which registered before closed was set queue their record: wait for them
+        // (the worker is still running, so a producer blocked on a full queue gets its space)
+        while (producers.get() != 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        stopped = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // records queued while the worker was stopping
+        for (LogRecord record; (record = queue.poll()) != null; ) {
+            publishToTarget(record);
+        }
+        long lost = dropped.get();
+        if (lost > 0) {
+            target.publish(new LogRecord(Level.WARNING, "AsyncLogHandler dropped " + lost + " log records"));
+        }
+        target.close();
+    }
+}
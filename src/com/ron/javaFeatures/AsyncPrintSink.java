@@ -0,0 +1,290 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A PrintSink which does not block the printing threads on I/O.
+ *
+ * Lines go into a bounded, lock-free ring buffer (many producers, one consumer).
+ * A background flusher thread takes them out in batches, encodes each batch to UTF-8
+ * into one reusable buffer and writes it with a single channel write.
+ * When the ring buffer is full, producers wait (spinning, then parking) until there is space,
+ * so no output is lost.
+ *
+ * The remaining lines are written when the sink is closed, or at the latest by a shutdown hook.
+ * close() waits for the producers which are publishing a line, so no line is lost in a race with close().
+ *
+ * usage:
+ *   Utils.setSink(new AsyncPrintSink(System.out, System.err, 1 << 16, 10));
+ */
+public class AsyncPrintSink implements PrintSink, AutoCloseable {
+
+    private static final int BATCH_BYTES = 64 * 1024;
+
+    private final WritableByteChannel out;
+    private final WritableByteChannel err;
+    private final OutputStream outStream;  // flushed after each batch, if not null
+    private final OutputStream errStream;
+    private final boolean ownsChannels;          // close the channels on close()
+    private final long flushIntervalNanos;
+
+    // ring buffer; a slot at position pos is free when its sequence == pos,
+    // and holds a line when its sequence == pos + 1
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] lines;
+    private final boolean[] isOks;
+    private final AtomicLong tail = new AtomicLong();  // next position to publish to
+    private volatile long head;                        // next position to consume, written after the line was written
+
+    private final Thread flusher;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+    private final AtomicInteger producers = new AtomicInteger();  // threads in println(), which close() waits for
+
+    // used by the flusher thread only
+    private final StringBuilder outBatch = new StringBuilder();
+    private final StringBuilder errBatch = new StringBuilder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BATCH_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * @param out                  normal output
+     * @param err                  error output (may be the same stream as out)
+     * @param capacity             number of lines the ring buffer holds (rounded up to a power of 2)
+     * @param flushIntervalMillis  how long the flusher sleeps when there is nothing to write (at least 1)
+     */
+    public AsyncPrintSink(OutputStream out, OutputStream err, int capacity, long flushIntervalMillis) {
+        this(Channels.newChannel(out), out == err ? null : Channels.newChannel(err),
+                out, out == err ? null : err, false, capacity, flushIntervalMillis);
+    }
+
+    /**
+     * Write both normal and error output to a single file (appending).
+     */
+    public static AsyncPrintSink toFile(Path path, int capacity, long flushIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new AsyncPrintSink(channel, null, null, null, true, capacity, flushIntervalMillis);
+    }
+
+    // err == null means that errors go to the out channel, in order with normal output
+    private AsyncPrintSink(WritableByteChannel out, WritableByteChannel err,
+                           OutputStream outStream, OutputStream errStream, boolean ownsChannels,
+                           int capacity, long flushIntervalMillis) {
+        if (capacity < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("capacity = " + capacity + ", flushIntervalMillis = " + flushIntervalMillis);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.out = out;
+        this.err = err;
+        this.outStream = outStream;
+        this.errStream = errStream;
+        this.ownsChannels = ownsChannels;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.lines = new String[size];
+        this.isOks = new boolean[size];
+
+        flusher = new Thread(this::flushLoop, "AsyncPrintSink-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        shutdownHook = new Thread(this::close, "AsyncPrintSink-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void println(boolean isOk, String s) {
+        // register before looking at closed: either close() sees this producer and waits for it,
+        // or this producer sees closed and prints synchronously
+        producers.incrementAndGet();
+        try {
+            if (closed) {
+                PrintSink.SYSTEM.println(isOk, s);
+                return;
+            }
+            publish(isOk, s);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private void publish(boolean isOk, String s) {
+        int spins = 0;
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    lines[index] = s;
+                    isOks[index] = isOk;
+                    sequences.set(index, pos + 1);  // publish
+                    return;
+                }
+            } else if (diff < 0) {
+                // full: wait for the flusher
+                if (closed) {
+                    PrintSink.SYSTEM.println(isOk, s);
+                    return;
+                }
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.unpark(flusher);
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+            // else another producer took this position: retry
+        }
+    }
+
+    /**
+     * Wait until every line published before this call has been written.
+     */
+    @Override
+    public void flush() {
+        long target = tail.get();
+        while (head < target && flusher.isAlive()) {
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Write all remaining lines and stop the flusher thread.
+     * Lines printed after close() are printed synchronously to System.out / System.err.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // producers which registered before closed was set publish to the ring buffer: wait for them
+        // (a producer waiting for space gives up and prints synchronously once it sees closed)
+        while (producers.get() != 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();  // lines published while the flusher was stopping
+        if (ownsChannels) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                Utils.logger.severe("AsyncPrintSink: failed to close output: " + e.getMessage());
+            }
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // already shutting down
+            }
+        }
+    }
+
+
+    // ----------------------------------------
+    // flusher thread
+
+    private void flushLoop() {
+        while (true) {
+            boolean wasClosed = closed;  // read before draining, so nothing published before close() is missed
+            if (drain()) {
+                continue;
+            }
+            if (wasClosed) {
+                return;
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    /**
+     * take all published lines out of the ring buffer and write them; returns false if there were none
+     */
+    private boolean drain() {
+        long pos = head;
+        long start = pos;
+        while (true) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                break;
+            }
+            StringBuilder batch = isOks[index] || err == null ? outBatch : errBatch;
+            batch.append(lines[index]).append(System.lineSeparator());
+            lines[index] = null;
+            sequences.set(index, pos + mask + 1);  // free the slot for the next round
+            pos++;
+            if (batch.length() >= BATCH_BYTES) {
+                writeBatches();
+            }
+        }
+        writeBatches();
+        head = pos;
+        return pos != start;
+    }
+
+    private void writeBatches() {
+        write(outBatch, out, outStream);
+        if (err != null) {
+            write(errBatch, err, errStream);
+        }
+    }
+
+    private void write(StringBuilder batch, WritableByteChannel channel, OutputStream stream) {
+        if (batch.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(batch);
+        encoder.reset();
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                bytes.clear();
+            } while (result.isOverflow());
+            if (stream != null) {
+                stream.flush();
+            }
+        } catch (IOException e) {
+            // the batch is lost, but keep going so the printing threads are never blocked for good
+            Utils.logger.severe("AsyncPrintSink: failed to write output: " + e.getMessage());
+        } finally {
+            batch.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ron.javaFeatures;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of direct ByteBuffers of one size.
+ *
+ * Direct buffers are expensive to allocate and are freed only by the garbage collector,
+ * so I/O code should reuse them: acquire() a buffer, use it, and release() it in a finally block.
+ * At most maxPooled buffers are kept; when the pool is empty a new buffer is allocated.
+ */
+public class BufferPool {
+
+    /**
+     * 64K buffers, shared by the I/O classes of this package
+     */
+    public static final BufferPool SHARED = new BufferPool(64 * 1024, 2 * Runtime.getRuntime().availableProcessors());
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> pool;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * a cleared buffer
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize && buffer.isDirect()) {
+            buffer.clear();
+            pool.offer(buffer);  // dropped if the pool is full
+        }
+    }
+}
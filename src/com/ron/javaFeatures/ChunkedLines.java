@@ -0,0 +1,188 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The lines of a (very large) UTF-8 text file as a parallel stream.
+ *
+ * The file is split into byte ranges which start and end on line boundaries, and the ranges
+ * are processed on the fork/join pool of the stream (the common pool, unless the terminal operation
+ * is run inside another ForkJoinPool). Each range is read one chunk at a time: a chunk of at most
+ * chunkSize bytes (extended to the end of its last line) is memory-mapped, and its lines are
+ * CharSequence views of the mapped bytes, as in MappedTextFile. So the memory needed is bounded by
+ * the chunk size times the parallelism, not by the size of the file.
+ *
+ * The stream keeps the file open; close it, like Files.lines():
+ *   try (Stream<CharSequence> lines = ChunkedLines.lines(path)) { ... }
+ */
+public final class ChunkedLines {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private static final int SCAN_SIZE = 8 * 1024;
+
+    private ChunkedLines() {
+    }
+
+    public static Stream<CharSequence> lines(Path file) throws IOException {
+        return lines(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static Stream<CharSequence> lines(Path file, int chunkSize) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize = " + chunkSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return StreamSupport.stream(new ChunkSpliterator(channel, chunkSize, 0, channel.size()), true)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * the position after the first '\n' at or after from (or end, if there is none before end)
+     */
+    static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from;
+        while (position < end) {
+            scan.clear();
+            scan.limit((int) Math.min(SCAN_SIZE, end - position));
+            int n = channel.read(scan, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return end;
+    }
+
+    /**
+     * The lines of the bytes [start, end) of a file; start is always at the start of a line.
+     */
+    private static final class ChunkSpliterator implements Spliterator<CharSequence> {
+        private final FileChannel channel;
+        private final int chunkSize;
+        private long start;       // of the bytes not mapped yet
+        private final long end;
+        private ByteBuffer chunk; // the mapped chunk being read, or null
+        private int position;     // in chunk
+
+        ChunkSpliterator(FileChannel channel, int chunkSize, long start, long end) {
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Spliterator<CharSequence> trySplit() {
+            if (chunk != null || end - start < 2L * chunkSize) {
+                return null;
+            }
+            try {
+                long middle = nextLineStart(channel, start + (end - start) / 2, end);
+                if (middle >= end) {
+                    return null;  // one huge line
+                }
+                ChunkSpliterator prefix = new ChunkSpliterator(channel, chunkSize, start, middle);
+                start = middle;
+                return prefix;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CharSequence> action) {
+            if ((chunk == null || position >= chunk.limit()) && !nextChunk()) {
+                return false;
+            }
+            action.accept(nextLine());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super CharSequence> action) {
+            while ((chunk != null && position < chunk.limit()) || nextChunk()) {
+                int limit = chunk.limit();
+                while (position < limit) {
+                    action.accept(nextLine());
+                }
+            }
+        }
+
+        // map the next chunk, ending on a line boundary
+        private boolean nextChunk() {
+            if (start >= end) {
+                chunk = null;
+                return false;
+            }
+            try {
+                long length = Math.min(chunkSize, end - start);
+                if (start + length < end) {
+                    // extend the chunk to the end of its last line
+                    length = nextLineStart(channel, start + length - 1, end) - start;
+                }
+                if (length > MappedTextFile.SEGMENT_SIZE) {
+                    throw new IOException("line longer than " + MappedTextFile.SEGMENT_SIZE + " bytes");
+                }
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                position = 0;
+                start += length;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private CharSequence nextLine() {
+            ByteBuffer bytes = chunk;
+            int from = position;
+            int to = from;
+            int limit = bytes.limit();
+            while (to < limit && bytes.get(to) != '\n') {
+                to++;
+            }
+            position = to + 1;  // skip the '\n'
+            if (to > from && bytes.get(to - 1) == '\r') {
+                to--;
+            }
+            return new MappedTextFile.Utf8Line(bytes, from, to - from);
+        }
+
+        @Override
+        public long estimateSize() {
+            // in bytes, not lines: only used to balance the splits
+            return end - start + (chunk == null ? 0 : chunk.limit() - position);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
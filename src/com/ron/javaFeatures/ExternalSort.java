@@ -0,0 +1,528 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * sorted() for streams which do not fit in the heap, e.g.
+ *   try (Stream<Integer> sorted = ExternalSort.builder(ExternalSort.Codec.INTS).build().sorted(hugeStream)) { ... }
+ *
+ * The input is read into runs of runSize elements. Each run is sorted and written to a temp file
+ * on the common fork/join pool, while the next run is read, with at most parallelism runs in progress.
+ * So at most (parallelism + 1) * runSize elements are on the heap at any time.
+ * Then the run files are merged (with a heap of the k runs) as the result is consumed, each read through
+ * a buffer of its own (64K, or less when there are more than 512 runs: 32MB for all of them). A run file is
+ * only open while its buffer is filled, and never memory-mapped: so thousands of runs need no more
+ * file handles, and the files can be deleted as soon as the stream is closed, also on Windows
+ * (where a mapped file cannot be deleted until the garbage collector unmaps it).
+ * An input of at most runSize elements is sorted in memory, without any files.
+ *
+ * Runs are written with a Codec. As the elements of a run are sorted, each is written relative to the one
+ * before it: INTS and LONGS as zigzag varint deltas (often a single byte), STRINGS as the length of the
+ * prefix they share with the previous string and the UTF-8 bytes of the rest.
+ *
+ * The sort is stable, like Stream.sorted(), and elements must not be null.
+ * The returned stream deletes the run files when it is closed (or fully consumed), so use it
+ * in a try-with-resources block, like Files.lines().
+ */
+public final class ExternalSort<T> {
+
+    public static final int DEFAULT_RUN_SIZE = 1 << 20;
+
+    private static final int MAX_RUN_BUFFER_SIZE = 64 * 1024;
+    private static final int MERGE_BUFFERS_SIZE = 32 << 20;
+
+    private final Codec<T> codec;
+    private final Comparator<? super T> comparator;
+    private final int runSize;
+    private final int parallelism;
+    private final Path directory;
+
+    private ExternalSort(Builder<T> builder) {
+        this.codec = builder.codec;
+        this.comparator = builder.comparator;
+        this.runSize = builder.runSize;
+        this.parallelism = builder.parallelism;
+        this.directory = builder.directory;
+    }
+
+    /**
+     * a builder for the natural order
+     */
+    public static <T extends Comparable<? super T>> Builder<T> builder(Codec<T> codec) {
+        return new Builder<>(codec, Comparator.naturalOrder());
+    }
+
+    public static <T> Builder<T> builder(Codec<T> codec, Comparator<? super T> comparator) {
+        return new Builder<>(codec, comparator);
+    }
+
+    public static final class Builder<T> {
+        private final Codec<T> codec;
+        private final Comparator<? super T> comparator;
+        private int runSize = DEFAULT_RUN_SIZE;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+        private Builder(Codec<T> codec, Comparator<? super T> comparator) {
+            this.codec = Objects.requireNonNull(codec);
+            this.comparator = Objects.requireNonNull(comparator);
+        }
+
+        /**
+         * the number of elements sorted in memory at a time
+         */
+        public Builder<T> runSize(int runSize) {
+            if (runSize < 1) {
+                throw new IllegalArgumentException("runSize = " + runSize);
+            }
+            this.runSize = runSize;
+            return this;
+        }
+
+        /**
+         * the number of runs sorted and written at the same time
+         */
+        public Builder<T> parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism = " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * where the run files go (the temp directory by default)
+         */
+        public Builder<T> directory(Path directory) {
+            this.directory = Objects.requireNonNull(directory);
+            return this;
+        }
+
+        public ExternalSort<T> build() {
+            return new ExternalSort<>(this);
+        }
+    }
+
+    /**
+     * The elements of input, sorted. All of input is read (and the runs are written) before this returns.
+     */
+    public Stream<T> sorted(Stream<? extends T> input) throws IOException {
+        Iterator<? extends T> iterator = input.iterator();
+        Object[] run = read(iterator);
+        if (!iterator.hasNext()) {
+            // it fits in memory
+            sort(run);
+            return Arrays.stream(run).map(this::cast);
+        }
+
+        List<Path> files = new ArrayList<>();
+        ArrayDeque<Future<Path>> pending = new ArrayDeque<>();
+        try {
+            while (run.length > 0) {
+                if (pending.size() >= parallelism) {
+                    files.add(await(pending.removeFirst()));
+                }
+                Object[] r = run;
+                pending.add(ForkJoinPool.commonPool().submit(() -> write(r)));
+                run = read(iterator);
+            }
+            while (!pending.isEmpty()) {
+                files.add(await(pending.removeFirst()));
+            }
+            Merge merge = new Merge(files);
+            return StreamSupport.stream(merge, false).onClose(merge::close);
+        } catch (IOException | RuntimeException | Error e) {
+            for (Future<Path> f : pending) {
+                try {
+                    files.add(await(f));
+                } catch (IOException | RuntimeException ignored) {
+                    // already failing
+                }
+            }
+            delete(files);
+            throw e;
+        }
+    }
+
+    // the next (at most runSize) elements; the array grows as needed, so a small input takes little memory
+    private Object[] read(Iterator<?> iterator) {
+        Object[] run = new Object[Math.min(runSize, 1024)];
+        int n = 0;
+        while (n < runSize && iterator.hasNext()) {
+            if (n == run.length) {
+                run = Arrays.copyOf(run, (int) Math.min(runSize, 2L * n));
+            }
+            run[n++] = Objects.requireNonNull(iterator.next(), "null element");
+        }
+        return n == run.length ? run : Arrays.copyOf(run, n);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object o) {
+        return (T) o;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sort(Object[] run) {
+        Arrays.sort((T[]) run, comparator);
+    }
+
+    // sort a run and write it to a new temp file
+    private Path write(Object[] run) throws IOException {
+        sort(run);
+        Path file = Files.createTempFile(directory, "sort", ".run");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            Codec.Output out = new Codec.Output(channel);
+            T previous = null;
+            for (int i = 0; i < run.length; i++) {
+                T value = cast(run[i]);
+                codec.write(value, previous, out);
+                previous = value;
+                run[i] = null;
+            }
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private static Path await(Future<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void delete(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // a temp file
+            }
+        }
+    }
+
+
+    // ----------------------------------------
+
+    /**
+     * k-way merge of the run files, with a binary heap of the runs ordered by their next element
+     * (and then by run number, which keeps the sort stable)
+     */
+    private final class Merge extends Spliterators.AbstractSpliterator<T> {
+        private final List<Path> files;
+        private final Run<T>[] heap;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Merge(List<Path> files) throws IOException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.files = files;
+            this.heap = (Run<T>[]) new Run<?>[files.size()];
+            int bufferSize = Math.max(1024, Math.min(MAX_RUN_BUFFER_SIZE, MERGE_BUFFERS_SIZE / files.size()));
+            for (int i = 0; i < files.size(); i++) {
+                Run<T> run = new Run<>(codec, i, files.get(i), bufferSize);
+                if (run.advance()) {
+                    heap[size++] = run;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (size == 0) {
+                close();
+                return false;
+            }
+            Run<T> top = heap[0];
+            T value = top.head;
+            boolean more;
+            try {
+                more = top.advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!more) {
+                heap[0] = heap[--size];
+                heap[size] = null;
+            }
+            if (size > 0) {
+                siftDown(0);
+            }
+            action.accept(value);
+            return true;
+        }
+
+        private void siftDown(int i) {
+            Run<T> run = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], run)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = run;
+        }
+
+        private boolean less(Run<T> a, Run<T> b) {
+            int c = comparator.compare(a.head, b.head);
+            return c < 0 || (c == 0 && a.index < b.index);
+        }
+
+        void close() {
+            size = 0;
+            Arrays.fill(heap, null);
+            delete(files);
+        }
+    }
+
+    // a cursor over a run file, read through a buffer
+    private static final class Run<T> {
+        final Codec<T> codec;
+        final int index;
+        private final Path file;
+        private long position;  // in the file, of the bytes after the buffer
+        private ByteBuffer in;
+        private boolean endOfFile;
+        T head;
+
+        Run(Codec<T> codec, int index, Path file, int bufferSize) {
+            this.codec = codec;
+            this.index = index;
+            this.file = file;
+            this.in = ByteBuffer.allocate(bufferSize).flip();
+        }
+
+        boolean advance() throws IOException {
+            if (!in.hasRemaining() && !fill()) {
+                head = null;
+                return false;
+            }
+            while (true) {
+                int start = in.position();
+                try {
+                    head = codec.read(head, in);
+                    return true;
+                } catch (BufferUnderflowException e) {
+                    // the element goes on after the buffer: read it again, with the rest of its bytes
+                    in.position(start);
+                    if (!fill()) {
+                        throw new IOException("truncated run file");
+                    }
+                }
+            }
+        }
+
+        // read more bytes after the remaining ones (growing the buffer for an element larger than it);
+        // false at the end of the file
+        private boolean fill() throws IOException {
+            if (endOfFile) {
+                return false;
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+            }
+            int n;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                n = channel.read(in, position);
+            }
+            in.flip();
+            endOfFile = n < 0;
+            if (n > 0) {
+                position += n;
+            }
+            return !endOfFile;
+        }
+    }
+
+
+    // ----------------------------------------
+
+    /**
+     * How the elements of a sorted run are written: each element may be written relative to the previous one
+     * (null for the first element of a run).
+     */
+    public interface Codec<T> {
+
+        void write(T value, T previous, Output out) throws IOException;
+
+        /**
+         * read an element; if in ends within it (a BufferUnderflowException), this is called again
+         * with the same previous element and more bytes
+         */
+        T read(T previous, ByteBuffer in);
+
+        Codec<Integer> INTS = new Codec<Integer>() {
+            @Override
+            public void write(Integer value, Integer previous, Output out) throws IOException {
+                out.writeVarLong(zigzag(value - (previous == null ? 0L : previous)));
+            }
+
+            @Override
+            public Integer read(Integer previous, ByteBuffer in) {
+                return (int) ((previous == null ? 0L : previous) + unzigzag(readVarLong(in)));
+            }
+        };
+
+        Codec<Long> LONGS = new Codec<Long>() {
+            @Override
+            public void write(Long value, Long previous, Output out) throws IOException {
+                // the difference may wrap around, which the addition in read() undoes
+                out.writeVarLong(zigzag(value - (previous == null ? 0L : previous)));
+            }
+
+            @Override
+            public Long read(Long previous, ByteBuffer in) {
+                return (previous == null ? 0L : previous) + unzigzag(readVarLong(in));
+            }
+        };
+
+        /**
+         * the length of the prefix shared with the previous string, and the rest in UTF-8
+         */
+        Codec<String> STRINGS = new Codec<String>() {
+            @Override
+            public void write(String value, String previous, Output out) throws IOException {
+                int prefix = 0;
+                if (previous != null) {
+                    int max = Math.min(value.length(), previous.length());
+                    while (prefix < max && value.charAt(prefix) == previous.charAt(prefix)) {
+                        prefix++;
+                    }
+                    if (prefix > 0 && Character.isHighSurrogate(value.charAt(prefix - 1))) {
+                        prefix--;  // don't split a surrogate pair
+                    }
+                }
+                byte[] rest = value.substring(prefix).getBytes(StandardCharsets.UTF_8);
+                out.writeVarLong(prefix);
+                out.writeVarLong(rest.length);
+                out.write(rest, 0, rest.length);
+            }
+
+            @Override
+            public String read(String previous, ByteBuffer in) {
+                int prefix = (int) readVarLong(in);
+                byte[] rest = new byte[(int) readVarLong(in)];
+                in.get(rest);
+                String suffix = new String(rest, StandardCharsets.UTF_8);
+                return prefix == 0 ? suffix : previous.substring(0, prefix).concat(suffix);
+            }
+        };
+
+        static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * an unsigned LEB128 varint, as written by Output.writeVarLong()
+         */
+        static long readVarLong(ByteBuffer in) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        /**
+         * buffered output to a run file
+         */
+        final class Output {
+            private final FileChannel channel;
+            private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+            Output(FileChannel channel) {
+                this.channel = channel;
+            }
+
+            public void writeVarLong(long value) throws IOException {
+                if (buffer.remaining() < 10) {
+                    flush();
+                }
+                while ((value & ~0x7FL) != 0) {
+                    buffer.put((byte) ((value & 0x7F) | 0x80));
+                    value >>>= 7;
+                }
+                buffer.put((byte) value);
+            }
+
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                while (length > 0) {
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                    int n = Math.min(length, buffer.remaining());
+                    buffer.put(bytes, offset, n);
+                    offset += n;
+                    length -= n;
+                }
+            }
+
+            void flush() throws IOException {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copying files with FileChannels.
+ *
+ * copy() is a raw copy with FileChannel.transferTo(), which lets the operating system move the bytes
+ * (e.g. with sendfile / copy_file_range on Linux) without copying them through the Java heap.
+ *
+ * transform() is for copies which change the bytes on the way: the file is read into a pooled
+ * direct buffer, the transform is applied to the buffer in place, and the buffer is written out.
+ * Transforms must keep the length of the data (e.g. ASCII case conversion, byte substitution).
+ */
+public final class FileCopier {
+
+    /**
+     * An in-place transform of the bytes between position and limit of a buffer.
+     * It must not change position or limit.
+     */
+    @FunctionalInterface
+    public interface ByteTransform {
+        void apply(ByteBuffer bytes);
+    }
+
+    /**
+     * ASCII letters to upper case (UTF-8 multi-byte characters are left alone)
+     */
+    public static final ByteTransform ASCII_UPPER_CASE = bytes -> {
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            byte b = bytes.get(i);
+            if (b >= 'a' && b <= 'z') {
+                bytes.put(i, (byte) (b - ('a' - 'A')));
+            }
+        }
+    };
+
+    private FileCopier() {
+    }
+
+    /**
+     * copy in to out (created or truncated); returns the number of bytes copied
+     */
+    public static long copy(Path in, Path out) throws IOException {
+        try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel target = openForWriting(out)) {
+            return copy(source, target);
+        }
+    }
+
+    /**
+     * copy source to target; returns the number of bytes copied.
+     * If the source shrinks during the copy, the copy stops at its new end.
+     */
+    public static long copy(FileChannel source, FileChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            // transferTo may copy less than asked for (e.g. at most 2GB at a time),
+            // and copies nothing once position is past the end of the source
+            long transferred = source.transferTo(position, size - position, target);
+            if (transferred == 0) {
+                break;
+            }
+            position += transferred;
+        }
+        return position;
+    }
+
+    /**
+     * copy in to out (created or truncated), applying the transform; returns the number of bytes copied
+     */
+    public static long transform(Path in, Path out, ByteTransform transform) throws IOException {
+        try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel target = openForWriting(out)) {
+            return transform(source, target, transform, BufferPool.SHARED);
+        }
+    }
+
+    public static long transform(FileChannel source, FileChannel target, ByteTransform transform, BufferPool pool) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        try {
+            long total = 0;
+            while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                transform.apply(buffer);
+                total += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return total;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private static FileChannel openForWriting(Path out) throws IOException {
+        return FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,147 @@
+package com.ron.javaFeatures;
+
+import java.nio.IntBuffer;
+
+/**
+ * Collects the int arguments of many calls into one reusable IntBuffer, and processes them together.
+ *
+ * A varargs method like doSomething(int... numbers) allocates a new int[] for every call.
+ * The fixed-arity add() overloads put the arguments straight into the buffer instead,
+ * and when the buffer is full (or on flush()) the processor gets the whole batch as
+ * one array range, which it can go through in a single simple loop (which the JIT can vectorize).
+ *
+ * Not thread safe; use one per thread.
+ */
+public final class IntBatch {
+
+    /**
+     * Processes numbers[from .. to); the array is reused, so it must not be kept.
+     */
+    @FunctionalInterface
+    public interface Processor {
+        void process(int[] numbers, int from, int to);
+    }
+
+    /**
+     * adds the numbers of a batch
+     */
+    public static long sum(int[] numbers, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += numbers[i];
+        }
+        return sum;
+    }
+
+    private final IntBuffer buffer;
+    private final int[] array;      // of the buffer, written directly (without the bounds checks of IntBuffer.put())
+    private final Processor processor;
+    private int size;
+
+    public IntBatch(int capacity, Processor processor) {
+        if (capacity < 5) {
+            throw new IllegalArgumentException("capacity = " + capacity);
+        }
+        this.buffer = IntBuffer.allocate(capacity);
+        this.array = buffer.array();
+        this.processor = processor;
+    }
+
+    public IntBatch add(int a) {
+        ensureRoom(1);
+        int i = size;
+        array[i] = a;
+        size = i + 1;
+        return this;
+    }
+
+    public IntBatch add(int a, int b) {
+        ensureRoom(2);
+        int i = size;
+        array[i] = a;
+        array[i + 1] = b;
+        size = i + 2;
+        return this;
+    }
+
+    public IntBatch add(int a, int b, int c) {
+        ensureRoom(3);
+        int i = size;
+        array[i] = a;
+        array[i + 1] = b;
+        array[i + 2] = c;
+        size = i + 3;
+        return this;
+    }
+
+    public IntBatch add(int a, int b, int c, int d) {
+        ensureRoom(4);
+        int i = size;
+        array[i] = a;
+        array[i + 1] = b;
+        array[i + 2] = c;
+        array[i + 3] = d;
+        size = i + 4;
+        return this;
+    }
+
+    public IntBatch add(int a, int b, int c, int d, int e) {
+        ensureRoom(5);
+        int i = size;
+        array[i] = a;
+        array[i + 1] = b;
+        array[i + 2] = c;
+        array[i + 3] = d;
+        array[i + 4] = e;
+        size = i + 5;
+        return this;
+    }
+
+    /**
+     * for more arguments (the array may be reused by the caller)
+     */
+    public IntBatch add(int[] numbers) {
+        int i = 0;
+        while (i < numbers.length) {
+            if (size == array.length) {
+                flush();
+            }
+            int n = Math.min(numbers.length - i, array.length - size);
+            System.arraycopy(numbers, i, array, size, n);
+            size += n;
+            i += n;
+        }
+        return this;
+    }
+
+    /**
+     * number of ints waiting to be processed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * process the ints added so far
+     */
+    public void flush() {
+        int n = size;
+        if (n > 0) {
+            size = 0;
+            processor.process(array, 0, n);
+        }
+    }
+
+    /**
+     * the ints added so far (position = size()), e.g. to process them with the IntBuffer API
+     */
+    public IntBuffer buffer() {
+        return buffer.clear().position(size);
+    }
+
+    private void ensureRoom(int n) {
+        if (array.length - size < n) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ron.javaFeatures;
+
+/**
+ * Like BiConsumer<Integer, Integer>, without boxing: for the entries of an IntIntMap.
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+
+    void accept(int key, int value);
+}
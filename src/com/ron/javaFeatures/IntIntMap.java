@@ -0,0 +1,343 @@
+package com.ron.javaFeatures;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A map from int to int, without boxing, like the HashMap<Integer, Integer> of Utils.getRandomMap():
+ * open addressing with linear probing, keys and values interleaved in one int[] (so a lookup usually
+ * reads one cache line), at most 75% full.
+ *
+ * With 10 million entries it takes about 130MB, where a HashMap<Integer, Integer> takes about 700MB
+ * (a 32 byte node, and a 16 byte Integer for each key and value, plus the table).
+ *
+ * forEach() takes an IntIntConsumer; spliterator() splits the slot array, for parallelForEach()
+ * and parallel streams of entries(). Not thread safe for writes: don't modify the map while iterating.
+ */
+public class IntIntMap {
+
+    private static final int FREE = 0;  // key 0 is kept outside the slots
+    private static final int PARALLEL_THRESHOLD = 1 << 16;  // slots per fork/join task, at least
+
+    private int[] slots;  // key, value, key, value, ...
+    private int capacity; // number of slots (a power of 2)
+    private int shift;    // 32 - log2(capacity)
+    private int size;     // in the slots
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit((int) Math.min(1 << 29, expectedSize * 4L / 3 + 1) - 1) << 1));
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        this.slots = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? hasZeroKey : slots[find(key)] == key;
+    }
+
+    public int get(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int i = find(key);
+        return slots[i] == key ? slots[i + 1] : defaultValue;
+    }
+
+    public void put(int key, int value) {
+        if (key == FREE) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = find(key);
+        if (slots[i] == key) {
+            slots[i + 1] = value;
+        } else {
+            insert(i, key, value);
+        }
+    }
+
+    /**
+     * put key -> value if key is not in the map; returns whether it was put
+     */
+    public boolean putIfAbsent(int key, int value) {
+        if (key == FREE) {
+            if (hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            return true;
+        }
+        int i = find(key);
+        if (slots[i] == key) {
+            return false;
+        }
+        insert(i, key, value);
+        return true;
+    }
+
+    /**
+     * like Map.merge(): key -> value if key is not in the map, else key -> mergeFunction(old value, value);
+     * one lookup either way. Returns the new value.
+     */
+    public int merge(int key, int value, IntBinaryOperator mergeFunction) {
+        if (key == FREE) {
+            zeroValue = hasZeroKey ? mergeFunction.applyAsInt(zeroValue, value) : value;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int i = find(key);
+        if (slots[i] == key) {
+            return slots[i + 1] = mergeFunction.applyAsInt(slots[i + 1], value);
+        }
+        insert(i, key, value);
+        return value;
+    }
+
+    /**
+     * remove key; returns whether it was there
+     */
+    public boolean remove(int key) {
+        if (key == FREE) {
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            return had;
+        }
+        int i = find(key);
+        if (slots[i] != key) {
+            return false;
+        }
+        // backward shift deletion: move later entries of the probe sequence into the gap
+        int mask = slots.length - 1;
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 2) & mask;
+            int k = slots[j];
+            if (k == FREE) {
+                break;
+            }
+            int home = index(k);
+            // move k if its home is not in (gap, j], cyclically
+            if (gap <= j ? (home <= gap || home > j) : (home <= gap && home > j)) {
+                slots[gap] = k;
+                slots[gap + 1] = slots[j + 1];
+                gap = j;
+            }
+        }
+        slots[gap] = FREE;
+        slots[gap + 1] = 0;
+        size--;
+        return true;
+    }
+
+    public void forEach(IntIntConsumer action) {
+        if (hasZeroKey) {
+            action.accept(FREE, zeroValue);
+        }
+        int[] s = slots;
+        for (int i = 0; i < s.length; i += 2) {
+            if (s[i] != FREE) {
+                action.accept(s[i], s[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * forEach() on the common fork/join pool; the action must be thread safe
+     */
+    public void parallelForEach(IntIntConsumer action) {
+        ForkJoinPool.commonPool().invoke(new ForEach(spliterator(), action));
+    }
+
+    @SuppressWarnings("serial")  // never serialized
+    private static final class ForEach extends RecursiveAction {
+        private final EntrySpliterator spliterator;
+        private final IntIntConsumer action;
+
+        ForEach(EntrySpliterator spliterator, IntIntConsumer action) {
+            this.spliterator = spliterator;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            EntrySpliterator prefix = spliterator.estimateSize() > PARALLEL_THRESHOLD ? spliterator.trySplit() : null;
+            if (prefix == null) {
+                spliterator.forEachRemaining(action);
+            } else {
+                invokeAll(new ForEach(prefix, action), new ForEach(spliterator, action));
+            }
+        }
+    }
+
+    /**
+     * the entries, packed as entry(key, value); use key() and value() to unpack them
+     */
+    public LongStream entries() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public static long entry(int key, int value) {
+        return ((long) key << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    public static int key(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int value(long entry) {
+        return (int) entry;
+    }
+
+    public EntrySpliterator spliterator() {
+        return new EntrySpliterator(slots, 0, slots.length, hasZeroKey, zeroValue, size());
+    }
+
+    /**
+     * The entries of a range of the slot array; splits in halves of the range.
+     * Besides the packed entries of Spliterator.OfLong, it can give keys and values to an IntIntConsumer.
+     */
+    public static final class EntrySpliterator implements Spliterator.OfLong {
+        private final int[] slots;
+        private int index;
+        private final int end;
+        private boolean zeroKey;  // the entry of key 0 is still to come (only in the range which starts at 0)
+        private final int zeroValue;
+        private long estimate;
+
+        private EntrySpliterator(int[] slots, int index, int end, boolean zeroKey, int zeroValue, long estimate) {
+            this.slots = slots;
+            this.index = index;
+            this.end = end;
+            this.zeroKey = zeroKey;
+            this.zeroValue = zeroValue;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public EntrySpliterator trySplit() {
+            int middle = ((index + end) >>> 1) & ~1;
+            if (middle <= index || end - index < 32) {
+                return null;
+            }
+            EntrySpliterator prefix = new EntrySpliterator(slots, index, middle, zeroKey, zeroValue, estimate >>> 1);
+            index = middle;
+            zeroKey = false;
+            estimate -= prefix.estimate;
+            return prefix;
+        }
+
+        public boolean tryAdvance(IntIntConsumer action) {
+            if (zeroKey) {
+                zeroKey = false;
+                action.accept(FREE, zeroValue);
+                return true;
+            }
+            while (index < end) {
+                int i = index;
+                index += 2;
+                if (slots[i] != FREE) {
+                    action.accept(slots[i], slots[i + 1]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntIntConsumer action) {
+            if (zeroKey) {
+                zeroKey = false;
+                action.accept(FREE, zeroValue);
+            }
+            int[] s = slots;
+            int e = end;
+            for (int i = index; i < e; i += 2) {
+                if (s[i] != FREE) {
+                    action.accept(s[i], s[i + 1]);
+                }
+            }
+            index = e;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            return tryAdvance((key, value) -> action.accept(entry(key, value)));
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            forEachRemaining((key, value) -> action.accept(entry(key, value)));
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+
+    // the slot of key, or the free slot where it would go
+    private int find(int key) {
+        int[] s = slots;
+        int mask = s.length - 1;
+        int i = index(key);
+        while (s[i] != key && s[i] != FREE) {
+            i = (i + 2) & mask;
+        }
+        return i;
+    }
+
+    // a new entry in the free slot i
+    private void insert(int i, int key, int value) {
+        slots[i] = key;
+        slots[i + 1] = value;
+        if (++size > capacity - (capacity >>> 2)) {
+            grow();
+        }
+    }
+
+    // the first slot (index in slots) to try for key: Fibonacci hashing, so that consecutive keys spread out
+    private int index(int key) {
+        return ((key * 0x9E3779B9) >>> shift) << 1;
+    }
+
+    private void grow() {
+        int[] old = slots;
+        allocate(capacity * 2);
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != FREE) {
+                int j = find(old[i]);
+                slots[j] = old[i];
+                slots[j + 1] = old[i + 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.ron.javaFeatures;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A growable list of ints, without boxing: the primitive counterpart of the List<Integer> that
+ * Java8Features_forEach.forLoopProgression() traverses.
+ *
+ * All the traversals of forLoopProgression() are there:
+ * an indexed loop with get(i) and size(), forEachIndexed(), an iterator() (a PrimitiveIterator.OfInt
+ * which supports remove()), forEach(IntConsumer) and parallelForEach(IntConsumer).
+ * Like ArrayList, iterators fail fast when the list is modified other than through the iterator.
+ * Not thread safe for writes.
+ */
+public class IntList {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;  // elements per fork/join task, at least
+
+    private int[] values;
+    private int size;
+    private int modCount;
+
+    public IntList() {
+        this(10);
+    }
+
+    public IntList(int initialCapacity) {
+        values = new int[initialCapacity];
+    }
+
+    public static IntList of(int... values) {
+        IntList list = new IntList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
+    /**
+     * a copy of a list of (non-null) Integers
+     */
+    public static IntList copyOf(List<Integer> list) {
+        IntList copy = new IntList(list.size());
+        for (Integer i : list) {
+            copy.values[copy.size++] = i;
+        }
+        return copy;
+    }
+
+    public static IntList copyOf(IntList list) {
+        IntList copy = new IntList(list.size);
+        System.arraycopy(list.values, 0, copy.values, 0, list.size);
+        copy.size = list.size;
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return values[checkIndex(index)];
+    }
+
+    /**
+     * replace the value at index; returns the previous value
+     */
+    public int set(int index, int value) {
+        int old = values[checkIndex(index)];
+        values[index] = value;
+        return old;
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+        modCount++;
+    }
+
+    public void addAll(int... values) {
+        if (size + values.length > this.values.length) {
+            grow(size + values.length);
+        }
+        System.arraycopy(values, 0, this.values, size, values.length);
+        size += values.length;
+        modCount++;
+    }
+
+    /**
+     * remove the value at index (shifting the rest down); returns the value
+     */
+    public int removeAt(int index) {
+        int old = values[checkIndex(index)];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    /**
+     * Remove all values that match, in a single pass (where removing them one by one,
+     * e.g. with Iterator.remove(), moves the rest of the list each time).
+     * Returns whether any value was removed.
+     */
+    public boolean removeIf(IntPredicate filter) {
+        int[] v = values;
+        int n = size;
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            int value = v[i];
+            if (!filter.test(value)) {
+                v[kept++] = value;
+            }
+        }
+        size = kept;
+        if (kept == n) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+
+    // ----------------------------------------
+    // Traversal
+
+    public void forEach(IntConsumer action) {
+        int[] v = values;
+        int n = size;
+        int expected = modCount;
+        for (int i = 0; i < n; i++) {
+            action.accept(v[i]);
+        }
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * an indexed loop: action gets (index, value)
+     */
+    public void forEachIndexed(IntIntConsumer action) {
+        int[] v = values;
+        int n = size;
+        int expected = modCount;
+        for (int i = 0; i < n; i++) {
+            action.accept(i, v[i]);
+        }
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * forEach() on the common fork/join pool, in no particular order; the action must be thread safe
+     */
+    public void parallelForEach(IntConsumer action) {
+        int expected = modCount;
+        if (size <= PARALLEL_THRESHOLD) {
+            forEach(values, 0, size, action);
+        } else {
+            ForkJoinPool.commonPool().invoke(new ForEach(values, 0, size, action));
+        }
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private static void forEach(int[] values, int from, int to, IntConsumer action) {
+        for (int i = from; i < to; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    @SuppressWarnings("serial")  // never serialized
+    private static final class ForEach extends RecursiveAction {
+        private final int[] values;
+        private final int from, to;
+        private final IntConsumer action;
+
+        ForEach(int[] values, int from, int to, IntConsumer action) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                forEach(values, from, to, action);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEach(values, from, mid, action), new ForEach(values, mid, to, action));
+        }
+    }
+
+    /**
+     * An iterator which supports remove(). nextInt() does not box; next() does.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Iter();
+    }
+
+    private final class Iter implements PrimitiveIterator.OfInt {
+        private int cursor;        // index of the next value
+        private int last = -1;     // index of the value returned last, -1 if none (or removed)
+        private int expected = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public int nextInt() {
+            checkForComodification();
+            if (cursor >= size) {
+                throw new NoSuchElementException();
+            }
+            last = cursor++;
+            return values[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            removeAt(last);
+            cursor = last;
+            last = -1;
+            expected = modCount;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int[] v = values;
+            int n = size;
+            int i = cursor;
+            for (; i < n && modCount == expected; i++) {
+                action.accept(v[i]);
+            }
+            cursor = i;
+            last = i - 1;
+            checkForComodification();
+        }
+
+        private void checkForComodification() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+
+    // ----------------------------------------
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntList)) {
+            return false;
+        }
+        IntList other = (IntList) o;
+        return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;  // as List.hashCode()
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + values[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index;
+    }
+
+    private void grow(int minCapacity) {
+        values = Arrays.copyOf(values, Math.max(minCapacity, Math.max(8, values.length + (values.length >> 1))));
+    }
+}
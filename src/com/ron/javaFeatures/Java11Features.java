@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -71,6 +72,25 @@ public class Java11Features {
         Map<Integer, String> nonemptyImmutableMap = Map.ofEntries(
                 entry(1, "one"), entry(2, "two"), entry(3, "theee"));
 
+
+        // large immutable tables of primitive keys: off the heap, without boxing (see OffHeapIntMap, OffHeapIntList)
+        Map<Integer, String> offHeapMap = OffHeapIntMap.stringBuilder()
+                .put(1, "one").put(2, "two").put(3, "three").build();
+        OffHeapIntMap<Integer> offHeapCubeMap = OffHeapIntMap.intBuilder()
+                .put(1, 1).put(2, 8).put(3, 27).put(4, 64).build();
+        List<Integer> offHeapList = OffHeapIntList.of(1, 3, 5, 3, 1);
+        Utils.print("off-heap map =", offHeapMap, "cube of 3 =", offHeapCubeMap.getInt(3, -1), "list =", offHeapList);
+
+
+        // modified versions without copying everything: persistent collections share their structure
+        // (see PersistentList, PersistentMap)
+        PersistentList<Integer> persistentList = PersistentList.copyOf(j11IntList);
+        PersistentList<Integer> persistentList2 = persistentList.with(0, 7).plus(9);  // persistentList is unchanged
+        PersistentMap<Integer, String> persistentMap = PersistentMap.copyOf(nonemptyImmutableMap);
+        PersistentMap<Integer, String> persistentMap2 = persistentMap.with(4, "four").without(1);
+        Utils.print("persistent list =", persistentList, "->", persistentList2);
+        Utils.print("persistent map =", persistentMap, "->", persistentMap2);
+
     }
 
     public void tryWithResources(BufferedReader reader) {
@@ -103,6 +123,15 @@ public class Java11Features {
         }
 
         currentProcess.children().forEach(t -> Utils.print("child process =", t.pid()));
+
+        // continuous sampling of the CPU time of a process tree (here: this JVM and its children)
+        try (ProcessSampler sampler = new ProcessSampler(currentProcess, Duration.ofMillis(100))) {
+            sampler.sample();
+            IntStream.range(0, 20_000_000).asLongStream().map(i -> i * i).sum();  // use some CPU
+            ProcessSampler.Snapshot snapshot = sampler.sample();
+            Utils.print("sample:", snapshot);
+            Utils.print("CPU time of this process (ms) =", snapshot.cpuDeltaNanos(currentProcess.pid()) / 1_000_000);
+        }
     }
 
     public void streamAPI() {
@@ -162,6 +191,18 @@ public class Java11Features {
         String s = Files.readString(path); // read whole file into a string
         System.out.println(s);
 
+        // for large files: write and read incrementally, in constant memory (see TextFiles)
+        path = TextFiles.write(path, Stream.of("line 1", "line 2", "line 3"), true);
+        try (Stream<String> lines = TextFiles.lines(path)) {   // the same lines as Files.readString(path).lines()
+            lines.forEach(System.out::println);
+        }
+
+        // large files: lines processed in parallel, in chunks (memory bounded by the chunk size, not the file size)
+        try (Stream<CharSequence> lines = ChunkedLines.lines(Java7Features.IN_FILE)) {
+            long greetings = lines.filter(line -> line.length() > 0 && line.charAt(0) == 'h').count();
+            Utils.print("greetings starting with 'h'", greetings);
+        }
+
 
         Utils.newMethod("Modules");
         // Java module system; modular JAR files; "requires", "exports";
@@ -19,28 +19,54 @@ public class Java11Features_Interfaces {
      */
     public interface Java11Interface {
 
+        /**
+         * The records to sort. Implementations return their own table;
+         * the sorted results are cached by the table until its data changes.
+         */
+        default PersonTable records() {
+            return PersonTable.empty();
+        }
+
         default List<String> doPreferredSort() {
             return sortByName();
         }
 
         default List<String> sortByName() {
-            return sort(1, true);
+            return sort(PersonTable.NAME, true);
         }
 
         default List<String> sortByAddress() {
-            return sort(2, true);
+            return sort(PersonTable.ADDRESS, true);
         }
 
         default List<String> sortByAge(boolean direction) {
-            return sort(3, direction);
+            return sort(PersonTable.AGE, direction);
+        }
+
+        // paged versions: only the records offset .. offset + limit - 1 of the sorted list,
+        // without sorting all records
+
+        default List<String> sortByName(int limit, int offset) {
+            return sort(PersonTable.NAME, true, limit, offset);
+        }
+
+        default List<String> sortByAddress(int limit, int offset) {
+            return sort(PersonTable.ADDRESS, true, limit, offset);
+        }
+
+        default List<String> sortByAge(boolean direction, int limit, int offset) {
+            return sort(PersonTable.AGE, direction, limit, offset);
         }
 
         // a private instance method
         private List<String> sort(int index, boolean direction) {
             Utils.print("sort: index =", index, ", direction =", direction);
-            List<String> results = null;
-            // do some sorting and processing ...
-            return results;
+            return records().sort(index, direction);
+        }
+
+        private List<String> sort(int index, boolean direction, int limit, int offset) {
+            Utils.print("sort: index =", index, ", direction =", direction, ", limit =", limit, ", offset =", offset);
+            return records().sort(index, direction, limit, offset);
         }
 
         default void defaultHello() {
@@ -62,10 +88,22 @@ public class Java11Features_Interfaces {
     public void useJ11Interface() {
         Utils.newMethod("useJ11Interface");
 
+        PersonTable people = new PersonTable();
+        people.add("Liz", "Windsor Castle", 96);
+        people.add("Florence", "London", 36);
+        people.add("Francis", "Vatican City", 86);
+        people.add("Donald", "Mar-a-Lago", 76);
+        people.add("Justin", "Stratford", 28);
+
         // create an instance of Java11Interface
-        // and override one method
+        // and override two methods
         Java11Interface j11i = new Java11Interface() {
 
+            @Override
+            public PersonTable records() {
+                return people;
+            }
+
             @Override
             public List<String> doPreferredSort() {
                 // return sort(3, false);  // inaccessible private member
@@ -76,9 +114,11 @@ public class Java11Features_Interfaces {
         Java11Interface.staticHello();  // call static methods directly, not with an instance
         j11i.defaultHello();
 
-        j11i.doPreferredSort();
-        j11i.sortByName();
-        j11i.sortByAddress();
-        j11i.sortByAge(false);
+        Utils.print(j11i.doPreferredSort());
+        Utils.print(j11i.sortByName());
+        Utils.print(j11i.sortByAddress());
+        Utils.print(j11i.sortByAge(false));
+        Utils.print(j11i.sortByAge(true, 2, 0));  // the 2 youngest
+        Utils.print(j11i.sortByName(2, 2));       // the 2nd page of 2 names
     }
 }
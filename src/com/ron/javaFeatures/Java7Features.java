@@ -1,6 +1,10 @@
 package com.ron.javaFeatures;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,17 +37,32 @@ public class Java7Features {
     private Map<String, List<Double>> java7Map = new HashMap<>();
 
 
-    public static final String ROOT = ".\\src\\com\\ron\\examples\\ron\\";
-    public static final String IN_FILE = ROOT + "hello.txt";
-    public static final String OUT_FILE = ROOT + "out.txt";
+    // the files used by the I/O examples; override with -Djava7.root=..., -Djava7.in=... or -Djava7.out=...
+    // (the output goes to the temp directory by default, not into the source tree)
+    public static final Path ROOT = Paths.get(System.getProperty("java7.root", "src/com/ron/javaFeatures"));
+    public static final Path IN_FILE = ROOT.resolve(System.getProperty("java7.in", "hello.txt"));
+    public static final Path OUT_FILE = Paths.get(System.getProperty("java7.out",
+            Paths.get(System.getProperty("java.io.tmpdir"), "out.txt").toString()));
+
+    // IN_FILE, opened and memory-mapped once, then shared by all readers
+    private MappedTextFile inFile;
+
+    private MappedTextFile inFile() throws IOException {
+        if (inFile == null) {
+            inFile = MappedTextFile.open(IN_FILE);
+        }
+        return inFile;
+    }
 
     public static void main(String[] args) {
         logger.info("Features Introduced in Java 7");
         Java7Features j7 = new Java7Features();
         j7.tryWithResources();
         j7.tryWithResources_betterErrorReporting();
+        j7.copyAndTransform();
         j7.stringsInSwitch("abc");
         j7.stringsInSwitch_2("abc");
+        j7.stringsInSwitch_dispatchTable("abc");
         try {
             j7.multipleExceptionHandling();
         } catch (IOException | InterruptedException e) {
@@ -61,7 +80,7 @@ public class Java7Features {
         try {
             // must declared 'reader' outside the try block
             // otherwise it won't be in scope in the finally block
-            BufferedReader reader = new BufferedReader(new FileReader(IN_FILE));
+            BufferedReader reader = new BufferedReader(new FileReader(IN_FILE.toFile()));
             try {
                 String firstLine = reader.readLine();
                 logger.info(firstLine);
@@ -69,31 +88,34 @@ public class Java7Features {
                 reader.close();    // remember to close the reader
             }
         } catch (IOException e) {
-            logger.severe("resource problem: " + e.getMessage());
+            logger.severe(() -> "resource problem: " + e.getMessage());
         }
 
 
         // Java 7
         // single try block; AutoCloseable reader will be automatically closed
-        try (BufferedReader reader = new BufferedReader(new FileReader(IN_FILE))) {
-            String firstLine = reader.readLine();
-            logger.info(firstLine);
+        // (the reader is a cursor over IN_FILE, which is opened and memory-mapped only once - see inFile())
+        try (MappedTextFile.LineReader reader = inFile().reader()) {
+            CharSequence firstLine = reader.readLine();
+            logger.info(String.valueOf(firstLine));
         } catch (IOException e) {
-            logger.severe("resource problem: " + e.getMessage());
+            logger.severe(() -> "resource problem: " + e.getMessage());
         }
 
 
         // Java 7
         try (
                 // one or more AutoCloseable resources
-                Reader reader = new BufferedReader(new FileReader(IN_FILE));
-                Writer writer = new BufferedWriter(new FileWriter(OUT_FILE));
-                InputStream in = new FileInputStream(IN_FILE);
-                OutputStream out = new FileOutputStream(OUT_FILE);
+                Reader reader = new BufferedReader(new FileReader(IN_FILE.toFile()));
+                FileInputStream in = new FileInputStream(IN_FILE.toFile());
+                FileOutputStream out = new FileOutputStream(OUT_FILE.toFile());
         ) {
-            // use the reader, writer, streams, etc
+            // use the reader, streams, etc
+            // here: copy IN_FILE to OUT_FILE without copying the bytes through the Java heap
+            long copied = FileCopier.copy(in.getChannel(), out.getChannel());
+            logger.info(() -> "copied " + copied + " bytes to " + OUT_FILE);
         } catch (IOException e) {
-            logger.severe("resource problem: " + e.getMessage());
+            logger.severe(() -> "resource problem: " + e.getMessage());
         }
     }
 
@@ -106,41 +128,66 @@ public class Java7Features {
         try {
             // must declared 'reader' outside the try block
             // otherwise it won't be in scope in the finally block
-            BufferedReader reader = new BufferedReader(new FileReader(IN_FILE));
+            BufferedReader reader = new BufferedReader(new FileReader(IN_FILE.toFile()));
             try {
                 String firstLine = reader.readLine();
                 logger.info(firstLine);
             } catch (IOException e) {
-                logger.severe("Failed to read file: " + IN_FILE);
+                logger.severe(() -> "Failed to read file: " + IN_FILE);
                 // e.printStackTrace();
             } finally {
                 reader.close();    // manually close the reader
             }
         } catch (FileNotFoundException e) {
-            logger.severe("Could not find file: " + IN_FILE);
+            logger.severe(() -> "Could not find file: " + IN_FILE);
             // e.printStackTrace();
         } catch (IOException e) {
-            logger.severe("Failed to close file: " + IN_FILE);
+            logger.severe(() -> "Failed to close file: " + IN_FILE);
             // e.printStackTrace();
         }
 
 
         // Java 7
         // single try block; reader will be automatically closed
-        try (BufferedReader reader = new BufferedReader(new FileReader(IN_FILE))) {
-            String firstLine = reader.readLine();
-            logger.info(firstLine);
-        } catch (FileNotFoundException e) {
-            logger.severe("Could not find file: " + IN_FILE);
+        try (MappedTextFile.LineReader reader = inFile().reader()) {
+            CharSequence firstLine = reader.readLine();
+            logger.info(String.valueOf(firstLine));
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            logger.severe(() -> "Could not find file: " + IN_FILE);
             // e.printStackTrace();
         } catch (IOException e) {
             // stack trace is needed to tell us whether read or close failed
-            logger.severe("Failed to read or close file: " + IN_FILE);
+            logger.severe(() -> "Failed to read or close file: " + IN_FILE);
             // e.printStackTrace();
         }
     }
 
 
+    public void copyAndTransform() {
+        Utils.newMethod_Log("copyAndTransform");
+
+        // NIO.2 (Java 7): Path instead of String file names, FileChannel instead of streams
+
+        // raw copy: FileChannel.transferTo()
+        try {
+            long copied = FileCopier.copy(IN_FILE, OUT_FILE);
+            logger.info(() -> "copied " + copied + " bytes to " + OUT_FILE);
+        } catch (IOException e) {
+            logger.severe(() -> "copy failed: " + e.getMessage());
+        }
+
+        // copy with a transform, through a pooled direct buffer
+        try {
+            FileCopier.transform(IN_FILE, OUT_FILE, FileCopier.ASCII_UPPER_CASE);
+            try (BufferedReader reader = Files.newBufferedReader(OUT_FILE)) {
+                logger.info(reader.readLine());
+            }
+        } catch (IOException e) {
+            logger.severe(() -> "transform failed: " + e.getMessage());
+        }
+    }
+
+
     private void stringsInSwitch(String s) {
         Utils.newMethod_Log("stringsInSwitch");
 
@@ -181,6 +228,7 @@ public class Java7Features {
             default:
                 doSomething(0);
         }
+        batch.flush();
     }
 
     private void stringsInSwitch_2(String s) {
@@ -224,6 +272,26 @@ public class Java7Features {
             default:
                 doSomething(0);
         }
+        batch.flush();
+    }
+
+
+    // the cases of stringsInSwitch_2, compiled once into a table (see StringDispatch)
+    private final StringDispatch<Runnable> dispatchTable = StringDispatch.<Runnable>builder()
+            .on(() -> doSomething(1, 2, 3), "abc")
+            .on(() -> doSomething(4, 5, 6), "def")
+            .on(() -> doSomething(10, 20, 30, 40, 50), "foo", "bar", "janfu")
+            .on(() -> doSomething(7, 8, 9), "ijk")
+            .otherwise(() -> doSomething(0))
+            .build();
+
+    private void stringsInSwitch_dispatchTable(String s) {
+        Utils.newMethod_Log("stringsInSwitch_dispatchTable");
+
+        // With many cases, which are looked up very often, a switch on String has to hash every new String.
+        // A dispatch table looks at the length and a few characters instead, then compares with equals().
+        dispatchTable.get(s).run();
+        batch.flush();
     }
 
 
@@ -254,8 +322,8 @@ public class Java7Features {
         }
 
         // Java 7
-        try (BufferedReader reader = new BufferedReader(new FileReader(IN_FILE))) {
-            logger.info(reader.readLine());
+        try (MappedTextFile.LineReader reader = inFile().reader()) {
+            logger.info(String.valueOf(reader.readLine()));
             exceptionalMethod();
         } catch (NullPointerException | IOException | InterruptedException e) {
             // logging, stack trace, etc
@@ -272,9 +340,30 @@ public class Java7Features {
 
     @SafeVarargs
     private void doSomething(int... numbers) {
-        for (int i : numbers) {
-            // do something
-        }
+        batch.add(numbers);
+    }
+
+    // the calls above with up to 5 arguments choose these overloads instead (no int[] for each call)
+    // and their arguments are batched, then processed together in processNumbers()
+
+    private final IntBatch batch = new IntBatch(1024, this::processNumbers);
+    private long total;
+
+    private void doSomething(int a) {
+        batch.add(a);
+    }
+
+    private void doSomething(int a, int b, int c) {
+        batch.add(a, b, c);
+    }
+
+    private void doSomething(int a, int b, int c, int d, int e) {
+        batch.add(a, b, c, d, e);
+    }
+
+    private void processNumbers(int[] numbers, int from, int to) {
+        // do something
+        total += IntBatch.sum(numbers, from, to);
     }
 
     private void exceptionalMethod() throws
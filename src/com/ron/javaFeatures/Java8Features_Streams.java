@@ -1,7 +1,9 @@
 package com.ron.javaFeatures;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -79,6 +81,14 @@ public class Java8Features_Streams {
         int parallelStreamSum = myList.parallelStream().filter(p -> p > 0).mapToInt(i -> i).sum();
         Utils.print("parallelStreamSum =", parallelStreamSum);
 
+        // On a hot path, both streams cost: each element is unboxed, and passes through a chain of stages.
+        // With the values in an int array, IntPipeline fuses the filter and the sum into one loop:
+        int[] values = myList.stream().mapToInt(i -> i).toArray();
+        int pipelineSum = IntPipeline.of(values).filter(p -> p > 0).sum();
+        Utils.print("pipelineSum =", pipelineSum);
+        int parallelPipelineSum = IntPipeline.of(values).parallel().filter(p -> p > 0).sum();
+        Utils.print("parallelPipelineSum =", parallelPipelineSum);
+
 
         // Iteration with the Stream API is said to be internal rather than external.
         // i.e. the framework controls the iteration and provides several features:
@@ -144,6 +154,10 @@ public class Java8Features_Streams {
         Stream<String> strStream2 = Stream.generate(() -> {
             return "abc";
         });
+
+        // these streams are infinite: print only the first few elements
+        Utils.printStream("Stream.iterate", strStream1, 4, 6);
+        Utils.printStream("Stream.generate", strStream2.parallel(), 4, 6);
     }
 
     private void convertingStreams() {
@@ -162,6 +176,15 @@ public class Java8Features_Streams {
         Map<Integer, Integer> intMap = intStream.collect(Collectors.toMap(k -> k, v -> v * v));
         Utils.print("intStream: map =", intMap.toString());
 
+        // For large (parallel) streams: the Collectors merge a container per thread, rehashing every element
+        // of a map or set again. SizedCollectors gathers the elements into one array (sized up front for
+        // a SIZED stream), and then builds the container once, with the right size.
+        Stream<Integer> rangeStream = IntStream.rangeClosed(1, 6).boxed().parallel();
+        Utils.print("SizedCollectors: map =", SizedCollectors.toMap(rangeStream, k -> k, v -> v * v).toString());
+        rangeStream = IntStream.rangeClosed(1, 6).boxed().parallel();
+        IntIntMap squares = SizedCollectors.toIntIntMap(rangeStream, k -> k, v -> v * v, (a, b) -> a);
+        Utils.print("SizedCollectors: IntIntMap, 5 * 5 =", squares.get(5, 0));
+
         // Convert Stream to an Array
         intStream = Stream.of(1, 2, 3, 4);
         Integer[] intArray = intStream.toArray(Integer[]::new);
@@ -194,6 +217,18 @@ public class Java8Features_Streams {
         Stream<Integer> reverseSortedInts = stream3.sorted(Comparator.reverseOrder());
         Utils.printStream("reverse sorted", reverseSortedInts, false);
 
+        // Both sorts above hold the whole stream on the heap. ExternalSort sorts runs of the stream
+        // (here of at most 8 elements), writes them to temp files, and merges them as they are read;
+        // close the sorted stream, which deletes the files.
+        ExternalSort<Integer> externalSort = ExternalSort.builder(ExternalSort.Codec.INTS, Comparator.<Integer>reverseOrder())
+                .runSize(8)
+                .build();
+        try (Stream<Integer> externallySorted = externalSort.sorted(list.stream())) {
+            Utils.printStream("external reverse sorted", externallySorted, false);
+        } catch (IOException e) {
+            Utils.printerr("external sort failed:", e.getMessage());
+        }
+
         // flatMap() - 'flatten' a stream of collections to a simple, flat stream of objects
         Stream<List<String>> wordListsStream = Stream.of(
                 Arrays.asList("The", "quick", "brown", "fox"),
@@ -226,6 +261,15 @@ public class Java8Features_Streams {
         Optional<Integer> optionalProduct = intList.stream().reduce((i, j) -> i * j);
         optionalProduct.ifPresent(result -> Utils.print("reduce: product =", result));
 
+        // Both reductions above box every intermediate result, and silently wrap around on overflow
+        // (the product of 13 values of 10 already does). Reductions accumulates in a long,
+        // and only moves to a BigInteger when the long would overflow; the results are exact,
+        // so a parallel stream gives the same result as a sequential one.
+        Utils.print("Reductions: sum =", intList.stream().collect(Reductions.summing(i -> i)));
+        Utils.print("Reductions: product =", intList.parallelStream().collect(Reductions.multiplying(i -> i)));
+        // a double sum which does not depend on the order (DoubleStream.sum() would give 0.0 here)
+        Utils.print("Reductions: 1e100 + 1 - 1e100 =", Reductions.sum(DoubleStream.of(1e100, 1, -1e100)).doubleValue());
+
         // forEach() - please also see separate document
         //
         // forEach() - print out odd numbers
@@ -247,5 +291,17 @@ public class Java8Features_Streams {
         // findAny
         Optional<Integer> optionalFirstAny = intList.stream().filter(i -> i % 2 == 1).findAny();
         optionalFirstAny.ifPresent(integer -> Utils.print("findAny: an odd number =", integer));
+
+        // Each of the five queries above is a pass over the list. MatchScan answers them all in one pass,
+        // and stops as soon as every query is decided (findFirst still gives the first match, also in parallel).
+        MatchScan<Integer> scan = MatchScan.of(intList);
+        MatchScan.Match contains10 = scan.anyMatch(i -> i == 10);
+        MatchScan.Match notContains10 = scan.noneMatch(i -> i == 10);
+        MatchScan.Match allPositive = scan.allMatch(i -> i > 0);
+        MatchScan.Find<Integer> firstOdd = scan.findFirst(i -> i % 2 == 1);
+        MatchScan.Find<Integer> anyOdd = scan.findAny(i -> i % 2 == 1);
+        scan.parallel().run();
+        Utils.print("MatchScan: contains 10?", contains10, ", not contains 10?", notContains10,
+                ", all positive?", allPositive, ", first odd =", firstOdd, ", an odd =", anyOdd);
     }
 }
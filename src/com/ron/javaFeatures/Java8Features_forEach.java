@@ -3,8 +3,10 @@ package com.ron.javaFeatures;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class Java8Features_forEach {
 
@@ -75,6 +77,31 @@ public class Java8Features_forEach {
 
         // traversing using forEach with a Java 8 lambda expression
         myList.forEach(t -> Utils.print("forEach with lambda: value =", t));
+
+        // All of the above box (or unbox) every value: List<Integer> holds Integer objects,
+        // and Consumer<Integer> takes one. An IntList of primitive ints can be traversed in the same ways,
+        // with IntConsumer (java.util.function has primitive versions of most functional interfaces).
+        IntList intList = IntList.copyOf(myList);
+
+        for (int i = 0; i < intList.size(); i++) {
+            Utils.print("IntList for loop: value =", intList.get(i));
+        }
+
+        intList.forEachIndexed((i, value) -> Utils.print("IntList.forEachIndexed: index =", i, ", value =", value));
+
+        for (PrimitiveIterator.OfInt it = intList.iterator(); it.hasNext(); ) {
+            int value = it.nextInt();  // next() would box
+            Utils.print("IntList iterator: value =", value);
+            if (value % 2 != 0) {
+                it.remove();
+            }
+        }
+
+        intList.forEach(new MyIntConsumer());
+        intList.forEach(value -> Utils.print("IntList.forEach with lambda: value =", value));
+
+        // the action runs on several threads, in no particular order
+        intList.parallelForEach(value -> Utils.print("IntList.parallelForEach: value =", value));
     }
 
     // A named inner class.
@@ -87,6 +114,15 @@ public class Java8Features_forEach {
         }
     }
 
+    // The primitive version of MyConsumer: no boxing.
+    private class MyIntConsumer implements IntConsumer {
+
+        @Override
+        public void accept(int t) {
+            Utils.print("IntList.forEach with named class: value =", t);
+        }
+    }
+
     // This is an implementation of BiConsumer that can be reused.
     private class MapConsumer implements BiConsumer<Integer, Integer> {
 
@@ -96,6 +132,15 @@ public class Java8Features_forEach {
         }
     }
 
+    // The primitive version of MapConsumer, for IntIntMap.forEach().
+    private class IntMapConsumer implements IntIntConsumer {
+
+        @Override
+        public void accept(int k, int v) {
+            Utils.print("IntIntMap.forEach with named class: key =", k, ", value =", v);
+        }
+    }
+
     public void mapIteration() {
         Utils.newMethod("mapIteration");
 
@@ -119,5 +164,10 @@ public class Java8Features_forEach {
 
         // iterate over the map with forEach() and a lambda expression
         map.forEach((k, v) -> Utils.print("forEach with lambda: key =", k, ", value =", v));
+
+        // a map of primitive ints, with a primitive consumer: no boxing (see IntIntMap)
+        IntIntMap intMap = Utils.getRandomIntIntMap(100, 7);
+        intMap.forEach(new IntMapConsumer());
+        intMap.forEach((k, v) -> Utils.print("IntIntMap.forEach: key =", k, ", value =", v));
     }
 }
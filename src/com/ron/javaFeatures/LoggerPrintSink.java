@@ -0,0 +1,43 @@
+package com.ron.javaFeatures;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A PrintSink which sends the lines to a java.util.logging Logger:
+ * normal output at Level.INFO, error output at Level.WARNING.
+ *
+ * isEnabled() asks the logger, so when a level is switched off
+ * Utils.print() does not even build the text.
+ */
+public class LoggerPrintSink implements PrintSink {
+
+    private final Logger logger;
+
+    public LoggerPrintSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    private static Level level(boolean isOk) {
+        return isOk ? Level.INFO : Level.WARNING;
+    }
+
+    @Override
+    public boolean isEnabled(boolean isOk) {
+        return logger.isLoggable(level(isOk));
+    }
+
+    @Override
+    public void println(boolean isOk, String s) {
+        logger.log(level(isOk), s);
+    }
+
+    @Override
+    public void flush() {
+        for (Logger l = logger; l != null; l = l.getUseParentHandlers() ? l.getParent() : null) {
+            for (java.util.logging.Handler handler : l.getHandlers()) {
+                handler.flush();
+            }
+        }
+    }
+}
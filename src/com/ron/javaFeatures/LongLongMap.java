@@ -0,0 +1,149 @@
+package com.ron.javaFeatures;
+
+/**
+ * A map from long to long, without boxing: open addressing with linear probing in two parallel arrays.
+ * Not thread safe; there is no remove (build a new map instead).
+ */
+public class LongLongMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private static final long FREE = 0;  // key 0 is kept outside the arrays
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;  // in the arrays
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;  // load factor <= 0.5
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? hasZeroKey : keys[find(key)] == key;
+    }
+
+    public long get(long key, long defaultValue) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int i = find(key);
+        return keys[i] == key ? values[i] : defaultValue;
+    }
+
+    public void put(long key, long value) {
+        if (key == FREE) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = find(key);
+        if (keys[i] != key) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                grow();
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(FREE, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public long[] keys() {
+        long[] result = new long[size()];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n++] = FREE;
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    // the slot of key, or the free slot where it would go
+    private int find(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != key && keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                int i = find(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> sb.append(sb.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LongLongMap)) {
+            return false;
+        }
+        LongLongMap other = (LongLongMap) o;
+        if (other.size() != size()) {
+            return false;
+        }
+        boolean[] equal = {true};
+        forEach((key, value) -> equal[0] &= other.containsKey(key) && other.get(key, 0) == value);
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        int[] h = {0};
+        forEach((key, value) -> h[0] += Long.hashCode(key) ^ Long.hashCode(value));
+        return h[0];
+    }
+}
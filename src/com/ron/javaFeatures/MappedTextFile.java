@@ -0,0 +1,232 @@
+package com.ron.javaFeatures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A UTF-8 text file mapped into memory once, and read line by line any number of times.
+ *
+ * The file is opened and mapped by open(); the channel is closed straight away (the mapping stays valid).
+ * Files larger than 2GB are mapped in several segments, which end on a line break,
+ * so no line crosses a segment (a single line must be shorter than SEGMENT_SIZE).
+ *
+ * Each reader() is an independent cursor over the shared mapping, so several try-with-resources blocks
+ * can read the same file without opening it again. Lines are returned as CharSequence views of the
+ * mapped bytes: nothing is copied or decoded until characters are actually read, and lines that are
+ * pure ASCII are never decoded at all. A line is only valid as long as the MappedTextFile is reachable.
+ */
+public class MappedTextFile {
+
+    static final int SEGMENT_SIZE = 1 << 30;
+
+    private final Path path;
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    private MappedTextFile(Path path, ByteBuffer[] segments, long size) {
+        this.path = path;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static MappedTextFile open(Path path) throws IOException {
+        return open(path, SEGMENT_SIZE);
+    }
+
+    // a smaller segmentSize (in tests) puts segment boundaries into small files
+    static MappedTextFile open(Path path, int segmentSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteBuffer> segments = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(segmentSize, size - start);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                int end = (int) length;
+                if (start + length < size) {
+                    // end this segment after its last line break
+                    while (end > 0 && mapped.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("line longer than " + segmentSize + " bytes in " + path);
+                    }
+                }
+                segments.add(mapped.slice(0, end));
+                start += end;
+            }
+            return new MappedTextFile(path, segments.toArray(new ByteBuffer[0]), size);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * a new cursor at the start of the file
+     */
+    public LineReader reader() {
+        return new LineReader();
+    }
+
+    /**
+     * all lines, in order (a sequential stream)
+     */
+    public Stream<CharSequence> lines() {
+        LineReader reader = reader();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<CharSequence>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super CharSequence> action) {
+                CharSequence line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+                action.accept(line);
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * A cursor over the lines of the file; like BufferedReader.readLine(), without the line terminators.
+     * Closing it only ends this cursor, the file stays mapped for other readers.
+     */
+    public class LineReader implements Closeable {
+        private int segment;
+        private int position;
+
+        private LineReader() {
+        }
+
+        /**
+         * the next line, or null at the end of the file
+         */
+        public CharSequence readLine() {
+            while (segment < segments.length && position >= segments[segment].limit()) {
+                segment++;
+                position = 0;
+            }
+            if (segment >= segments.length) {
+                return null;
+            }
+            ByteBuffer bytes = segments[segment];
+            int start = position;
+            int end = start;
+            int limit = bytes.limit();
+            while (end < limit && bytes.get(end) != '\n') {
+                end++;
+            }
+            position = end + 1;  // skip the '\n'
+            if (end > start && bytes.get(end - 1) == '\r') {
+                end--;
+            }
+            return new Utf8Line(bytes, start, end - start);
+        }
+
+        @Override
+        public void close() {
+            segment = segments.length;
+        }
+    }
+
+    /**
+     * A line of UTF-8 text in a (shared, read-only) buffer, decoded only when needed.
+     */
+    static final class Utf8Line implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int byteLength;
+        private int ascii = -1;  // -1: not checked yet, 1: only ASCII, 0: needs decoding
+        private char[] chars;    // the decoded characters, if not ASCII
+
+        Utf8Line(ByteBuffer bytes, int offset, int byteLength) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.byteLength = byteLength;
+        }
+
+        private boolean isAscii() {
+            if (ascii < 0) {
+                ascii = 1;
+                for (int i = 0; i < byteLength; i++) {
+                    if (bytes.get(offset + i) < 0) {
+                        ascii = 0;
+                        break;
+                    }
+                }
+            }
+            return ascii == 1;
+        }
+
+        private char[] decoded() {
+            if (chars == null) {
+                CharBuffer decoded = StandardCharsets.UTF_8.decode(bytes.slice(offset, byteLength));
+                chars = new char[decoded.remaining()];
+                decoded.get(chars);
+            }
+            return chars;
+        }
+
+        @Override
+        public int length() {
+            return isAscii() ? byteLength : decoded().length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (isAscii()) {
+                if (index < 0 || index >= byteLength) {
+                    throw new IndexOutOfBoundsException("index " + index + ", length " + byteLength);
+                }
+                return (char) bytes.get(offset + index);
+            }
+            return decoded()[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (isAscii()) {
+                if (start < 0 || end > byteLength || start > end) {
+                    throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + byteLength);
+                }
+                Utf8Line sub = new Utf8Line(bytes, offset + start, end - start);
+                sub.ascii = 1;
+                return sub;
+            }
+            return CharBuffer.wrap(decoded(), start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            if (isAscii()) {
+                byte[] b = new byte[byteLength];
+                bytes.get(offset, b);
+                return new String(b, StandardCharsets.ISO_8859_1);
+            }
+            return new String(decoded());
+        }
+    }
+}
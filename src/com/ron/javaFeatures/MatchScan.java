@@ -0,0 +1,294 @@
+package com.ron.javaFeatures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Several anyMatch / noneMatch / allMatch / findFirst / findAny queries answered in a single pass
+ * over a list, where Java8Features_Streams.terminalOperations() runs one stream (one pass) for each:
+ *
+ *   MatchScan<Integer> scan = MatchScan.of(list);
+ *   MatchScan.Match contains10 = scan.anyMatch(i -> i == 10);
+ *   MatchScan.Find<Integer> firstOdd = scan.findFirst(i -> i % 2 == 1);
+ *   scan.parallel().run();
+ *   contains10.get(); firstOdd.get();
+ *
+ * Each query keeps the index of its match. A query needs no more elements once it is decided,
+ * except findFirst, which still needs the elements before its match (so it keeps encounter order,
+ * also in parallel). The list is scanned in blocks; before each block the undecided queries are
+ * looked up again, and the scan (or a fork/join task of a parallel scan) stops as soon as no query
+ * needs its elements. Parallel tasks scan their left half first, so findFirst matches come early.
+ *
+ * Like the stream operations, the predicates must not have side effects, and the results are those of
+ * the streams: findAny() may give any match (in a parallel scan, the first one found).
+ * The list should be RandomAccess (other lists are scanned sequentially).
+ */
+public final class MatchScan<T> {
+
+    private static final int BLOCK = 1024;                  // elements between looking at the other tasks
+    private static final int PARALLEL_THRESHOLD = 1 << 16;  // elements per fork/join task, at least
+    private static final int NONE = Integer.MAX_VALUE;      // no match found (yet)
+
+    private final List<? extends T> list;
+    private final List<Query> queries = new ArrayList<>();
+    private boolean parallel;
+
+    private MatchScan(List<? extends T> list) {
+        this.list = list;
+    }
+
+    public static <T> MatchScan<T> of(List<? extends T> list) {
+        return new MatchScan<>(list);
+    }
+
+    public MatchScan<T> parallel() {
+        parallel = true;
+        return this;
+    }
+
+    public Match anyMatch(Predicate<? super T> predicate) {
+        return add(new Match(predicate, true, true));
+    }
+
+    public Match noneMatch(Predicate<? super T> predicate) {
+        return add(new Match(predicate, true, false));
+    }
+
+    public Match allMatch(Predicate<? super T> predicate) {
+        // decided by the first element which does not match
+        return add(new Match(predicate, false, false));
+    }
+
+    public Find<T> findFirst(Predicate<? super T> predicate) {
+        return add(new Find<>(predicate, true));
+    }
+
+    public Find<T> findAny(Predicate<? super T> predicate) {
+        return add(new Find<>(predicate, false));
+    }
+
+    private <Q extends Query> Q add(Q query) {
+        if (query.predicate == null) {
+            throw new NullPointerException("predicate");
+        }
+        queries.add(query);
+        return query;
+    }
+
+    /**
+     * answer all queries (again, if run before)
+     */
+    public void run() {
+        Query[] q = queries.toArray(new Query[0]);
+        for (Query query : q) {
+            query.found.set(NONE);
+        }
+        int size = list.size();
+        if (parallel && size > PARALLEL_THRESHOLD && list instanceof RandomAccess) {
+            ForkJoinPool.commonPool().invoke(new Scan(q, 0, size));
+        } else if (list instanceof RandomAccess) {
+            scan(q, 0, size);
+        } else {
+            scanSequential(q);
+        }
+        for (Query query : q) {
+            query.done(list);
+        }
+    }
+
+
+    // ----------------------------------------
+
+    /**
+     * a query, with the index of its match
+     */
+    abstract static class Query {
+        final Predicate<Object> predicate;
+        final boolean stopOn;  // the result of the predicate which decides the query
+        final boolean first;   // findFirst: the match with the lowest index
+        final AtomicInteger found = new AtomicInteger(NONE);
+
+        @SuppressWarnings("unchecked")
+        Query(Predicate<?> predicate, boolean stopOn, boolean first) {
+            this.predicate = (Predicate<Object>) predicate;
+            this.stopOn = stopOn;
+            this.first = first;
+        }
+
+        // elements from this index on are not needed
+        final int limit() {
+            int f = found.get();
+            return first || f == NONE ? f : Integer.MIN_VALUE;
+        }
+
+        final void found(int index) {
+            if (first) {
+                int f;
+                while (index < (f = found.get()) && !found.compareAndSet(f, index)) {
+                    // lost a race with another task: try again
+                }
+            } else {
+                found.compareAndSet(NONE, index);
+            }
+        }
+
+        abstract void done(List<?> list);
+    }
+
+    /**
+     * the answer to anyMatch, noneMatch or allMatch
+     */
+    public static final class Match extends Query {
+        private final boolean ifFound;
+        private boolean result;
+
+        private Match(Predicate<?> predicate, boolean stopOn, boolean ifFound) {
+            super(predicate, stopOn, false);
+            this.ifFound = ifFound;
+        }
+
+        @Override
+        void done(List<?> list) {
+            result = found.get() != NONE ? ifFound : !ifFound;
+        }
+
+        public boolean get() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return Boolean.toString(result);
+        }
+    }
+
+    /**
+     * the answer to findFirst or findAny
+     */
+    public static final class Find<T> extends Query {
+        private Optional<T> result = Optional.empty();
+
+        private Find(Predicate<?> predicate, boolean first) {
+            super(predicate, true, first);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void done(List<?> list) {
+            int f = found.get();
+            result = f == NONE ? Optional.empty() : Optional.of((T) list.get(f));  // like a stream, NPE if null
+        }
+
+        /**
+         * the index of the element found, or -1
+         */
+        public int index() {
+            int f = found.get();
+            return f == NONE ? -1 : f;
+        }
+
+        public Optional<T> get() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return result.toString();
+        }
+    }
+
+    @SuppressWarnings("serial")  // never serialized
+    private final class Scan extends RecursiveAction {
+        private final Query[] queries;
+        private final int from, to;
+
+        Scan(Query[] queries, int from, int to) {
+            this.queries = queries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (!isNeeded(queries, from)) {
+                return;  // cancelled: every query is decided for these elements
+            }
+            if (to - from <= PARALLEL_THRESHOLD) {
+                scan(queries, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            Scan right = new Scan(queries, mid, to);
+            right.fork();
+            new Scan(queries, from, mid).compute();
+            right.join();
+        }
+    }
+
+    private static boolean isNeeded(Query[] queries, int index) {
+        for (Query q : queries) {
+            if (index < q.limit()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // scan the elements from .. to, a block at a time
+    private void scan(Query[] all, int from, int to) {
+        Query[] active = new Query[all.length];
+        int[] limits = new int[all.length];
+        for (int start = from; start < to; start += BLOCK) {
+            // the queries which still need elements of this block
+            int n = 0;
+            for (Query q : all) {
+                int limit = q.limit();
+                if (start < limit) {
+                    active[n] = q;
+                    limits[n++] = limit;
+                }
+            }
+            if (n == 0) {
+                return;
+            }
+            // one query at a time over the block, which stays in the cache: the call of the predicate
+            // (which the JIT cannot inline, as it sees several) then always goes to the same place
+            int end = Math.min(to, start + BLOCK);
+            for (int a = 0; a < n; a++) {
+                Query q = active[a];
+                Predicate<Object> predicate = q.predicate;
+                boolean stopOn = q.stopOn;
+                int stop = Math.min(end, limits[a]);
+                for (int i = start; i < stop; i++) {
+                    if (predicate.test(list.get(i)) == stopOn) {
+                        q.found(i);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void scanSequential(Query[] all) {
+        int i = 0;
+        int undecided = all.length;
+        for (T element : list) {
+            for (Query q : all) {
+                if (i < q.limit() && q.predicate.test(element) == q.stopOn) {
+                    q.found(i);
+                    undecided--;
+                }
+            }
+            if (undecided == 0) {
+                return;
+            }
+            i++;
+        }
+    }
+}
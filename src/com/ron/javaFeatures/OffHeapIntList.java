@@ -0,0 +1,130 @@
+package com.ron.javaFeatures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable list of ints stored off the Java heap, in a direct ByteBuffer:
+ * like List.of(1, 3, 5, 3, 1) for tens of millions of elements, without boxing them.
+ *
+ * It is built once by a builder, which also grows its buffer off the heap.
+ * The list is read only and reads use absolute gets, so it can be shared between threads without locking.
+ * It implements List<Integer> for drop-in use; getInt() and ints() avoid boxing.
+ * All the mutating methods throw UnsupportedOperationException, as for List.of().
+ */
+public final class OffHeapIntList extends AbstractList<Integer> implements RandomAccess {
+
+    private final ByteBuffer ints;
+    private final int size;
+
+    private OffHeapIntList(ByteBuffer ints, int size) {
+        this.ints = ints;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static OffHeapIntList of(int... values) {
+        Builder builder = new Builder();
+        for (int value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return ints.getInt(index << 2);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Integer) {
+            int value = (Integer) o;
+            for (int i = 0; i < size; i++) {
+                if (ints.getInt(i << 2) == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (o instanceof Integer) {
+            int value = (Integer) o;
+            for (int i = size - 1; i >= 0; i--) {
+                if (ints.getInt(i << 2) == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * the elements as an IntStream (sized, and splittable for parallel streams)
+     */
+    public IntStream ints() {
+        return IntStream.range(0, size).map(i -> ints.getInt(i << 2));
+    }
+
+    public static final class Builder {
+        private ByteBuffer buffer = allocate(16);
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(int value) {
+            if (size << 2 == buffer.capacity()) {
+                ByteBuffer bigger = allocate(Math.multiplyExact(size, 2));
+                bigger.put(0, buffer, 0, size << 2);
+                buffer = bigger;
+            }
+            buffer.putInt(size << 2, value);
+            size++;
+            return this;
+        }
+
+        public Builder addAll(IntStream values) {
+            values.sequential().forEachOrdered(this::add);
+            return this;
+        }
+
+        public OffHeapIntList build() {
+            ByteBuffer ints = buffer;
+            buffer = allocate(16);  // the buffer now belongs to the list; the builder starts again, empty
+            int n = size;
+            size = 0;
+            return new OffHeapIntList(ints.asReadOnlyBuffer().order(ByteOrder.nativeOrder()), n);
+        }
+
+        private static ByteBuffer allocate(int ints) {
+            return ByteBuffer.allocateDirect(Math.multiplyExact(ints, 4)).order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.ron.javaFeatures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map from int keys to int or String values, stored off the Java heap,
+ * for large reference tables like the Map<Integer, String> and cube maps of Java11Features.immutableCollections.
+ *
+ * The map is built once by a builder (intBuilder() or stringBuilder()), then laid out in direct ByteBuffers:
+ * the keys sorted (looked up by binary search), the values in the same order (ints, or offsets into
+ * the UTF-8 bytes of the strings). So the garbage collector sees a handful of objects instead of
+ * millions of boxed entries. The map is read only and reads use absolute gets, so it can be shared
+ * between threads without locking.
+ *
+ * It implements Map<Integer, V> for drop-in use (iteration is in key order); getInt() avoids boxing.
+ * All the mutating methods throw UnsupportedOperationException, as for Map.of().
+ */
+public final class OffHeapIntMap<V> extends AbstractMap<Integer, V> {
+
+    private final int size;
+    private final ByteBuffer keys;     // size sorted ints
+    private final ByteBuffer values;   // size ints, or size + 1 string offsets
+    private final ByteBuffer strings;  // UTF-8, or null for int values
+    private Set<Entry<Integer, V>> entrySet;
+
+    private OffHeapIntMap(int size, ByteBuffer keys, ByteBuffer values, ByteBuffer strings) {
+        this.size = size;
+        this.keys = keys;
+        this.values = values;
+        this.strings = strings;
+    }
+
+    public static IntValueBuilder intBuilder() {
+        return new IntValueBuilder();
+    }
+
+    public static StringValueBuilder stringBuilder() {
+        return new StringValueBuilder();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * the position of key in key order, or -1
+     */
+    public int indexOf(int key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = keys.getInt(mid << 2);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && indexOf((Integer) key) >= 0;
+    }
+
+    /**
+     * the value of key, without boxing (only for int values)
+     */
+    public int getInt(int key, int defaultValue) {
+        if (strings != null) {
+            throw new UnsupportedOperationException("the values are strings");
+        }
+        int i = indexOf(key);
+        return i < 0 ? defaultValue : values.getInt(i << 2);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        int i = indexOf((Integer) key);
+        return i < 0 ? null : valueAt(i);
+    }
+
+    public int keyAt(int index) {
+        return keys.getInt(index << 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        if (strings == null) {
+            return (V) (Integer) values.getInt(index << 2);
+        }
+        int start = values.getInt(index << 2);
+        int end = values.getInt((index + 1) << 2);
+        byte[] bytes = new byte[end - start];
+        strings.get(start, bytes);
+        return (V) new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keyAt(i), valueAt(i));
+        }
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Entry)) {
+                        return false;
+                    }
+                    Entry<?, ?> entry = (Entry<?, ?>) o;
+                    return containsKey(entry.getKey()) && get(entry.getKey()).equals(entry.getValue());
+                }
+
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<Integer, V> next() {
+                            if (next >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(keyAt(i), valueAt(i));
+                        }
+                    };
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    // ---------------------------------------- builders ----------------------------------------
+
+    // the entries so far, on the heap until build(): keys and values (or string offsets) in insertion order
+    private abstract static class Builder {
+        int[] keys = new int[16];
+        int[] values = new int[16];
+        int size;
+
+        void add(int key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        // the entry indexes in key order; duplicate keys are rejected, as by Map.of()
+        int[] sortedOrder() {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) keys[i] << 32) | i;
+            }
+            if (size > 1 << 16) {
+                Arrays.parallelSort(packed);
+            } else {
+                Arrays.sort(packed);
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) packed[i];
+                if (i > 0 && (int) (packed[i] >> 32) == (int) (packed[i - 1] >> 32)) {
+                    throw new IllegalArgumentException("duplicate key: " + (int) (packed[i] >> 32));
+                }
+            }
+            return order;
+        }
+
+        ByteBuffer sortedKeys(int[] order) {
+            ByteBuffer buffer = allocate(size);
+            for (int i = 0; i < size; i++) {
+                buffer.putInt(i << 2, keys[order[i]]);
+            }
+            return buffer.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+        }
+
+        static ByteBuffer allocate(int ints) {
+            return ByteBuffer.allocateDirect(Math.multiplyExact(ints, 4)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    public static final class IntValueBuilder extends Builder {
+        private IntValueBuilder() {
+        }
+
+        public IntValueBuilder put(int key, int value) {
+            add(key, value);
+            return this;
+        }
+
+        public OffHeapIntMap<Integer> build() {
+            int[] order = sortedOrder();
+            ByteBuffer sortedValues = allocate(size);
+            for (int i = 0; i < size; i++) {
+                sortedValues.putInt(i << 2, values[order[i]]);
+            }
+            return new OffHeapIntMap<>(size, sortedKeys(order), sortedValues.asReadOnlyBuffer().order(ByteOrder.nativeOrder()), null);
+        }
+    }
+
+    public static final class StringValueBuilder extends Builder {
+        private byte[] bytes = new byte[256];  // the UTF-8 of the strings, in insertion order
+        private int numBytes;
+        private int[] lengths = new int[16];
+
+        private StringValueBuilder() {
+        }
+
+        public StringValueBuilder put(int key, String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (numBytes + utf8.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, numBytes + utf8.length));
+            }
+            System.arraycopy(utf8, 0, bytes, numBytes, utf8.length);
+            if (size == lengths.length) {
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            lengths[size] = utf8.length;
+            add(key, numBytes);
+            numBytes += utf8.length;
+            return this;
+        }
+
+        public OffHeapIntMap<String> build() {
+            int[] order = sortedOrder();
+            ByteBuffer offsets = allocate(size + 1);
+            ByteBuffer utf8 = ByteBuffer.allocateDirect(numBytes);
+            int offset = 0;
+            for (int i = 0; i < size; i++) {
+                int entry = order[i];
+                offsets.putInt(i << 2, offset);
+                utf8.put(offset, bytes, values[entry], lengths[entry]);
+                offset += lengths[entry];
+            }
+            offsets.putInt(size << 2, offset);
+            return new OffHeapIntMap<>(size, sortedKeys(order), offsets.asReadOnlyBuffer().order(ByteOrder.nativeOrder()), utf8.asReadOnlyBuffer());
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.ron.javaFeatures;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * An immutable list whose modified versions share most of their structure with the original:
+ * a persistent vector, i.e. a tree with 32 children per node, whose leaves hold the elements,
+ * plus a tail array holding the last (up to 32) elements.
+ *
+ * with(index, e), plus(e) and withoutLast() copy only the path to one leaf, O(log32 n)
+ * (at most 7 arrays of 32, for any int size), instead of the whole list as with List.of() or
+ * Collections.unmodifiableList(new ArrayList<>(list)). A version is a cheap snapshot: it never changes.
+ * without(index) of other than the last element keeps the leaves before the one of the index, and copies
+ * the elements after the index into new leaves, O(n - index + log32 n).
+ *
+ * copyOf() and toPersistentList() build the tree bottom up, O(n), without intermediate versions.
+ * Null elements are not allowed, as in List.of(). The mutating methods of List throw UnsupportedOperationException.
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentList<?> EMPTY = new PersistentList<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;       // of the root: BITS for a root whose children are leaves
+    private final Object[] root;   // nodes are Object[WIDTH]; the children of inner nodes are nodes
+    private final Object[] tail;
+
+    private PersistentList(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> of() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <E> PersistentList<E> of(E... elements) {
+        // copied into an Object[]: the nodes must accept any E, whatever the runtime type of the varargs array
+        Object[] copy = new Object[elements.length];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = elements[i];
+        }
+        return build(copy);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentList) {
+            return (PersistentList<E>) elements;
+        }
+        Object[] array = elements.toArray();
+        return build(array.getClass() == Object[].class ? array : Arrays.copyOf(array, array.length, Object[].class));
+    }
+
+    /**
+     * collects a stream into a PersistentList (built once, at the end)
+     */
+    public static <E> Collector<E, ?, PersistentList<E>> toPersistentList() {
+        return Collector.<E, List<E>, PersistentList<E>>of(ArrayList::new, List::add, (a, b) -> {
+            a.addAll(b);
+            return a;
+        }, PersistentList::copyOf);
+    }
+
+    // the tree of the elements, bottom up: full leaves, then the inner nodes, level by level;
+    // elements must be an Object[] (not a subtype), as the nodes are copied from it
+    @SuppressWarnings("unchecked")
+    private static <E> PersistentList<E> build(Object[] elements) {
+        int size = elements.length;
+        if (size == 0) {
+            return (PersistentList<E>) EMPTY;
+        }
+        for (Object e : elements) {
+            Objects.requireNonNull(e);
+        }
+        int tailOffset = tailOffset(size);
+        Object[] tail = Arrays.copyOfRange(elements, tailOffset, size);
+        int numNodes = tailOffset >>> BITS;
+        Object[] nodes = new Object[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            nodes[i] = Arrays.copyOfRange(elements, i << BITS, (i + 1) << BITS);
+        }
+        int shift = BITS;
+        while (numNodes > WIDTH) {
+            int numParents = (numNodes + MASK) >>> BITS;
+            Object[] parents = new Object[numParents];
+            for (int i = 0; i < numParents; i++) {
+                parents[i] = Arrays.copyOfRange(nodes, i << BITS, (i + 1) << BITS);  // padded with null
+            }
+            nodes = parents;
+            numNodes = numParents;
+            shift += BITS;
+        }
+        Object[] root = numNodes == 0 ? EMPTY_NODE : Arrays.copyOf(nodes, WIDTH);
+        return new PersistentList<>(size, shift, root, tail);
+    }
+
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    // the leaf (or tail) holding the element at index
+    private Object[] leafFor(int index) {
+        Objects.checkIndex(index, size);
+        if (index >= tailOffset(size)) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * this list with the element at index replaced (or appended, if index == size())
+     */
+    public PersistentList<E> with(int index, E e) {
+        Objects.requireNonNull(e);
+        if (index == size) {
+            return plus(e);
+        }
+        Objects.checkIndex(index, size);
+        if (index >= tailOffset(size)) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = e;
+            return new PersistentList<>(size, shift, root, newTail);
+        }
+        return new PersistentList<>(size, shift, with(shift, root, index, e), tail);
+    }
+
+    private static Object[] with(int level, Object[] node, int index, Object e) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = e;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = with(level - BITS, (Object[]) node[child], index, e);
+        }
+        return copy;
+    }
+
+    /**
+     * this list with e appended
+     */
+    public PersistentList<E> plus(E e) {
+        Objects.requireNonNull(e);
+        if (size - tailOffset(size) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = e;
+            return new PersistentList<>(size + 1, shift, root, newTail);
+        }
+        // the tail is full: push it into the tree
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            // the tree is full: add a level
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentList<>(size + 1, newShift, newRoot, new Object[]{e});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[child] = leaf;
+        } else {
+            Object[] node = (Object[]) parent[child];
+            copy[child] = node != null ? pushTail(level - BITS, node, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    /**
+     * this list without its last element
+     */
+    public PersistentList<E> withoutLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (size == 1) {
+            return of();
+        }
+        if (size - tailOffset(size) > 1) {
+            return new PersistentList<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // the tail becomes empty: the last leaf of the tree becomes the tail
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentList<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    // the node without its last leaf, or null if nothing is left
+    private Object[] popTail(int level, Object[] node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[child]);
+            if (newChild == null && child == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[child] = newChild;
+            return copy;
+        }
+        if (child == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[child] = null;
+        return copy;
+    }
+
+    /**
+     * this list without the element at index (O(log32 n) for the last element, else O(n - index + log32 n))
+     */
+    public PersistentList<E> without(int index) {
+        Objects.checkIndex(index, size);
+        if (index == size - 1) {
+            return withoutLast();
+        }
+        int tailOffset = tailOffset(size);
+        if (index >= tailOffset) {
+            // in the tail, which keeps at least one element
+            Object[] newTail = new Object[tail.length - 1];
+            int i = index - tailOffset;
+            System.arraycopy(tail, 0, newTail, 0, i);
+            System.arraycopy(tail, i + 1, newTail, i, newTail.length - i);
+            return new PersistentList<>(size - 1, shift, root, newTail);
+        }
+        // keep the leaves before the one of index, in a copy of the path to the last of them (the same height
+        // is enough for fewer elements); then copy the elements from that leaf on, but index, into new leaves
+        // and the tail, filling the nodes of the copied path in place
+        int newSize = size - 1;
+        int newTailOffset = tailOffset(newSize);
+        int start = index & ~MASK;
+        Object[] newRoot = start == 0 ? new Object[WIDTH] : truncated(shift, root, start - WIDTH);
+        Object[] newTail = new Object[newSize - newTailOffset];
+        Object[] leaf = null;
+        int to = start;
+        for (int from = start; from < size; from += WIDTH) {
+            Object[] source = leafFor(from);
+            for (int j = 0, n = Math.min(WIDTH, size - from); j < n; j++) {
+                if (from + j == index) {
+                    continue;
+                }
+                if (to >= newTailOffset) {
+                    newTail[to - newTailOffset] = source[j];
+                } else {
+                    if ((to & MASK) == 0) {
+                        leaf = new Object[WIDTH];
+                        addLeaf(shift, newRoot, to, leaf);
+                    }
+                    leaf[to & MASK] = source[j];
+                }
+                to++;
+            }
+        }
+        if (newTailOffset == 0) {
+            return new PersistentList<>(newSize, BITS, EMPTY_NODE, newTail);
+        }
+        int newShift = shift;
+        while (newShift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentList<>(newSize, newShift, newRoot, newTail);
+    }
+
+    // a copy of the path to the leaf at offset, without the children after it
+    private static Object[] truncated(int level, Object[] node, int offset) {
+        int child = (offset >>> level) & MASK;
+        Object[] copy = new Object[WIDTH];
+        if (level == BITS) {
+            System.arraycopy(node, 0, copy, 0, child + 1);
+        } else {
+            System.arraycopy(node, 0, copy, 0, child);
+            copy[child] = truncated(level - BITS, (Object[]) node[child], offset);
+        }
+        return copy;
+    }
+
+    // puts the leaf at offset, in place: the nodes on its path are new (or copied by truncated())
+    private static void addLeaf(int level, Object[] node, int offset, Object[] leaf) {
+        for (; level > BITS; level -= BITS) {
+            int child = (offset >>> level) & MASK;
+            if (node[child] == null) {
+                node[child] = new Object[WIDTH];
+            }
+            node = (Object[]) node[child];
+        }
+        node[(offset >>> BITS) & MASK] = leaf;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < size; i += WIDTH) {
+            Object[] leaf = leafFor(i);
+            int n = Math.min(WIDTH, size - i);
+            for (int j = 0; j < n; j++) {
+                action.accept((E) leaf[j]);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((next & MASK) == 0 || leaf == null) {
+                    leaf = leafFor(next);
+                }
+                return (E) leaf[next++ & MASK];
+            }
+        };
+    }
+}
@@ -0,0 +1,554 @@
+package com.ron.javaFeatures;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * An immutable map whose modified versions share most of their structure with the original:
+ * a hash array mapped trie (HAMT). Each node uses 5 bits of the hash of the keys, and holds
+ * only the children which exist (a 32 bit bitmap tells which), so nodes are small and the tree is shallow.
+ *
+ * with(key, value) and without(key) copy only the path to one key, O(log32 n),
+ * instead of the whole map as with Map.ofEntries() or Collections.unmodifiableMap(new HashMap<>(map)).
+ * A version is a cheap snapshot: it never changes.
+ *
+ * copyOf() and toPersistentMap() build the tree in one go (partitioning the entries by hash, level by level),
+ * without intermediate versions. Null keys and values are not allowed, as in Map.of().
+ * The mutating methods of Map throw UnsupportedOperationException.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;  // null if empty
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> of() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * a map of the entries (for equal keys, the last one wins)
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+        return build(new ArrayList<>(map.entrySet()));
+    }
+
+    /**
+     * collects a stream into a PersistentMap, built once at the end (for equal keys, the last one wins)
+     */
+    public static <T, K, V> Collector<T, ?, PersistentMap<K, V>> toPersistentMap(
+            Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends V> valueMapper) {
+        return Collector.<T, List<Entry<K, V>>, PersistentMap<K, V>>of(ArrayList::new,
+                (entries, t) -> entries.add(new SimpleImmutableEntry<>(keyMapper.apply(t), valueMapper.apply(t))),
+                (a, b) -> {
+                    a.addAll(b);
+                    return a;
+                },
+                PersistentMap::build);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return root == null || key == null ? null : (V) root.find(0, hash(key), key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * this map with key mapped to value
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        if (root == null) {
+            return new PersistentMap<>(new BitmapNode(bit(hash, 0), new Object[]{key, value}), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node newRoot = root.with(0, hash, key, value, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * this map without key
+     */
+    public PersistentMap<K, V> without(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Entry)) {
+                        return false;
+                    }
+                    Entry<?, ?> entry = (Entry<?, ?>) o;
+                    V value = get(entry.getKey());
+                    return value != null && value.equals(entry.getValue());
+                }
+
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    // ---------------------------------------- nodes ----------------------------------------
+
+    private abstract static class Node {
+        /** the value of key, or null */
+        abstract Object find(int shift, int hash, Object key);
+
+        /** this node with key mapped to value (this node if nothing changed); sets added[0] for a new key */
+        abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /** this node without key (this node if key is absent), or null if it would be empty */
+        abstract Node without(int shift, int hash, Object key);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+
+        /** key, value, key, value, ...; a null key means the value is a child node */
+        abstract Object[] array();
+    }
+
+    // the children for the bits set in bitmap, in order: for each, a key and value, or null and a node
+    private static final class BitmapNode extends Node {
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[i];
+            if (k == null) {
+                return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).with(shift + BITS, hash, key, value, added);
+                return child == v ? this : copyWith(i + 1, child);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : copyWith(i + 1, value);
+            }
+            added[0] = true;
+            Node child = pair(shift + BITS, k, v, hash(k), key, value, hash);
+            Object[] newArray = array.clone();
+            newArray[i] = null;
+            newArray[i + 1] = child;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private BitmapNode copyWith(int index, Object o) {
+            Object[] newArray = array.clone();
+            newArray[index] = o;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[i];
+            if (k == null) {
+                Node child = (Node) array[i + 1];
+                Node newChild = child.without(shift + BITS, hash, key);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return copyWith(i + 1, newChild);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+    }
+
+    // keys with the same (full) hash
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // put this node below a bitmap node, with the new key next to it
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this}).with(shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+
+    // a node for two keys with different keys, below shift
+    private static Node pair(int shift, Object key1, Object value1, int hash1, Object key2, Object value2, int hash2) {
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+        int bit1 = bit(hash1, shift);
+        int bit2 = bit(hash2, shift);
+        if (bit1 == bit2) {
+            return new BitmapNode(bit1, new Object[]{null, pair(shift + BITS, key1, value1, hash1, key2, value2, hash2)});
+        }
+        return new BitmapNode(bit1 | bit2, Integer.compareUnsigned(bit1, bit2) < 0  // bit 31 is negative
+                ? new Object[]{key1, value1, key2, value2}
+                : new Object[]{key2, value2, key1, value1});
+    }
+
+    // ---------------------------------------- bulk construction ----------------------------------------
+
+    // the tree is built top down: at each node the entries are partitioned by their 5 bit hash part
+    // (a stable counting sort, i.e. an MSD radix sort which follows the tree), then each part becomes
+    // an entry or a child node
+    private static <K, V> PersistentMap<K, V> build(List<? extends Entry<? extends K, ? extends V>> entries) {
+        int n = entries.size();
+        if (n == 0) {
+            return of();
+        }
+        Builder builder = new Builder(n);
+        for (int i = 0; i < n; i++) {
+            Entry<? extends K, ? extends V> entry = entries.get(i);
+            builder.keys[i] = Objects.requireNonNull(entry.getKey());
+            builder.values[i] = Objects.requireNonNull(entry.getValue());
+            builder.hashes[i] = hash(builder.keys[i]);
+            builder.indexes[i] = i;
+        }
+        Node root = builder.build(0, n, 0);
+        return new PersistentMap<>(root, builder.size);
+    }
+
+    private static final class Builder {
+        final Object[] keys;
+        final Object[] values;
+        final int[] hashes;
+        final int[] indexes;  // of the entries, partitioned in place
+        final int[] scratch;
+        int size;
+
+        Builder(int n) {
+            keys = new Object[n];
+            values = new Object[n];
+            hashes = new int[n];
+            indexes = new int[n];
+            scratch = new int[n];
+        }
+
+        // the node of the entries indexes[from .. to), which share the hash parts below shift
+        Node build(int from, int to, int shift) {
+            if (to - from > 1 && sameHash(from, to)) {
+                return collisions(from, to, shift);
+            }
+            int[] starts = new int[(1 << BITS) + 1];
+            for (int i = from; i < to; i++) {
+                starts[((hashes[indexes[i]] >>> shift) & MASK) + 1]++;
+            }
+            int bitmap = 0;
+            for (int part = 0; part < 1 << BITS; part++) {
+                if (starts[part + 1] > 0) {
+                    bitmap |= 1 << part;
+                }
+                starts[part + 1] += starts[part];
+            }
+            int[] next = starts.clone();
+            for (int i = from; i < to; i++) {
+                int index = indexes[i];
+                scratch[from + next[(hashes[index] >>> shift) & MASK]++] = index;
+            }
+            System.arraycopy(scratch, from, indexes, from, to - from);
+
+            Object[] array = new Object[2 * Integer.bitCount(bitmap)];
+            int a = 0;
+            for (int part = 0; part < 1 << BITS; part++) {
+                int start = from + starts[part];
+                int end = from + starts[part + 1];
+                if (start == end) {
+                    continue;
+                }
+                Node child = end - start == 1 ? null : build(start, end, shift + BITS);
+                if (child == null) {
+                    array[a] = keys[indexes[start]];
+                    array[a + 1] = values[indexes[start]];
+                    size++;
+                } else if (child instanceof BitmapNode && child.array().length == 2 && child.array()[0] != null) {
+                    // equal keys, merged into one entry
+                    array[a] = child.array()[0];
+                    array[a + 1] = child.array()[1];
+                } else {
+                    array[a + 1] = child;
+                }
+                a += 2;
+            }
+            return new BitmapNode(bitmap, array);
+        }
+
+        private boolean sameHash(int from, int to) {
+            int hash = hashes[indexes[from]];
+            for (int i = from + 1; i < to; i++) {
+                if (hashes[indexes[i]] != hash) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // entries with the same hash: a collision node, or one entry if the keys are equal (the last one wins)
+        private Node collisions(int from, int to, int shift) {
+            Object[] array = new Object[2 * (to - from)];
+            int n = 0;
+            for (int j = from; j < to; j++) {
+                Object key = keys[indexes[j]];
+                int existing = 0;
+                while (existing < n && !array[existing].equals(key)) {
+                    existing += 2;
+                }
+                if (existing == n) {
+                    array[n] = key;
+                    n += 2;
+                }
+                array[existing + 1] = values[indexes[j]];
+            }
+            int hash = hashes[indexes[from]];
+            size += n / 2;
+            return n == 2
+                    ? new BitmapNode(bit(hash, shift), Arrays.copyOf(array, 2))
+                    : new CollisionNode(hash, Arrays.copyOf(array, n));
+        }
+    }
+
+    // ---------------------------------------- iteration ----------------------------------------
+
+    // depth first, with a stack of the arrays of the nodes on the path
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[16][];
+        private final int[] positions = new int[16];
+        private int depth = -1;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+            }
+            advance();
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array();
+            positions[depth] = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int i = positions[depth];
+                if (i >= array.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                positions[depth] = i + 2;
+                if (array[i] == null) {
+                    push((Node) array[i + 1]);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) array[i], (V) array[i + 1]);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.ron.javaFeatures;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Person records (name, address, age) stored column by column, with sorting on any column.
+ * This is the data behind Java11Features_Interfaces.Java11Interface.sort().
+ *
+ * Sorting:
+ *   age             - LSD radix sort of the int column (no comparisons, no boxing)
+ *   name, address   - comparison of CollationKeys, which are computed once per value and cached
+ * Above PARALLEL_THRESHOLD records, Arrays.parallelSort is used instead.
+ * All sorts are stable: records which compare equal stay in insertion order, in both directions.
+ *
+ * Sorted results are cached, and the cache is only cleared when the data changes.
+ *
+ * For a single page of sorted records (limit & offset) a full sort is not needed: if the full sort
+ * is not cached, a bounded heap of the first offset + limit rows is kept while scanning the column,
+ * which takes O(n log k) time and O(k) extra space (names and addresses are then compared with the Collator).
+ * All methods are synchronized.
+ */
+public class PersonTable {
+
+    // column numbers, as used by Java11Interface
+    public static final int NAME = 1;
+    public static final int ADDRESS = 2;
+    public static final int AGE = 3;
+
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private static final PersonTable EMPTY = new PersonTable(Collator.getInstance(), true);
+
+    private final Collator collator;
+    private final boolean readOnly;
+
+    private int size;
+    private String[] names = new String[16];
+    private String[] addresses = new String[16];
+    private int[] ages = new int[16];
+
+    // cached collation keys (null = not computed yet) and sorted results, per column & direction
+    private CollationKey[] nameKeys = new CollationKey[16];
+    private CollationKey[] addressKeys = new CollationKey[16];
+    private final int[][] sortedRows = new int[8][];
+    private final List<?>[] sortedLists = new List<?>[8];
+
+    public PersonTable() {
+        this(Collator.getInstance(), false);
+    }
+
+    public PersonTable(Collator collator) {
+        this(collator, false);
+    }
+
+    private PersonTable(Collator collator, boolean readOnly) {
+        this.collator = (Collator) collator.clone();  // Collators are not thread safe
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * a shared table without records, which cannot be modified
+     */
+    public static PersonTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * add a record and return its row number
+     */
+    public synchronized int add(String name, String address, int age) {
+        checkWritable();
+        if (size == ages.length) {
+            int capacity = size + (size >> 1);
+            names = Arrays.copyOf(names, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            nameKeys = Arrays.copyOf(nameKeys, capacity);
+            addressKeys = Arrays.copyOf(addressKeys, capacity);
+        }
+        int row = size++;
+        set(row, name, address, age);
+        return row;
+    }
+
+    public synchronized void set(int row, String name, String address, int age) {
+        checkWritable();
+        Arrays.fill(sortedRows, null);
+        Arrays.fill(sortedLists, null);
+        names[checkRow(row)] = name;
+        addresses[row] = address;
+        ages[row] = age;
+        nameKeys[row] = null;
+        addressKeys[row] = null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized String name(int row) {
+        return names[checkRow(row)];
+    }
+
+    public synchronized String address(int row) {
+        return addresses[checkRow(row)];
+    }
+
+    public synchronized int age(int row) {
+        return ages[checkRow(row)];
+    }
+
+    /**
+     * a record as text: "name (address, age)"
+     */
+    public synchronized String format(int row) {
+        return names[checkRow(row)] + " (" + addresses[row] + ", " + ages[row] + ")";
+    }
+
+    /**
+     * The formatted records (see format()) sorted on a column.
+     * The returned list is immutable; it is computed once and then served from the cache until the data changes.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<String> sort(int column, boolean ascending) {
+        int slot = slot(column, ascending);
+        if (sortedLists[slot] == null) {
+            int[] rows = sortedRows(column, ascending);
+            String[] formatted = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                formatted[i] = format(rows[i]);
+            }
+            sortedLists[slot] = List.of(formatted);
+        }
+        return (List<String>) sortedLists[slot];
+    }
+
+    /**
+     * The row numbers in sorted order. The returned array is shared with the cache and must not be modified.
+     */
+    synchronized int[] sortedRows(int column, boolean ascending) {
+        int slot = slot(column, ascending);
+        if (sortedRows[slot] == null) {
+            sortedRows[slot] = sortRows(column, ascending);
+        }
+        return sortedRows[slot];
+    }
+
+    // not cached
+    synchronized int[] sortRows(int column, boolean ascending) {
+        return column == AGE
+                ? sortInts(ages, size, ascending)
+                : sortKeys(collationKeys(column), size, ascending);
+    }
+
+    /**
+     * One page of the formatted records sorted on a column: at most limit records, after skipping offset records.
+     * The same records as sort(column, ascending).subList(offset, offset + limit), but without a full sort.
+     */
+    public synchronized List<String> sort(int column, boolean ascending, int limit, int offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("limit = " + limit + ", offset = " + offset);
+        }
+        int from = Math.min(offset, size);
+        int to = (int) Math.min((long) offset + limit, size);
+        int slot = slot(column, ascending);
+        if (from >= to) {
+            return List.of();  // limit 0, or offset past the end: nothing to sort
+        }
+        if (sortedLists[slot] != null) {
+            return sort(column, ascending).subList(from, to);  // an immutable view
+        }
+        int[] rows = sortedRows[slot] != null
+                ? Arrays.copyOfRange(sortedRows[slot], from, to)
+                : Arrays.copyOfRange(topRows(column, ascending, to), from, to);
+        String[] formatted = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            formatted[i] = format(rows[i]);
+        }
+        return List.of(formatted);
+    }
+
+    /**
+     * The first k rows in sorted order (not cached), using a bounded heap.
+     */
+    synchronized int[] topRows(int column, boolean ascending, int k) {
+        k = Math.min(k, size);
+        if (column == AGE) {
+            return topRows(k, size, (a, b) -> compareRows(ages[a], ages[b], a, b, ascending));
+        }
+        slot(column, ascending);  // check the column
+        // no collation keys are built here (that would take O(n) space): values are compared with the Collator,
+        // unless both already have a cached key
+        String[] values = column == NAME ? names : addresses;
+        CollationKey[] keys = column == NAME ? nameKeys : addressKeys;
+        return topRows(k, size, (a, b) -> {
+            int c = keys[a] != null && keys[b] != null
+                    ? keys[a].compareTo(keys[b])
+                    : collator.compare(valueOrEmpty(values[a]), valueOrEmpty(values[b]));
+            return compareRows(c, 0, a, b, ascending);
+        });
+    }
+
+    private static String valueOrEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // compare two rows on their values, then on the row number (so the order is stable)
+    private static int compareRows(int valueA, int valueB, int rowA, int rowB, boolean ascending) {
+        int c = Integer.compare(valueA, valueB);
+        if (c != 0) {
+            return ascending ? c : -c;
+        }
+        return Integer.compare(rowA, rowB);
+    }
+
+    private static int slot(int column, boolean ascending) {
+        if (column < NAME || column > AGE) {
+            throw new IllegalArgumentException("no such column: " + column);
+        }
+        return column * 2 + (ascending ? 0 : 1);
+    }
+
+    private CollationKey[] collationKeys(int column) {
+        String[] values = column == NAME ? names : addresses;
+        CollationKey[] keys = column == NAME ? nameKeys : addressKeys;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == null) {
+                keys[i] = collator.getCollationKey(valueOrEmpty(values[i]));
+            }
+        }
+        return keys;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("read-only table");
+        }
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return row;
+    }
+
+
+    // ----------------------------------------
+    // sorting
+
+    /**
+     * row numbers sorted on the int keys
+     */
+    static int[] sortInts(int[] keys, int n, boolean ascending) {
+        if (n > PARALLEL_THRESHOLD) {
+            // sort (key, row) pairs packed into longs: the row in the low bits keeps the sort stable
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) {
+                long key = ascending ? keys[i] : ~keys[i];
+                packed[i] = key << 32 | i;
+            }
+            Arrays.parallelSort(packed);
+            int[] rows = new int[n];
+            for (int i = 0; i < n; i++) {
+                rows[i] = (int) packed[i];
+            }
+            return rows;
+        }
+        return radixSort(keys, n, ascending);
+    }
+
+    /**
+     * LSD radix sort, 8 bits per pass; passes in which all keys have the same digit are skipped
+     * (e.g. the 3 high bytes of an age)
+     */
+    private static int[] radixSort(int[] keys, int n, boolean ascending) {
+        int[] rows = new int[n];
+        int[] sortKeys = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+            int key = keys[i] ^ Integer.MIN_VALUE;  // signed order as unsigned order
+            sortKeys[i] = ascending ? key : ~key;
+        }
+        int[] rowsTmp = new int[n];
+        int[] keysTmp = new int[n];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[((sortKeys[i] >>> shift) & 0xFF) + 1]++;
+            }
+            if (n == 0 || counts[((sortKeys[0] >>> shift) & 0xFF) + 1] == n) {
+                continue;
+            }
+            for (int d = 0; d < 256; d++) {
+                counts[d + 1] += counts[d];
+            }
+            for (int i = 0; i < n; i++) {
+                int pos = counts[(sortKeys[i] >>> shift) & 0xFF]++;
+                rowsTmp[pos] = rows[i];
+                keysTmp[pos] = sortKeys[i];
+            }
+            int[] t = rows;
+            rows = rowsTmp;
+            rowsTmp = t;
+            t = sortKeys;
+            sortKeys = keysTmp;
+            keysTmp = t;
+        }
+        return rows;
+    }
+
+    /**
+     * The first k of rows 0 .. n-1 in the order given by the comparator.
+     * A max-heap holds the best k rows seen so far, with the worst of them at the top.
+     */
+    static int[] topRows(int k, int n, IntComparator comparator) {
+        int[] heap = new int[k];
+        if (k == 0) {
+            return heap;
+        }
+        int count = 0;
+        for (int row = 0; row < n; row++) {
+            if (count < k) {
+                // sift up
+                int i = count++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (comparator.compare(row, heap[parent]) <= 0) {
+                        break;
+                    }
+                    heap[i] = heap[parent];
+                    i = parent;
+                }
+                heap[i] = row;
+            } else if (comparator.compare(row, heap[0]) < 0) {
+                siftDown(heap, k, row, comparator);
+            }
+        }
+        // heap sort: repeatedly move the worst row to the end
+        for (int end = k - 1; end > 0; end--) {
+            int worst = heap[0];
+            siftDown(heap, end, heap[end], comparator);
+            heap[end] = worst;
+        }
+        return heap;
+    }
+
+    // put row at the top of heap[0 .. size) and sift it down
+    private static void siftDown(int[] heap, int size, int row, IntComparator comparator) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+
+    @FunctionalInterface
+    interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    private static final class KeyedRow {
+        final CollationKey key;
+        final int row;
+
+        KeyedRow(CollationKey key, int row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+
+    private static final Comparator<KeyedRow> BY_KEY = (a, b) -> a.key.compareTo(b.key);
+
+    /**
+     * row numbers sorted on the collation keys (both sorts are stable)
+     */
+    static int[] sortKeys(CollationKey[] keys, int n, boolean ascending) {
+        KeyedRow[] keyedRows = new KeyedRow[n];
+        for (int i = 0; i < n; i++) {
+            keyedRows[i] = new KeyedRow(keys[i], i);
+        }
+        Comparator<KeyedRow> comparator = ascending ? BY_KEY : BY_KEY.reversed();
+        if (n > PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keyedRows, comparator);
+        } else {
+            Arrays.sort(keyedRows, comparator);
+        }
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = keyedRows[i].row;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ron.javaFeatures;
+
+/**
+ * A StringBuilder per thread, reused by Utils.print() to format its output.
+ *
+ * If the builder of a thread is already in use (e.g. a toString() which prints something itself)
+ * a fresh StringBuilder is handed out instead, so nested calls never share a builder.
+ * Builders which have grown very large are not kept.
+ */
+final class PrintBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<PrintBuffer> LOCAL = ThreadLocal.withInitial(PrintBuffer::new);
+
+    private StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+    private boolean inUse;
+
+    private PrintBuffer() {
+    }
+
+    static StringBuilder acquire() {
+        PrintBuffer buffer = LOCAL.get();
+        if (buffer.inUse) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        buffer.inUse = true;
+        buffer.sb.setLength(0);
+        return buffer.sb;
+    }
+
+    static void release(StringBuilder sb) {
+        PrintBuffer buffer = LOCAL.get();
+        if (buffer.sb == sb) {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+                buffer.sb = new StringBuilder(INITIAL_CAPACITY);
+            }
+            buffer.inUse = false;
+        }
+    }
+
+    /**
+     * append the label followed by a space, as Utils.format(sb, SPACE, label, value) would before the value
+     */
+    static StringBuilder appendLabel(StringBuilder sb, Object label) {
+        if (label != null) {
+            if (label instanceof String) {
+                sb.append((String) label);
+            } else if (label instanceof CharSequence) {
+                sb.append((CharSequence) label);
+            } else {
+                sb.append(label.toString());
+            }
+        }
+        if (sb.length() > 0) {
+            sb.append(Utils.SPACE);
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ron.javaFeatures;
+
+/**
+ * Destination of the lines printed by Utils.print() and Utils.printerr().
+ * isOk = true is normal output (System.out), false is error output (System.err).
+ *
+ * Install a different sink with Utils.setSink(), e.g. an AsyncPrintSink or a LoggerPrintSink.
+ */
+@FunctionalInterface
+public interface PrintSink {
+
+    /**
+     * Synchronous printing to System.out / System.err (the default).
+     */
+    PrintSink SYSTEM = (isOk, s) -> (isOk ? System.out : System.err).println(s);
+
+    void println(boolean isOk, String s);
+
+    /**
+     * false if lines of this kind would be discarded, so that callers can skip building them
+     */
+    default boolean isEnabled(boolean isOk) {
+        return true;
+    }
+
+    /**
+     * Wait until everything printed so far has been written.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,288 @@
+package com.ron.javaFeatures;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Samples the CPU time of a process tree (a root process and its descendants) continuously,
+ * with the ProcessHandle API of Java 9.
+ *
+ * Each sample walks root.descendants() and fetches ProcessHandle.Info of the processes in batches,
+ * on a small pool of daemon threads (fetching the info is blocking I/O, e.g. reading /proc on Linux).
+ * The CPU times are kept in primitive long-keyed maps (pid -> nanoseconds), and each sample is published
+ * as an immutable Snapshot with the CPU time used since the previous one and the processes which started
+ * or ended: latest() and the listeners see complete snapshots, and sampling never blocks them.
+ *
+ * The sampler measures its own CPU time, and stretches the period when needed to stay within
+ * its CPU budget (by default 1% of one CPU).
+ */
+public class ProcessSampler implements AutoCloseable {
+
+    public static final double DEFAULT_CPU_BUDGET = 0.01;
+
+    private static final int BATCH_SIZE = 64;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ProcessHandle root;
+    private final long periodNanos;
+    private final double cpuBudget;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot latest;
+
+    /**
+     * A sampler of root and its descendants, every period (or less often, to stay within cpuBudget,
+     * a fraction of one CPU), fetching process info on the given number of threads.
+     * Call start() to sample continuously, or sample() to take single samples.
+     */
+    public ProcessSampler(ProcessHandle root, Duration period, int threads, double cpuBudget) {
+        if (period.isNegative() || period.isZero() || threads < 1 || cpuBudget <= 0) {
+            throw new IllegalArgumentException("period = " + period + ", threads = " + threads + ", cpuBudget = " + cpuBudget);
+        }
+        this.root = root;
+        this.periodNanos = period.toNanos();
+        this.cpuBudget = cpuBudget;
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("ProcessSampler-worker"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("ProcessSampler"));
+    }
+
+    public ProcessSampler(ProcessHandle root, Duration period) {
+        this(root, period, Math.min(4, Runtime.getRuntime().availableProcessors()), DEFAULT_CPU_BUDGET);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * start sampling continuously (the first sample is taken straight away)
+     */
+    public ProcessSampler start() {
+        scheduler.execute(this::sampleAndReschedule);
+        return this;
+    }
+
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * the last snapshot, or null before the first sample
+     */
+    public Snapshot latest() {
+        return latest;
+    }
+
+    private void sampleAndReschedule() {
+        long delay = periodNanos;
+        try {
+            Snapshot snapshot = sample();
+            // stay within the budget: overhead / (overhead + delay) <= cpuBudget
+            delay = Math.max(periodNanos, (long) (snapshot.overheadNanos() / cpuBudget) - snapshot.overheadNanos());
+        } catch (RuntimeException e) {
+            Utils.logger.log(Level.WARNING, "process sample failed", e);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::sampleAndReschedule, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * take a sample now, publish it and return it
+     */
+    public synchronized Snapshot sample() {
+        long startCpu = THREADS.getCurrentThreadCpuTime();
+        long time = System.nanoTime();
+
+        List<ProcessHandle> processes = new ArrayList<>();
+        processes.add(root);
+        root.descendants().forEach(processes::add);
+
+        // fetch the CPU times in batches, in parallel
+        LongAdder workerCpu = new LongAdder();
+        List<CompletableFuture<long[]>> batches = new ArrayList<>();
+        for (int from = 0; from < processes.size(); from += BATCH_SIZE) {
+            List<ProcessHandle> batch = processes.subList(from, Math.min(from + BATCH_SIZE, processes.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> cpuTimes(batch, workerCpu), workers));
+        }
+        LongLongMap cpu = new LongLongMap(processes.size());
+        for (CompletableFuture<long[]> batch : batches) {
+            long[] pidsAndTimes = batch.join();
+            for (int i = 0; i < pidsAndTimes.length; i += 2) {
+                cpu.put(pidsAndTimes[i], pidsAndTimes[i + 1]);
+            }
+        }
+
+        Snapshot previous = latest;
+        Snapshot snapshot = new Snapshot(previous, time, cpu,
+                THREADS.getCurrentThreadCpuTime() - startCpu + workerCpu.sum());
+        latest = snapshot;
+        for (Consumer<Snapshot> listener : listeners) {
+            listener.accept(snapshot);
+        }
+        return snapshot;
+    }
+
+    // pid, CPU time, pid, CPU time, ... of the processes which are still alive and report their CPU time
+    private static long[] cpuTimes(List<ProcessHandle> processes, LongAdder workerCpu) {
+        long startCpu = THREADS.getCurrentThreadCpuTime();
+        long[] result = new long[processes.size() * 2];
+        int n = 0;
+        for (ProcessHandle process : processes) {
+            Optional<Duration> cpu = process.info().totalCpuDuration();
+            if (cpu.isPresent()) {
+                result[n++] = process.pid();
+                result[n++] = cpu.get().toNanos();
+            }
+        }
+        workerCpu.add(THREADS.getCurrentThreadCpuTime() - startCpu);
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * The CPU times of a process tree at one time, compared to the previous snapshot.
+     */
+    public static final class Snapshot {
+        private final long time;
+        private final long elapsedNanos;
+        private final LongLongMap cpu;    // pid -> total CPU time
+        private final LongLongMap delta;  // pid -> CPU time since the previous snapshot
+        private final long[] started;
+        private final long[] ended;
+        private final long overheadNanos;
+
+        private Snapshot(Snapshot previous, long time, LongLongMap cpu, long overheadNanos) {
+            this.time = time;
+            this.cpu = cpu;
+            this.overheadNanos = overheadNanos;
+            this.delta = new LongLongMap(cpu.size());
+            if (previous == null) {
+                this.elapsedNanos = 0;
+                this.started = cpu.keys();
+                this.ended = new long[0];
+                cpu.forEach(delta::put);
+                return;
+            }
+            this.elapsedNanos = time - previous.time;
+            LongLongMap before = previous.cpu;
+            long[] newPids = new long[cpu.size()];
+            int[] numNew = {0};
+            cpu.forEach((pid, nanos) -> {
+                long previousNanos = before.get(pid, -1);
+                if (previousNanos < 0 || previousNanos > nanos) {
+                    newPids[numNew[0]++] = pid;  // a new process (or a reused pid)
+                    delta.put(pid, nanos);
+                } else {
+                    delta.put(pid, nanos - previousNanos);
+                }
+            });
+            this.started = Arrays.copyOf(newPids, numNew[0]);
+            long[] oldPids = new long[before.size()];
+            int[] numEnded = {0};
+            before.forEach((pid, nanos) -> {
+                if (!cpu.containsKey(pid)) {
+                    oldPids[numEnded[0]++] = pid;
+                }
+            });
+            this.ended = Arrays.copyOf(oldPids, numEnded[0]);
+        }
+
+        /**
+         * System.nanoTime() of the sample
+         */
+        public long time() {
+            return time;
+        }
+
+        /**
+         * time since the previous snapshot (0 for the first one)
+         */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int size() {
+            return cpu.size();
+        }
+
+        public long[] pids() {
+            return cpu.keys();
+        }
+
+        /**
+         * total CPU time of the process, or -1 if it is not in the snapshot
+         */
+        public long cpuNanos(long pid) {
+            return cpu.get(pid, -1);
+        }
+
+        /**
+         * CPU time of the process since the previous snapshot, or -1 if it is not in the snapshot
+         */
+        public long cpuDeltaNanos(long pid) {
+            return delta.get(pid, -1);
+        }
+
+        /**
+         * (pid, CPU time since the previous snapshot) of each process
+         */
+        public void forEachDelta(LongLongMap.EntryConsumer action) {
+            delta.forEach(action);
+        }
+
+        /**
+         * the processes which are new since the previous snapshot
+         */
+        public long[] started() {
+            return started.clone();
+        }
+
+        /**
+         * the processes of the previous snapshot which have ended
+         */
+        public long[] ended() {
+            return ended.clone();
+        }
+
+        /**
+         * CPU time used by the sampler itself for this snapshot
+         */
+        public long overheadNanos() {
+            return overheadNanos;
+        }
+
+        @Override
+        public String toString() {
+            return size() + " processes, " + started.length + " started, " + ended.length + " ended, "
+                    + "overhead " + TimeUnit.NANOSECONDS.toMicros(overheadNanos) + " us";
+        }
+    }
+}
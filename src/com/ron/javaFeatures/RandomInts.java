@@ -0,0 +1,269 @@
+package com.ron.javaFeatures;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Random primitive data, without boxing.
+ *
+ * Values are uniformly distributed between minValue and maxValue (both inclusive).
+ * Large arrays are filled in parallel on the common fork/join pool.
+ *
+ * Without a seed, ThreadLocalRandom is used.
+ * With an explicit seed the output is reproducible: element i is computed from (seed, i) alone,
+ * with the SplitMix64 mixing function that SplittableRandom is built on.
+ * So a seeded array and a seeded stream hold the same values, whether they were
+ * produced sequentially or in parallel and however the work was split.
+ */
+public final class RandomInts {
+
+    /**
+     * arrays up to this size are filled by a single thread
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private RandomInts() {
+    }
+
+    public static int[] array(int size, int minValue, int maxValue) {
+        checkRange(minValue, maxValue);
+        int[] values = new int[size];
+        fill(values, minValue, maxValue, false, 0L);
+        return values;
+    }
+
+    public static int[] array(int size, int minValue, int maxValue, long seed) {
+        checkRange(minValue, maxValue);
+        int[] values = new int[size];
+        fill(values, minValue, maxValue, true, seed);
+        return values;
+    }
+
+    /**
+     * A stream of exactly size values. It is SIZED and SUBSIZED and splits in halves,
+     * so parallel() spreads the work evenly over the cores.
+     */
+    public static IntStream stream(int size, int minValue, int maxValue) {
+        checkRange(minValue, maxValue);
+        return StreamSupport.intStream(new RandomSpliterator(0, size, minValue, range(minValue, maxValue), false, 0L), false);
+    }
+
+    public static IntStream stream(int size, int minValue, int maxValue, long seed) {
+        checkRange(minValue, maxValue);
+        return StreamSupport.intStream(new RandomSpliterator(0, size, minValue, range(minValue, maxValue), true, seed), false);
+    }
+
+    /**
+     * A mutable List view over an int array; elements are boxed only when read.
+     * The list supports set, add and remove (and therefore Iterator.remove()).
+     */
+    public static List<Integer> asList(int[] values) {
+        return new IntArrayList(values);
+    }
+
+
+    // ----------------------------------------
+
+    private static void fill(int[] values, int minValue, int maxValue, boolean isSeeded, long seed) {
+        long range = range(minValue, maxValue);
+        if (values.length <= PARALLEL_THRESHOLD) {
+            fill(values, 0, values.length, minValue, range, isSeeded, seed);
+        } else {
+            ForkJoinPool.commonPool().invoke(new Fill(values, 0, values.length, minValue, range, isSeeded, seed));
+        }
+    }
+
+    private static void fill(int[] values, int from, int to, int minValue, long range, boolean isSeeded, long seed) {
+        if (isSeeded) {
+            for (int i = from; i < to; i++) {
+                values[i] = seeded(seed, i, minValue, range);
+            }
+        } else {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = from; i < to; i++) {
+                values[i] = minValue + (int) rnd.nextLong(range);
+            }
+        }
+    }
+
+    // element 'index' of the seeded sequence (SplitMix64, as in SplittableRandom)
+    private static int seeded(long seed, int index, int minValue, long range) {
+        long z = seed + (index + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+        return minValue + (int) Long.remainderUnsigned(z, range);
+    }
+
+    private static long range(int minValue, int maxValue) {
+        return (long) maxValue - minValue + 1;
+    }
+
+    private static void checkRange(int minValue, int maxValue) {
+        if (minValue > maxValue) {
+            throw new IllegalArgumentException("minValue " + minValue + " > maxValue " + maxValue);
+        }
+    }
+
+    @SuppressWarnings("serial")  // never serialized
+    private static final class Fill extends RecursiveAction {
+        private final int[] values;
+        private final int from, to, minValue;
+        private final long range;
+        private final boolean isSeeded;
+        private final long seed;
+
+        Fill(int[] values, int from, int to, int minValue, long range, boolean isSeeded, long seed) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.minValue = minValue;
+            this.range = range;
+            this.isSeeded = isSeeded;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                fill(values, from, to, minValue, range, isSeeded, seed);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Fill(values, from, mid, minValue, range, isSeeded, seed),
+                    new Fill(values, mid, to, minValue, range, isSeeded, seed));
+        }
+    }
+
+    private static final class RandomSpliterator implements Spliterator.OfInt {
+        private int index;
+        private final int end, minValue;
+        private final long range;
+        private final boolean isSeeded;
+        private final long seed;
+
+        RandomSpliterator(int index, int end, int minValue, long range, boolean isSeeded, long seed) {
+            this.index = index;
+            this.end = end;
+            this.minValue = minValue;
+            this.range = range;
+            this.isSeeded = isSeeded;
+            this.seed = seed;
+        }
+
+        private int next() {
+            int i = index++;
+            return isSeeded
+                    ? seeded(seed, i, minValue, range)
+                    : minValue + (int) ThreadLocalRandom.current().nextLong(range);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index < end) {
+                action.accept(next());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (isSeeded) {
+                for (int i = index; i < end; i++) {
+                    action.accept(seeded(seed, i, minValue, range));
+                }
+            } else {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = index; i < end; i++) {
+                    action.accept(minValue + (int) rnd.nextLong(range));
+                }
+            }
+            index = end;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int lo = index, mid = (lo + end) >>> 1;
+            if (mid <= lo) {
+                return null;
+            }
+            index = mid;
+            return new RandomSpliterator(lo, mid, minValue, range, isSeeded, seed);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | IMMUTABLE | (isSeeded ? ORDERED : 0);
+        }
+    }
+
+    private static final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+        private int[] values;
+        private int size;
+
+        IntArrayList(int[] values) {
+            this.values = values;
+            this.size = values.length;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return values[checkIndex(index, size)];
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            int old = values[checkIndex(index, size)];
+            values[index] = element;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Integer element) {
+            checkIndex(index, size + 1);
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(8, size + (size >> 1)));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Integer remove(int index) {
+            int old = values[checkIndex(index, size)];
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private static int checkIndex(int index, int length) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            return index;
+        }
+    }
+}
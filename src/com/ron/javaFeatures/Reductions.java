@@ -0,0 +1,275 @@
+package com.ron.javaFeatures;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ * Sums and products that do not overflow, and double sums that do not depend on the order,
+ * for the reduce() examples of Java8Features_Streams.terminalOperations().
+ *
+ * stream.reduce((i, j) -> i + j) on Integers boxes every intermediate result and silently wraps
+ * around on overflow. The reductions here accumulate into a mutable container instead:
+ * - ExactSum and ExactProduct work in a long, and only promote to a BigInteger when the long
+ *   would overflow (and then go on in a long again, so the BigInteger is touched once per overflow).
+ * - DoubleSum keeps the exact sum of doubles as a few non-overlapping partial sums (Shewchuk's
+ *   algorithm, as in Python's math.fsum), and returns the correctly rounded result.
+ *   Kahan summation (which DoubleStream.sum() already uses) reduces the error, but its result
+ *   still depends on the order of the additions.
+ *
+ * All results are exact, so they are the same for any order and any parallel split: a parallel stream
+ * gives the same result as a sequential one. Adding an element or combining two containers
+ * does not allocate (apart from a BigInteger on overflow).
+ *
+ * Use the collectors with streams of objects, e.g. list.stream().collect(Reductions.summing(i -> i)),
+ * and sum() and product() with primitive streams, e.g. Reductions.product(intStream.asLongStream()).
+ */
+public final class Reductions {
+
+    private Reductions() {
+    }
+
+    public static <T> Collector<T, ExactSum, BigInteger> summing(ToLongFunction<? super T> mapper) {
+        return Collector.of(ExactSum::new, (sum, t) -> sum.accept(mapper.applyAsLong(t)),
+                ExactSum::combine, ExactSum::bigIntegerValue, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, ExactProduct, BigInteger> multiplying(ToLongFunction<? super T> mapper) {
+        return Collector.of(ExactProduct::new, (product, t) -> product.accept(mapper.applyAsLong(t)),
+                ExactProduct::combine, ExactProduct::bigIntegerValue, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, DoubleSum, Double> summingDouble(ToDoubleFunction<? super T> mapper) {
+        return Collector.of(DoubleSum::new, (sum, t) -> sum.accept(mapper.applyAsDouble(t)),
+                DoubleSum::combine, DoubleSum::doubleValue, Collector.Characteristics.UNORDERED);
+    }
+
+    public static ExactSum sum(LongStream values) {
+        return values.collect(ExactSum::new, ExactSum::accept, ExactSum::combine);
+    }
+
+    public static ExactProduct product(LongStream values) {
+        return values.collect(ExactProduct::new, ExactProduct::accept, ExactProduct::combine);
+    }
+
+    public static DoubleSum sum(DoubleStream values) {
+        return values.collect(DoubleSum::new, DoubleSum::accept, DoubleSum::combine);
+    }
+
+
+    // ----------------------------------------
+
+    /**
+     * The exact sum of longs: a long, plus a BigInteger for what overflowed (null until then).
+     */
+    public static final class ExactSum implements LongConsumer {
+        private long sum;
+        private BigInteger overflow;
+
+        @Override
+        public void accept(long value) {
+            long s = sum;
+            long r = s + value;
+            if (((s ^ r) & (value ^ r)) < 0) {
+                // both operands have the other sign than the result: move the sum so far to the BigInteger
+                overflow = add(overflow, BigInteger.valueOf(s));
+                r = value;
+            }
+            sum = r;
+        }
+
+        /**
+         * add the values of other to this one; returns this
+         */
+        public ExactSum combine(ExactSum other) {
+            accept(other.sum);
+            if (other.overflow != null) {
+                overflow = add(overflow, other.overflow);
+            }
+            return this;
+        }
+
+        public boolean fitsInLong() {
+            return overflow == null || bigIntegerValue().bitLength() < Long.SIZE;
+        }
+
+        /**
+         * the sum, or an ArithmeticException if it does not fit in a long
+         */
+        public long longValue() {
+            return overflow == null ? sum : bigIntegerValue().longValueExact();
+        }
+
+        public BigInteger bigIntegerValue() {
+            return overflow == null ? BigInteger.valueOf(sum) : overflow.add(BigInteger.valueOf(sum));
+        }
+
+        @Override
+        public String toString() {
+            return overflow == null ? Long.toString(sum) : bigIntegerValue().toString();
+        }
+    }
+
+    /**
+     * The exact product of longs: a long factor, times a BigInteger for what overflowed (null until then).
+     */
+    public static final class ExactProduct implements LongConsumer {
+        private long product = 1;
+        private BigInteger overflow;
+
+        @Override
+        public void accept(long value) {
+            long p = product;
+            long r = p * value;
+            long high = Math.multiplyHigh(p, value);
+            if (high != (r >> 63)) {
+                // the product needs more than 64 bits: move the product so far to the BigInteger
+                overflow = multiply(overflow, BigInteger.valueOf(p));
+                r = value;
+            }
+            product = r;
+        }
+
+        /**
+         * multiply this product by other; returns this
+         */
+        public ExactProduct combine(ExactProduct other) {
+            accept(other.product);
+            if (other.overflow != null) {
+                overflow = multiply(overflow, other.overflow);
+            }
+            return this;
+        }
+
+        public boolean fitsInLong() {
+            return overflow == null || bigIntegerValue().bitLength() < Long.SIZE;
+        }
+
+        /**
+         * the product, or an ArithmeticException if it does not fit in a long
+         */
+        public long longValue() {
+            return overflow == null ? product : bigIntegerValue().longValueExact();
+        }
+
+        public BigInteger bigIntegerValue() {
+            return overflow == null ? BigInteger.valueOf(product) : overflow.multiply(BigInteger.valueOf(product));
+        }
+
+        @Override
+        public String toString() {
+            return overflow == null ? Long.toString(product) : bigIntegerValue().toString();
+        }
+    }
+
+    /**
+     * The exact sum of doubles, as non-overlapping partial sums in increasing magnitude.
+     * doubleValue() is the exact sum, correctly rounded.
+     *
+     * Infinities and NaN are summed separately, with the usual double rules; an intermediate result
+     * that overflows (only possible with values near Double.MAX_VALUE) gives an infinite sum.
+     */
+    public static final class DoubleSum implements DoubleConsumer {
+        private double[] partials = new double[8];
+        private int size;
+        private double special;  // the sum of the infinities and NaNs
+
+        @Override
+        public void accept(double value) {
+            if (!Double.isFinite(value)) {
+                special += value;
+                return;
+            }
+            double x = value;
+            double[] p = partials;
+            int n = 0;
+            for (int j = 0; j < size; j++) {
+                double y = p[j];
+                if (Math.abs(x) < Math.abs(y)) {
+                    double t = x;
+                    x = y;
+                    y = t;
+                }
+                double high = x + y;
+                double low = y - (high - x);  // exact, since |x| >= |y|
+                if (low != 0) {
+                    p[n++] = low;
+                }
+                x = high;
+            }
+            if (!Double.isFinite(x)) {
+                special += x;
+                size = n;
+                return;
+            }
+            if (n == p.length) {
+                partials = p = Arrays.copyOf(p, n * 2);
+            }
+            p[n++] = x;
+            size = n;
+        }
+
+        /**
+         * add the values of other to this sum; returns this
+         */
+        public DoubleSum combine(DoubleSum other) {
+            double[] p = other.partials;
+            for (int i = 0, n = other.size; i < n; i++) {
+                accept(p[i]);
+            }
+            special += other.special;
+            return this;
+        }
+
+        public double doubleValue() {
+            if (special != 0 || Double.isNaN(special)) {
+                return special;
+            }
+            double[] p = partials;
+            int n = size;
+            if (n == 0) {
+                return 0.0;
+            }
+            // add the partials from the largest down, until the rest cannot change the result
+            double high = p[--n];
+            double low = 0;
+            while (n > 0) {
+                double x = high;
+                double y = p[--n];
+                high = x + y;
+                low = y - (high - x);
+                if (low != 0) {
+                    break;
+                }
+            }
+            // round half to even is not right if the next partial has the same sign as the rounding error
+            if (n > 0 && ((low < 0 && p[n - 1] < 0) || (low > 0 && p[n - 1] > 0))) {
+                double y = low * 2;
+                double x = high + y;
+                if (y == x - high) {
+                    high = x;
+                }
+            }
+            return high;
+        }
+
+        @Override
+        public String toString() {
+            return Double.toString(doubleValue());
+        }
+    }
+
+    private static BigInteger add(BigInteger a, BigInteger b) {
+        return a == null ? b : a.add(b);
+    }
+
+    private static BigInteger multiply(BigInteger a, BigInteger b) {
+        return a == null ? b : a.multiply(b);
+    }
+}
@@ -0,0 +1,450 @@
+package com.ron.javaFeatures;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Replacements for Collectors.toList(), toSet() and toMap() (as used in Java8Features_Streams.convertingStreams()),
+ * for large and parallel streams, e.g. SizedCollectors.toMap(stream, k -> k, v -> v * v).
+ *
+ * The Collectors build a container per fork/join task, and merge them by adding the elements of one
+ * to the other: for maps and sets, every merge hashes the elements again. These methods take
+ * the stream itself instead of being a Collector, since a Collector never sees the size of the stream:
+ * - the elements are gathered with toArray(), which fills a single array at the right offsets
+ *   when the stream is SIZED (also in parallel), and otherwise concatenates the arrays of the tasks once;
+ * - then the container is built once, with the exact size, so it never grows or rehashes.
+ * For a parallel stream (of at least PARALLEL_THRESHOLD elements), toSet() and toMap() hash in parallel too:
+ * the elements are grouped by (other bits of) their hash, and each group goes into a HashMap / HashSet
+ * of its own, all built at the same time. The result is a mutable Set or Map over those partitions,
+ * which looks up a key in the partition of its hash.
+ * toIntArray() and toIntIntMap() do the same without boxing the results,
+ * and toConcurrentMap() fills one ConcurrentHashMap, sized from the SIZED estimate, from all threads.
+ *
+ * Like the Collectors, toMap() without a merge function throws an IllegalStateException on a duplicate key,
+ * and merges see the values in encounter order; as with Map.merge(), a merge function which returns null
+ * removes the key. Null elements, keys and values are not allowed: a NullPointerException,
+ * also from toList() (where Collectors.toList() would accept them).
+ */
+public final class SizedCollectors {
+
+    static final int PARALLEL_THRESHOLD = 1 << 16;  // elements, at least, to build partitions in parallel
+
+    private SizedCollectors() {
+    }
+
+    /**
+     * a mutable list, like Collectors.toList()
+     */
+    public static <T> List<T> toList(Stream<? extends T> stream) {
+        T[] elements = toArray(stream);
+        for (T element : elements) {
+            Objects.requireNonNull(element);
+        }
+        return new ArrayList<>(Arrays.asList(elements));
+    }
+
+    public static <T> Set<T> toSet(Stream<? extends T> stream) {
+        boolean parallel = stream.isParallel();
+        T[] elements = toArray(stream);
+        if (parallel && elements.length >= PARALLEL_THRESHOLD) {
+            return toPartitionedSet(elements);
+        }
+        Set<T> set = new HashSet<>(capacity(elements.length));
+        for (T element : elements) {
+            set.add(Objects.requireNonNull(element));
+        }
+        return set;
+    }
+
+    /**
+     * like Collectors.toMap(keyMapper, valueMapper): an IllegalStateException if a key occurs twice
+     */
+    public static <T, K, V> Map<K, V> toMap(Stream<? extends T> stream,
+                                            Function<? super T, ? extends K> keyMapper,
+                                            Function<? super T, ? extends V> valueMapper) {
+        return toMap(stream, keyMapper, valueMapper, null);
+    }
+
+    /**
+     * like Collectors.toMap(keyMapper, valueMapper, mergeFunction)
+     */
+    public static <T, K, V> Map<K, V> toMap(Stream<? extends T> stream,
+                                            Function<? super T, ? extends K> keyMapper,
+                                            Function<? super T, ? extends V> valueMapper,
+                                            BinaryOperator<V> mergeFunction) {
+        boolean parallel = stream.isParallel();
+        T[] elements = toArray(stream);
+        if (parallel && elements.length >= PARALLEL_THRESHOLD) {
+            return toPartitionedMap(elements, keyMapper, valueMapper, mergeFunction);
+        }
+        Map<K, V> map = new HashMap<>(capacity(elements.length));
+        for (T element : elements) {
+            put(map, Objects.requireNonNull(keyMapper.apply(element)),
+                    Objects.requireNonNull(valueMapper.apply(element)), mergeFunction);
+        }
+        return map;
+    }
+
+    private static <K, V> void put(Map<K, V> map, K key, V value, BinaryOperator<V> mergeFunction) {
+        if (mergeFunction != null) {
+            map.merge(key, value, mergeFunction);
+        } else {
+            V old = map.putIfAbsent(key, value);
+            if (old != null) {
+                throw duplicateKey(key, old, value);
+            }
+        }
+    }
+
+    /**
+     * Like Collectors.toConcurrentMap(): a parallel stream puts its elements into a single ConcurrentHashMap
+     * from all threads (its bins are locked separately, so threads rarely wait for each other).
+     * Merges see the values in no particular order; without a merge function (null),
+     * a duplicate key is an IllegalStateException, like Collectors.toConcurrentMap(keyMapper, valueMapper).
+     */
+    public static <T, K, V> ConcurrentMap<K, V> toConcurrentMap(Stream<? extends T> stream,
+                                                                Function<? super T, ? extends K> keyMapper,
+                                                                Function<? super T, ? extends V> valueMapper,
+                                                                BinaryOperator<V> mergeFunction) {
+        Spliterator<? extends T> spliterator = stream.spliterator();
+        long size = spliterator.getExactSizeIfKnown();
+        ConcurrentMap<K, V> map = size < 0 ? new ConcurrentHashMap<>()
+                : new ConcurrentHashMap<>((int) Math.min(size, 1 << 30));  // sized for size entries
+        StreamSupport.stream(spliterator, stream.isParallel()).forEach(t -> {
+            K key = keyMapper.apply(t);
+            V value = valueMapper.apply(t);
+            if (mergeFunction != null) {
+                map.merge(key, value, mergeFunction);
+            } else {
+                V old = map.putIfAbsent(key, value);
+                if (old != null) {
+                    throw duplicateKey(key, old, value);
+                }
+            }
+        });
+        return map;
+    }
+
+    public static <T> int[] toIntArray(Stream<? extends T> stream, ToIntFunction<? super T> mapper) {
+        return stream.mapToInt(mapper).toArray();
+    }
+
+    /**
+     * like toMap(stream, keyMapper, valueMapper, mergeFunction), into an IntIntMap:
+     * without a merge function (null), an IllegalStateException if a key occurs twice
+     */
+    public static <T> IntIntMap toIntIntMap(Stream<? extends T> stream,
+                                            ToIntFunction<? super T> keyMapper,
+                                            ToIntFunction<? super T> valueMapper,
+                                            IntBinaryOperator mergeFunction) {
+        long[] entries = stream
+                .mapToLong(t -> IntIntMap.entry(keyMapper.applyAsInt(t), valueMapper.applyAsInt(t)))
+                .toArray();
+        IntIntMap map = new IntIntMap(entries.length);
+        for (long entry : entries) {
+            int key = IntIntMap.key(entry);
+            int value = IntIntMap.value(entry);
+            if (mergeFunction != null) {
+                map.merge(key, value, mergeFunction);
+            } else if (!map.putIfAbsent(key, value)) {
+                throw duplicateKey(key, map.get(key, 0), value);
+            }
+        }
+        return map;
+    }
+
+
+    // ---------------------------------------- parallel builds ----------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T> toPartitionedSet(T[] elements) {
+        Partitions partitions = new Partitions(elements);
+        Set<T>[] parts = (Set<T>[]) new Set<?>[partitions.count()];
+        IntStream.range(0, parts.length).parallel().forEach(p -> {
+            Set<T> set = new HashSet<>(capacity(partitions.size(p)));
+            for (int j = partitions.start[p], end = partitions.start[p + 1]; j < end; j++) {
+                set.add(elements[partitions.order[j]]);
+            }
+            parts[p] = set;
+        });
+        return new PartitionedSet<>(parts, partitions.shift);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, K, V> Map<K, V> toPartitionedMap(T[] elements,
+                                                        Function<? super T, ? extends K> keyMapper,
+                                                        Function<? super T, ? extends V> valueMapper,
+                                                        BinaryOperator<V> mergeFunction) {
+        Object[] keys = new Object[elements.length];
+        Object[] values = new Object[elements.length];
+        IntStream.range(0, elements.length).parallel().forEach(i -> {
+            keys[i] = Objects.requireNonNull(keyMapper.apply(elements[i]));
+            values[i] = Objects.requireNonNull(valueMapper.apply(elements[i]));
+        });
+        Partitions partitions = new Partitions(keys);
+        Map<K, V>[] parts = (Map<K, V>[]) new Map<?, ?>[partitions.count()];
+        IntStream.range(0, parts.length).parallel().forEach(p -> {
+            Map<K, V> map = new HashMap<>(capacity(partitions.size(p)));
+            for (int j = partitions.start[p], end = partitions.start[p + 1]; j < end; j++) {
+                int i = partitions.order[j];
+                put(map, (K) keys[i], (V) values[i], mergeFunction);
+            }
+            parts[p] = map;
+        });
+        return new PartitionedMap<>(parts, partitions.shift);
+    }
+
+    // the partition of a key: the high bits of its hash times the golden ratio (Fibonacci hashing),
+    // which do not depend on the low bits only, as the buckets of the HashMap of the partition do
+    private static int partition(Object key, int shift) {
+        return key == null ? 0 : (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * The indexes of the keys, grouped by partition; within a partition in encounter order.
+     */
+    private static final class Partitions {
+        final int shift;
+        final int[] start;  // partition p is order[start[p] .. start[p + 1])
+        final int[] order;
+
+        Partitions(Object[] keys) {
+            // a few partitions per thread, so that the threads are balanced (at least 4, so shift < 32)
+            int count = Integer.highestOneBit(4 * ForkJoinPool.getCommonPoolParallelism() - 1) << 1;
+            int shift = 32 - Integer.numberOfTrailingZeros(count);
+            this.shift = shift;
+            int[] partition = new int[keys.length];
+            IntStream.range(0, keys.length).parallel()
+                    .forEach(i -> partition[i] = partition(Objects.requireNonNull(keys[i]), shift));
+            // a counting sort, which keeps the encounter order
+            start = new int[count + 1];
+            for (int p : partition) {
+                start[p + 1]++;
+            }
+            for (int p = 0; p < count; p++) {
+                start[p + 1] += start[p];
+            }
+            int[] next = Arrays.copyOf(start, count);
+            order = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                order[next[partition[i]]++] = i;
+            }
+        }
+
+        int count() {
+            return start.length - 1;
+        }
+
+        int size(int p) {
+            return start[p + 1] - start[p];
+        }
+    }
+
+    /**
+     * A HashSet split into the HashSets of the partitions
+     */
+    private static final class PartitionedSet<E> extends AbstractSet<E> {
+        private final Set<E>[] parts;
+        private final int shift;
+
+        PartitionedSet(Set<E>[] parts, int shift) {
+            this.parts = parts;
+            this.shift = shift;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Set<E> part : parts) {
+                size += part.size();
+            }
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return parts[partition(o, shift)].contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            return parts[partition(e, shift)].add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return parts[partition(o, shift)].remove(o);
+        }
+
+        @Override
+        public void clear() {
+            for (Set<E> part : parts) {
+                part.clear();
+            }
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new PartsIterator<>(parts);
+        }
+    }
+
+    /**
+     * A HashMap split into the HashMaps of the partitions
+     */
+    private static final class PartitionedMap<K, V> extends AbstractMap<K, V> {
+        private final Map<K, V>[] parts;
+        private final int shift;
+
+        PartitionedMap(Map<K, V>[] parts, int shift) {
+            this.parts = parts;
+            this.shift = shift;
+        }
+
+        private Map<K, V> part(Object key) {
+            return parts[partition(key, shift)];
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Map<K, V> part : parts) {
+                size += part.size();
+            }
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return part(key).containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return part(key).get(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return part(key).put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return part(key).remove(key);
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            return part(key).putIfAbsent(key, value);
+        }
+
+        @Override
+        public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+            return part(key).merge(key, value, remappingFunction);
+        }
+
+        @Override
+        public void clear() {
+            for (Map<K, V> part : parts) {
+                part.clear();
+            }
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public int size() {
+                    return PartitionedMap.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    List<Set<Entry<K, V>>> entrySets = new ArrayList<>(parts.length);
+                    for (Map<K, V> part : parts) {
+                        entrySets.add(part.entrySet());
+                    }
+                    return new PartsIterator<>(entrySets.toArray(new Set<?>[0]));
+                }
+            };
+        }
+    }
+
+    // the elements of the parts, one part after the other; remove() removes from the part of the last element
+    private static final class PartsIterator<E> implements Iterator<E> {
+        private final Collection<?>[] parts;
+        private int next;                                     // the next part
+        private Iterator<?> current = Collections.emptyIterator();
+        private Iterator<?> last = current;                   // the iterator of the last element
+
+        PartsIterator(Collection<?>[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && next < parts.length) {
+                current = parts[next++].iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = current;
+            return (E) current.next();
+        }
+
+        @Override
+        public void remove() {
+            last.remove();
+        }
+    }
+
+
+    // ----------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] toArray(Stream<? extends T> stream) {
+        return (T[]) stream.toArray();
+    }
+
+    // the initial capacity of a HashMap or HashSet which holds size entries without growing
+    private static int capacity(int size) {
+        return (int) Math.min(1 << 30, size / 0.75 + 1);
+    }
+
+    private static IllegalStateException duplicateKey(Object key, Object a, Object b) {
+        return new IllegalStateException(
+                String.format("Duplicate key %s (attempted merging values %s and %s)", key, a, b));
+    }
+}
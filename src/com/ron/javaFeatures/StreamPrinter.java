@@ -0,0 +1,171 @@
+package com.ron.javaFeatures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Prints a (possibly huge or infinite) stream in the format "text = a, b, c, " with bounded memory.
+ *
+ * Elements are taken from the stream in encounter order (also for parallel streams) in windows
+ * of a few chunks. The chunks of a window are converted to text in parallel, each into its own
+ * reusable StringBuilder, and then written in order. So at most (chunks per window * chunkSize)
+ * elements are held at any time, and at most limit elements are printed.
+ *
+ * The output is either an Appendable (e.g. System.out), which gets the elements as a single line,
+ * or a PrintSink, which gets one line per window, as sinks print whole lines.
+ *
+ * A StreamPrinter is not thread safe: current() returns the printer of the calling thread,
+ * whose chunk arrays and builders are reused from one call to the next.
+ */
+public class StreamPrinter {
+
+    // builders which grew larger than this (huge elements) are not kept for the next call
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private static final ThreadLocal<StreamPrinter> PRINTERS = ThreadLocal.withInitial(StreamPrinter::new);
+
+    // a window of formatted text: texts[0] is the text before the elements, texts[1 .. length) the chunks
+    private interface Output {
+        void write(StringBuilder[] texts, int length, boolean isFirstWindow, boolean isLastWindow) throws IOException;
+    }
+
+    private final Object[][] chunks;
+    private final StringBuilder[] texts;
+    private final StringBuilder line = new StringBuilder();  // a window for a PrintSink
+
+    public StreamPrinter() {
+        int numChunks = Runtime.getRuntime().availableProcessors() * 2;
+        chunks = new Object[numChunks][];
+        texts = new StringBuilder[numChunks + 1];
+        for (int i = 0; i <= numChunks; i++) {
+            texts[i] = new StringBuilder();
+        }
+    }
+
+    /**
+     * the printer of the calling thread
+     */
+    public static StreamPrinter current() {
+        return PRINTERS.get();
+    }
+
+    /**
+     * Print at most limit elements of the stream to out, on a single line; returns the number printed.
+     */
+    public long print(Appendable out, String text, Stream<?> stream, int chunkSize, long limit) {
+        return print(text, stream, chunkSize, limit, (texts, length, isFirstWindow, isLastWindow) -> {
+            for (int i = 0; i < length; i++) {
+                out.append(texts[i]);
+            }
+            if (isLastWindow) {
+                out.append(System.lineSeparator());
+            }
+        });
+    }
+
+    /**
+     * Print at most limit elements of the stream to the sink, one line per window of elements;
+     * returns the number printed.
+     */
+    public long print(PrintSink sink, String text, Stream<?> stream, int chunkSize, long limit) {
+        return print(text, stream, chunkSize, limit, (texts, length, isFirstWindow, isLastWindow) -> {
+            if (length == 1 && !isFirstWindow) {
+                return;  // empty last window
+            }
+            line.setLength(0);
+            for (int i = 0; i < length; i++) {
+                line.append(texts[i]);
+            }
+            sink.println(true, line.toString());
+        });
+    }
+
+    private long print(String text, Stream<?> stream, int chunkSize, long limit, Output output) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize = " + chunkSize);
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == null || chunks[i].length != chunkSize) {
+                chunks[i] = new Object[chunkSize];
+            }
+        }
+        Iterator<?> iterator = stream.iterator();
+        long count = 0;
+        boolean first = true;
+        boolean done = false;
+        try {
+            while (!done) {
+                // fill a window of chunks, sequentially and in encounter order
+                int numChunks = 0;
+                int lastChunkSize = 0;
+                while (numChunks < chunks.length && !done) {
+                    Object[] chunk = chunks[numChunks];
+                    int n = 0;
+                    while (n < chunkSize && count < limit && iterator.hasNext()) {
+                        chunk[n++] = iterator.next();
+                        count++;
+                    }
+                    done = n < chunkSize || count >= limit;
+                    if (n > 0) {
+                        lastChunkSize = n;
+                        numChunks++;
+                    }
+                }
+                int filled = numChunks;
+                int lastSize = lastChunkSize;
+
+                StringBuilder frame = texts[0];
+                frame.setLength(0);
+                if (first) {
+                    frame.append(text).append(" = ");
+                }
+                if (filled > 0) {
+                    IntStream indexes = IntStream.range(0, filled);
+                    if (filled > 1) {
+                        indexes = indexes.parallel();
+                    }
+                    indexes.forEach(i -> formatChunk(i, i == filled - 1 ? lastSize : chunkSize));
+                }
+                output.write(texts, filled + 1, first, done);
+                first = false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release();
+        }
+        return count;
+    }
+
+    private void formatChunk(int chunk, int size) {
+        Object[] elements = chunks[chunk];
+        StringBuilder sb = texts[chunk + 1];
+        sb.setLength(0);
+        for (int i = 0; i < size; i++) {
+            sb.append(elements[i]).append(", ");
+            elements[i] = null;
+        }
+    }
+
+    // drop the references to the elements, and the builders which grew too large
+    private void release() {
+        for (Object[] chunk : chunks) {
+            Arrays.fill(chunk, null);
+        }
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i].capacity() > MAX_RETAINED_CHARS) {
+                texts[i] = new StringBuilder();
+            } else {
+                texts[i].setLength(0);
+            }
+        }
+        line.setLength(0);
+        if (line.capacity() > MAX_RETAINED_CHARS) {
+            line.trimToSize();
+        }
+    }
+}
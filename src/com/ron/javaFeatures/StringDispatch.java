@@ -0,0 +1,261 @@
+package com.ron.javaFeatures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A dispatch table from String keys to actions (or any values), compiled once and looked up
+ * without hashing the key: an alternative to a switch on String with many cases.
+ *
+ * A switch on String calls key.hashCode() (which reads every character of a new String),
+ * then equals(). The table is a decision tree instead: first on the length of the key, then on the
+ * character at the position which best separates the keys left, until one key is left,
+ * which is compared with equals(). So a lookup reads only a few characters before the final comparison,
+ * and a key which matches no case usually fails after a character or two.
+ *
+ * Several keys can share one action, like case labels which fall through to the same statements:
+ *   StringDispatch<Runnable> dispatch = StringDispatch.<Runnable>builder()
+ *           .on(() -> ..., "abc")
+ *           .on(() -> ..., "foo", "bar", "janfu")
+ *           .otherwise(() -> ...)
+ *           .build();
+ *   dispatch.get(s).run();
+ *
+ * A StringDispatch is immutable and thread safe.
+ */
+public final class StringDispatch<A> {
+
+    // node types of the compiled tree, which is an int[] program:
+    //   LEAF   key index
+    //   TABLE  position, first char, number of chars, child offsets (-1: no key)
+    //   SEARCH position, number of chars, the chars (sorted), child offsets
+    private static final int LEAF = 0;
+    private static final int TABLE = 1;
+    private static final int SEARCH = 2;
+    private static final int MAX_TABLE_SPAN = 64;
+
+    private final String[] keys;
+    private final A[] actions;   // of each key
+    private final A otherwise;
+    private final int[] roots;   // offset in program of the tree for each key length, or -1
+    private final int[] program;
+
+    private StringDispatch(String[] keys, A[] actions, A otherwise) {
+        this.keys = keys;
+        this.actions = actions;
+        this.otherwise = otherwise;
+        int maxLength = 0;
+        for (String key : keys) {
+            maxLength = Math.max(maxLength, key.length());
+        }
+        this.roots = new int[maxLength + 1];
+        Arrays.fill(roots, -1);
+        Compiler compiler = new Compiler();
+        for (int length = 0; length <= maxLength; length++) {
+            List<Integer> sameLength = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length() == length) {
+                    sameLength.add(i);
+                }
+            }
+            if (!sameLength.isEmpty()) {
+                roots[length] = compiler.compile(sameLength);
+            }
+        }
+        this.program = compiler.program();
+    }
+
+    public static <A> Builder<A> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * the action of key, or the otherwise action (null if there is none); key must not be null, as in a switch
+     */
+    public A get(String key) {
+        int length = key.length();
+        if (length >= roots.length) {
+            return otherwise;
+        }
+        int[] p = program;
+        int node = roots[length];
+        while (node >= 0) {
+            switch (p[node]) {
+                case LEAF: {
+                    int index = p[node + 1];
+                    return keys[index].equals(key) ? actions[index] : otherwise;
+                }
+                case TABLE: {
+                    int c = key.charAt(p[node + 1]) - p[node + 2];
+                    if (c < 0 || c >= p[node + 3]) {
+                        return otherwise;
+                    }
+                    node = p[node + 4 + c];
+                    break;
+                }
+                default: {  // SEARCH
+                    char c = key.charAt(p[node + 1]);
+                    int n = p[node + 2];
+                    int low = node + 3;
+                    int high = low + n - 1;
+                    node = -1;
+                    while (low <= high) {
+                        int mid = (low + high) >>> 1;
+                        if (p[mid] < c) {
+                            low = mid + 1;
+                        } else if (p[mid] > c) {
+                            high = mid - 1;
+                        } else {
+                            node = p[mid + n];
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return otherwise;
+    }
+
+    /**
+     * number of keys
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    // builds the program, depth first
+    private final class Compiler {
+        private int[] code = new int[64];
+        private int size;
+
+        int[] program() {
+            return Arrays.copyOf(code, size);
+        }
+
+        private int allocate(int n) {
+            if (size + n > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, size + n));
+            }
+            int offset = size;
+            size += n;
+            return offset;
+        }
+
+        // the tree for keys (indexes) of the same length, which differ somewhere
+        int compile(List<Integer> candidates) {
+            if (candidates.size() == 1) {
+                int node = allocate(2);
+                code[node] = LEAF;
+                code[node + 1] = candidates.get(0);
+                return node;
+            }
+            int position = bestPosition(candidates);
+            char[] chars = distinctChars(candidates, position);
+            int n = chars.length;
+            int span = chars[n - 1] - chars[0] + 1;
+            int node;
+            int children;
+            if (span <= MAX_TABLE_SPAN) {
+                node = allocate(4 + span);
+                code[node] = TABLE;
+                code[node + 1] = position;
+                code[node + 2] = chars[0];
+                code[node + 3] = span;
+                children = node + 4;
+                Arrays.fill(code, children, children + span, -1);
+            } else {
+                node = allocate(3 + 2 * n);
+                code[node] = SEARCH;
+                code[node + 1] = position;
+                code[node + 2] = n;
+                for (int i = 0; i < n; i++) {
+                    code[node + 3 + i] = chars[i];
+                }
+                children = node + 3 + n;
+            }
+            for (int i = 0; i < n; i++) {
+                List<Integer> subset = new ArrayList<>();
+                for (int candidate : candidates) {
+                    if (keys[candidate].charAt(position) == chars[i]) {
+                        subset.add(candidate);
+                    }
+                }
+                int child = compile(subset);  // may move code
+                int slot = span <= MAX_TABLE_SPAN ? children + chars[i] - chars[0] : children + i;
+                code[slot] = child;
+            }
+            return node;
+        }
+
+        // the position with the most distinct characters among the candidates
+        private int bestPosition(List<Integer> candidates) {
+            int length = keys[candidates.get(0)].length();
+            int best = -1;
+            int bestCount = 1;
+            for (int position = 0; position < length; position++) {
+                int count = distinctChars(candidates, position).length;
+                if (count > bestCount) {
+                    best = position;
+                    bestCount = count;
+                }
+            }
+            return best;  // >= 0, as the keys are distinct
+        }
+
+        private char[] distinctChars(List<Integer> candidates, int position) {
+            char[] chars = new char[candidates.size()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = keys[candidates.get(i)].charAt(position);
+            }
+            Arrays.sort(chars);
+            int n = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (i == 0 || chars[i] != chars[i - 1]) {
+                    chars[n++] = chars[i];
+                }
+            }
+            return Arrays.copyOf(chars, n);
+        }
+    }
+
+    public static final class Builder<A> {
+        private final List<String> keys = new ArrayList<>();
+        private final List<A> actions = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+        private A otherwise;
+
+        private Builder() {
+        }
+
+        /**
+         * the action for one or more keys (a group of case labels)
+         */
+        public final Builder<A> on(A action, String... keys) {
+            for (String key : keys) {
+                if (!seen.add(Objects.requireNonNull(key, "key"))) {
+                    throw new IllegalArgumentException("duplicate key: " + key);
+                }
+                this.keys.add(key);
+                actions.add(action);
+            }
+            return this;
+        }
+
+        /**
+         * the action for all other keys (like default in a switch)
+         */
+        public Builder<A> otherwise(A action) {
+            otherwise = action;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public StringDispatch<A> build() {
+            return new StringDispatch<>(keys.toArray(new String[0]), (A[]) actions.toArray(), otherwise);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.ron.javaFeatures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming replacements for Files.readString() and Files.writeString(), in constant memory.
+ *
+ * lines() reads a file incrementally and returns the same lines as Files.readString(file).lines()
+ * (split on "\n", "\r" or "\r\n", without a trailing empty line), but only reads as far as the stream
+ * is consumed, so a slow consumer holds back the reading. Bytes are read into a pooled direct buffer
+ * and decoded into a small char buffer by one CharsetDecoder, which is reused for the whole file.
+ *
+ * newWriter() and write() encode text through a pooled direct buffer, optionally written with an
+ * AsynchronousFileChannel: a buffer is encoded while the previous one is being written, and at most
+ * one write is in flight, so a slow disk holds back the writer.
+ *
+ * Malformed input is reported, as by Files.readString(), with an UncheckedIOException
+ * (a CharacterCodingException is the cause).
+ */
+public final class TextFiles {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    // The channels read and write the pooled direct buffers, but the coders work on heap buffers,
+    // copied to and from the direct ones in bulk: the UTF-8 coders are about 10x faster between arrays.
+
+    private TextFiles() {
+    }
+
+    // ---------------------------------------- reading ----------------------------------------
+
+    public static Stream<String> lines(Path file) throws IOException {
+        return lines(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The lines of the file, as String.lines() would split them.
+     * The stream keeps the file open; close it, like Files.lines().
+     */
+    public static Stream<String> lines(Path file, Charset charset) throws IOException {
+        LineDecoder decoder = new LineDecoder(FileChannel.open(file, StandardOpenOption.READ), charset);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<String>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                String line = decoder.readLine();
+                if (line == null) {
+                    return false;
+                }
+                action.accept(line);
+                return true;
+            }
+        }, false).onClose(decoder::close);
+    }
+
+    private static final class LineDecoder implements Closeable {
+        private final FileChannel channel;
+        private final CharsetDecoder decoder;
+        private final ByteBuffer io;     // pooled direct buffer, filled from the channel
+        private final ByteBuffer bytes;  // copied from io, for the decoder
+        private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        private final StringBuilder line = new StringBuilder();  // for lines which span several fills
+        private boolean endOfInput;      // all bytes have been read
+        private boolean flushing;        // ... and decoded: only decoder.flush() may be called now
+        private boolean flushed;         // ... and flushed
+        private boolean skipLineFeed;    // the last line ended with '\r'
+
+        LineDecoder(FileChannel channel, Charset charset) {
+            this.channel = channel;
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            this.io = BufferPool.SHARED.acquire();
+            this.bytes = ByteBuffer.allocate(io.capacity());
+            chars.flip();
+        }
+
+        String readLine() {
+            char[] a = chars.array();
+            boolean any = false;
+            line.setLength(0);
+            while (chars.hasRemaining() || fill()) {
+                int start = chars.position();
+                int limit = chars.limit();
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (a[start] == '\n') {
+                        chars.position(++start);
+                        continue;
+                    }
+                }
+                int i = start;
+                while (i < limit && a[i] != '\n' && a[i] != '\r') {
+                    i++;
+                }
+                if (i < limit) {
+                    skipLineFeed = a[i] == '\r';
+                    chars.position(i + 1);
+                    return line.length() == 0 ? new String(a, start, i - start) : line.append(a, start, i - start).toString();
+                }
+                line.append(a, start, i - start);
+                chars.position(limit);
+                any = true;
+            }
+            return any ? line.toString() : null;
+        }
+
+        // decode more chars; false at the end of the file
+        private boolean fill() {
+            try {
+                chars.clear();
+                while (chars.position() == 0 && !flushed) {
+                    if (!flushing) {
+                        if (!endOfInput) {
+                            io.clear().limit(bytes.remaining());
+                            if (channel.read(io) < 0) {
+                                endOfInput = true;
+                            }
+                            bytes.put(io.flip());
+                        }
+                        bytes.flip();
+                        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                        if (result.isError()) {
+                            result.throwException();
+                        }
+                        bytes.compact();
+                        flushing = endOfInput && !result.isOverflow();
+                    }
+                    if (flushing) {
+                        // may overflow too, if the charset writes chars when flushed: then flush again next time
+                        flushed = decoder.flush(chars).isUnderflow();
+                    }
+                }
+                chars.flip();
+                return chars.hasRemaining();
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                BufferPool.SHARED.release(io);
+            }
+        }
+    }
+
+    // ---------------------------------------- writing ----------------------------------------
+
+    /**
+     * write the text to the file (created or truncated), like Files.writeString(); returns the file
+     */
+    public static Path writeString(Path file, CharSequence text) throws IOException {
+        try (TextWriter writer = newWriter(file, StandardCharsets.UTF_8, false)) {
+            writer.append(text);
+        }
+        return file;
+    }
+
+    /**
+     * write each line followed by '\n' to the file (created or truncated); returns the file
+     */
+    public static Path write(Path file, Stream<? extends CharSequence> lines, boolean async) throws IOException {
+        try (TextWriter writer = newWriter(file, StandardCharsets.UTF_8, async)) {
+            lines.forEachOrdered(line -> writer.append(line).append('\n'));
+        }
+        return file;
+    }
+
+    public static TextWriter newWriter(Path file, Charset charset, boolean async) throws IOException {
+        return new TextWriter(file, charset, async);
+    }
+
+    /**
+     * Writes text to a file (created or truncated) through a fixed amount of memory.
+     * Not thread safe.
+     */
+    public static final class TextWriter implements Appendable, Closeable {
+        private final FileChannel channel;               // if synchronous
+        private final AsynchronousFileChannel asyncChannel;  // if asynchronous
+        private final CharsetEncoder encoder;
+        private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        private final ByteBuffer bytes;  // encoded into, then copied to io
+        private ByteBuffer io;           // pooled direct buffer, written to the channel
+        private ByteBuffer spare;        // for asynchronous writes: the other direct buffer, free or being written
+        private Future<Integer> pending; // the write in flight, of spare
+        private long position;           // in the file, of the next asynchronous write
+        private boolean closed;
+
+        private TextWriter(Path file, Charset charset, boolean async) throws IOException {
+            StandardOpenOption[] options = {StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING};
+            this.channel = async ? null : FileChannel.open(file, options);
+            this.asyncChannel = async ? AsynchronousFileChannel.open(file, options) : null;
+            this.encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            this.io = BufferPool.SHARED.acquire();
+            this.bytes = ByteBuffer.allocate(io.capacity());
+            this.spare = async ? BufferPool.SHARED.acquire() : null;
+        }
+
+        @Override
+        public TextWriter append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public TextWriter append(CharSequence csq, int start, int end) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            int i = start;
+            while (i < end) {
+                if (!chars.hasRemaining()) {
+                    encode(false);
+                }
+                int n = Math.min(end - i, chars.remaining());
+                if (csq instanceof String) {
+                    chars.put((String) csq, i, i + n);
+                } else {
+                    for (int j = i; j < i + n; j++) {
+                        chars.put(csq.charAt(j));
+                    }
+                }
+                i += n;
+            }
+            return this;
+        }
+
+        @Override
+        public TextWriter append(char c) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            chars.put(c);
+            return this;
+        }
+
+        // encode the buffered chars, writing the bytes whenever the byte buffer is full
+        // (without endOfInput, a trailing high surrogate is kept for the next call)
+        private void encode(boolean endOfInput) {
+            try {
+                chars.flip();
+                CoderResult result;
+                do {
+                    result = encoder.encode(chars, bytes, endOfInput);
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    if (result.isOverflow()) {
+                        writeBytes();
+                    }
+                } while (result.isOverflow());
+                if (endOfInput) {
+                    while (encoder.flush(bytes).isOverflow()) {
+                        writeBytes();
+                    }
+                }
+                chars.compact();
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeBytes() {
+            try {
+                io.clear();
+                io.put(bytes.flip());
+                io.flip();
+                bytes.clear();
+                if (asyncChannel == null) {
+                    while (io.hasRemaining()) {
+                        channel.write(io);
+                    }
+                } else {
+                    awaitPending();
+                    ByteBuffer writing = io;
+                    io = spare;
+                    spare = writing;
+                    pending = asyncChannel.write(writing, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // wait for the write in flight (and write the rest of its buffer, if it was a partial write)
+        private void awaitPending() throws IOException {
+            try {
+                while (pending != null) {
+                    position += pending.get();
+                    pending = spare.hasRemaining() ? asyncChannel.write(spare, position) : null;
+                }
+                spare.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while writing", e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                try {
+                    encode(true);
+                    writeBytes();
+                    if (asyncChannel != null) {
+                        awaitPending();
+                    }
+                } finally {
+                    if (asyncChannel != null) {
+                        asyncChannel.close();
+                    } else {
+                        channel.close();
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                BufferPool.SHARED.release(io);
+                if (spare != null && pending == null) {
+                    BufferPool.SHARED.release(spare);
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.ron.javaFeatures;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -25,15 +30,30 @@ public interface Utils {
      */
     static List<Integer> getRandomList(int maxItems, int minValue, int maxValue) {
         final int numItems = (int) (Math.random() * maxItems);
-        logger.fine("list has " + numItems + " items");
-        List<Integer> myList = new ArrayList<>();
-        for (int i = 0; i < numItems; i++)
-            myList.add(getRandomInt(minValue, maxValue));
-        return myList;
+        logger.fine(() -> "list has " + numItems + " items");
+        return RandomInts.asList(RandomInts.array(numItems, minValue, maxValue));
     }
 
+    /**
+     * reproducible version of getRandomList: the same seed always gives the same list
+     */
+    static List<Integer> getRandomList(int maxItems, int minValue, int maxValue, long seed) {
+        final int numItems = maxItems <= 0 ? 0 : new SplittableRandom(seed).nextInt(maxItems);
+        logger.fine(() -> "list has " + numItems + " items");
+        return RandomInts.asList(RandomInts.array(numItems, minValue, maxValue, seed));
+    }
+
+    /**
+     * same as getRandomList, but built with a (sized and splittable) stream, which runs in parallel for large lists
+     */
     static List<Integer> getRandomListByStream(int maxItems, int minValue, int maxValue) {
-        return IntStream.iterate(0, i -> i < getRandomInt(minValue, maxValue), i -> getRandomInt(minValue, maxValue)).mapToObj(Integer::valueOf).collect(Collectors.toList());
+        final int numItems = (int) (Math.random() * maxItems);
+        logger.fine(() -> "list has " + numItems + " items");
+        IntStream stream = RandomInts.stream(numItems, minValue, maxValue);
+        if (numItems > RandomInts.PARALLEL_THRESHOLD) {
+            stream = stream.parallel();
+        }
+        return stream.boxed().collect(Collectors.toList());
     }
 
     static Map<Integer, Integer> getRandomMap(int maxValue, int maxItems) {
@@ -43,7 +63,21 @@ public interface Utils {
         for (int i = min; i < max; i++) {
             map.put(i, i * i);
         }
-        logger.fine("map has " + map.size() + " items");
+        logger.fine(() -> "map has " + map.size() + " items");
+        return map;
+    }
+
+    /**
+     * like getRandomMap(maxValue, maxItems), as an IntIntMap (no boxing)
+     */
+    static IntIntMap getRandomIntIntMap(int maxValue, int maxItems) {
+        int min = Utils.getRandomInt(1, maxValue - maxItems);
+        int max = min + Utils.getRandomInt(1, maxItems);
+        IntIntMap map = new IntIntMap(max - min);
+        for (int i = min; i < max; i++) {
+            map.put(i, i * i);
+        }
+        logger.fine(() -> "map has " + map.size() + " items");
         return map;
     }
 
@@ -55,22 +89,56 @@ public interface Utils {
 
     // ----------------------------------------
     // Printing Section
-    // TODO: replace System.out.println() and System.err.println() with logging
+    // Output goes to a PrintSink: System.out / System.err by default,
+    // or, opt-in with -Dutils.print.log=true, the java.util.logging logger of Utils (see LoggerPrintSink);
+    // the default stays System.out so that the examples print plain lines.
+    // print() returns the printed text, or "" when the sink is not interested (e.g. the log level is disabled),
+    // in which case the text is not even built.
 
     static String print(Object o) {
         return print(true, o);
     }
 
     static String print(boolean isOk, Object o) {
-        String s = o == null ? "" : o.toString();
-        if (isOk) {
-            System.out.println(s);
-        } else {
-            System.err.println(s);
+        PrintSink sink = SINK.get();
+        if (!sink.isEnabled(isOk)) {
+            return "";
         }
+        String s = o == null ? "" : o.toString();
+        sink.println(isOk, s);
         return s;
     }
 
+    /**
+     * lazy printing: the message is only computed if it will be printed
+     */
+    static String print(Supplier<String> message) {
+        return print(true, message);
+    }
+
+    static String printerr(Supplier<String> message) {
+        return print(false, message);
+    }
+
+    static String print(boolean isOk, Supplier<String> message) {
+        return print(isOk, (Object) (SINK.get().isEnabled(isOk) ? message.get() : null));
+    }
+
+    /**
+     * where print() and printerr() send their output
+     */
+    AtomicReference<PrintSink> SINK = new AtomicReference<>(
+            Boolean.getBoolean("utils.print.log") ? new LoggerPrintSink(logger) : PrintSink.SYSTEM);
+
+    /**
+     * install a new sink and return the previous one (which is flushed)
+     */
+    static PrintSink setSink(PrintSink sink) {
+        PrintSink previous = SINK.getAndSet(Objects.requireNonNull(sink));
+        previous.flush();
+        return previous;
+    }
+
     char SPACE = ' ';
 
     static String print(Object... objects) {
@@ -83,41 +151,171 @@ public interface Utils {
 
     @SafeVarargs // really?
     static String print(boolean isOk, char delimiter, Object... objects) {
-        StringBuilder sb = new StringBuilder();
+        if (!SINK.get().isEnabled(isOk)) {
+            return "";
+        }
+        StringBuilder sb = PrintBuffer.acquire();  // reused, per thread
+        try {
+            return print(isOk, format(sb, delimiter, objects));
+        } finally {
+            PrintBuffer.release(sb);
+        }
+    }
+
+    /**
+     * append the non-null objects, separated by the delimiter, to sb or any other Appendable;
+     * this is the format used by print()
+     */
+    static <A extends Appendable> A format(A out, char delimiter, Object... objects) {
+        if (out instanceof StringBuilder) {
+            format((StringBuilder) out, delimiter, objects);
+            return out;
+        }
+        try {
+            boolean isEmpty = true;
+            for (Object o : objects) {
+                if (o != null) {
+                    // CharSequences (e.g. StringBuilder) are appended without a toString() copy
+                    CharSequence cs = o instanceof CharSequence ? (CharSequence) o : o.toString();
+                    if (!isEmpty) {
+                        out.append(delimiter);
+                    }
+                    out.append(cs);
+                    isEmpty = isEmpty && cs.length() == 0;
+                }
+            }
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StringBuilder format(StringBuilder sb, char delimiter, Object... objects) {
+        final int start = sb.length();
         for (Object o : objects) {
             if (o != null) {
-                if (sb.length() > 0) {
+                if (sb.length() > start) {
                     sb.append(delimiter);
                 }
-                sb.append(o.toString());
+                // append numbers and CharSequences without an intermediate String
+                // (class checks first: instanceof an interface such as CharSequence is slow when it fails)
+                if (o instanceof String) {
+                    sb.append((String) o);  // append(String) is much faster than append(CharSequence)
+                } else if (o instanceof Integer) {
+                    sb.append(((Integer) o).intValue());
+                } else if (o instanceof Long) {
+                    sb.append(((Long) o).longValue());
+                } else if (o instanceof Double) {
+                    sb.append(((Double) o).doubleValue());
+                } else if (o instanceof CharSequence) {
+                    sb.append((CharSequence) o);
+                } else {
+                    sb.append(o.toString());
+                }
             }
         }
-        return print(isOk, sb);
+        return sb;
+    }
+
+    // Primitive variants: print a label and a value without boxing the value or allocating a varargs array.
+    // The output is the same as print(label, value). They have their own names (not print overloads),
+    // so that boxed or nullable values, e.g. print("value:", map.get(key)), still go to print(Object...).
+
+    static String printInt(Object label, int value) {
+        if (!SINK.get().isEnabled(true)) {
+            return "";
+        }
+        StringBuilder sb = PrintBuffer.acquire();
+        try {
+            return print(true, PrintBuffer.appendLabel(sb, label).append(value));
+        } finally {
+            PrintBuffer.release(sb);
+        }
+    }
+
+    static String printLong(Object label, long value) {
+        if (!SINK.get().isEnabled(true)) {
+            return "";
+        }
+        StringBuilder sb = PrintBuffer.acquire();
+        try {
+            return print(true, PrintBuffer.appendLabel(sb, label).append(value));
+        } finally {
+            PrintBuffer.release(sb);
+        }
+    }
+
+    static String printDouble(Object label, double value) {
+        if (!SINK.get().isEnabled(true)) {
+            return "";
+        }
+        StringBuilder sb = PrintBuffer.acquire();
+        try {
+            return print(true, PrintBuffer.appendLabel(sb, label).append(value));
+        } finally {
+            PrintBuffer.release(sb);
+        }
+    }
+
+    static String printBoolean(Object label, boolean value) {
+        if (!SINK.get().isEnabled(true)) {
+            return "";
+        }
+        StringBuilder sb = PrintBuffer.acquire();
+        try {
+            return print(true, PrintBuffer.appendLabel(sb, label).append(value));
+        } finally {
+            PrintBuffer.release(sb);
+        }
     }
 
     static void newMethod(String method) {
         String title = method; // + "()";
-        String underline = title.replaceAll(".", "-");
         print();
         print(title);
-        print(underline);
+        print(() -> title.replaceAll(".", "-"));  // underline
     }
 
     static void newMethod_Log(String method) {
         String title = method; // + "()";
-        String underline = title.replaceAll(".", "-");
         logger.info(title);
-        logger.info(underline);
+        logger.info(() -> title.replaceAll(".", "-"));  // underline
     }
 
     static void printStream(String text, Stream<?> stream, boolean useCollect) {
         if (useCollect) {
             Utils.print(text, "=", stream.collect(Collectors.toList()));
         } else { // use forEach()
-            System.out.print(text);
-            System.out.print(" = ");
-            stream.forEach(p -> System.out.print(p + ", "));
-            System.out.println();
+            PrintSink sink = SINK.get();
+            if (sink == PrintSink.SYSTEM) {
+                System.out.print(text);
+                System.out.print(" = ");
+                stream.forEach(p -> System.out.print(p + ", "));
+                System.out.println();
+            } else if (sink.isEnabled(true)) {
+                // a sink prints whole lines: one per window of elements, see StreamPrinter
+                StreamPrinter.current().print(sink, text, stream, 1024, Long.MAX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Print at most limit elements of a stream, which may be huge or infinite, in the format of printStream(.., false).
+     * Elements are handled in chunks of chunkSize (in encounter order), so memory use does not depend
+     * on the size of the stream, see StreamPrinter.
+     * With the default sink the elements are written piecewise to System.out, as a single line;
+     * any other sink gets them as one line per window of chunks. If the sink is not enabled, nothing is printed.
+     *
+     * @return the number of elements printed
+     */
+    static long printStream(String text, Stream<?> stream, int chunkSize, long limit) {
+        PrintSink sink = SINK.get();
+        if (!sink.isEnabled(true)) {
+            return 0;
         }
+        StreamPrinter printer = StreamPrinter.current();
+        return sink == PrintSink.SYSTEM
+                ? printer.print(System.out, text, stream, chunkSize, limit)
+                : printer.print(sink, text, stream, chunkSize, limit);
     }
 }
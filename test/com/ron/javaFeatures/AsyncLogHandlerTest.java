@@ -0,0 +1,106 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogHandlerTest {
+
+    // collects the messages of the records it gets
+    private static final class Collecting extends Handler {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean closed;
+
+        @Override
+        public void publish(LogRecord record) {
+            assertFalse(closed, "published after close");
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void recordsArePublishedInOrder() {
+        Collecting target = new Collecting();
+        AsyncLogHandler handler = new AsyncLogHandler(target, 4, AsyncLogHandler.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "m" + i));
+        }
+        handler.flush();
+        assertEquals(100, target.messages.size());
+        assertEquals("m99", target.messages.get(99));
+        handler.close();
+        assertTrue(target.closed);
+        assertEquals(0, handler.getDropped());
+    }
+
+    @Test
+    void recordsBelowTheLevelAreIgnored() {
+        Collecting target = new Collecting();
+        AsyncLogHandler handler = new AsyncLogHandler(target, 4, AsyncLogHandler.OverflowPolicy.BLOCK);
+        handler.setLevel(Level.WARNING);
+        handler.publish(new LogRecord(Level.INFO, "info"));
+        handler.publish(new LogRecord(Level.SEVERE, "severe"));
+        handler.close();
+        assertEquals(List.of("severe"), target.messages);
+    }
+
+    // records logged while close() runs are either published or counted as dropped: none is lost,
+    // and producers blocked on the full queue are released
+    @Test
+    void noRecordIsLostWhenClosing() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncLogHandler.OverflowPolicy policy = round % 2 == 0
+                    ? AsyncLogHandler.OverflowPolicy.BLOCK : AsyncLogHandler.OverflowPolicy.DROP;
+            int threads = 4;
+            int perThread = 2_000;
+            Collecting target = new Collecting();
+            AsyncLogHandler handler = new AsyncLogHandler(target, 8, policy);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        handler.publish(new LogRecord(Level.INFO, id + ":" + i));
+                    }
+                });
+                thread.start();
+                producers.add(thread);
+            }
+            start.countDown();
+            Thread.sleep(round % 3);
+            handler.close();
+            for (Thread thread : producers) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive(), "producer hangs, round " + round);
+            }
+            Set<String> published = new HashSet<>(target.messages);
+            published.removeIf(m -> m.startsWith("AsyncLogHandler dropped"));
+            assertEquals(threads * perThread, published.size() + handler.getDropped(), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPrintSinkTest {
+
+    @Test
+    void linesAreWrittenInOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try (AsyncPrintSink sink = new AsyncPrintSink(out, err, 4, 1)) {
+            for (int i = 0; i < 1000; i++) {
+                sink.println(i % 10 != 0, "line " + i);
+            }
+            sink.flush();
+            List<String> outLines = lines(out);
+            assertEquals(900, outLines.size());
+            assertEquals("line 1", outLines.get(0));
+            assertEquals("line 999", outLines.get(899));
+            assertEquals(100, lines(err).size());
+            assertEquals("line 990", lines(err).get(99));
+        }
+    }
+
+    @Test
+    void sameStreamKeepsOrderOfOutAndErr() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AsyncPrintSink sink = new AsyncPrintSink(out, out, 16, 1)) {
+            sink.println(true, "a");
+            sink.println(false, "b");
+            sink.println(true, "c");
+        }
+        assertEquals(List.of("a", "b", "c"), lines(out));
+    }
+
+    @Test
+    void utf8() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AsyncPrintSink sink = new AsyncPrintSink(out, out, 16, 1)) {
+            sink.println(true, "grüße 你好");
+        }
+        assertEquals(List.of("grüße 你好"), lines(out));
+    }
+
+    @Test
+    void toFile() throws Exception {
+        Path file = Files.createTempFile("asyncPrintSink", ".txt");
+        try {
+            try (AsyncPrintSink sink = AsyncPrintSink.toFile(file, 8, 1)) {
+                for (int i = 0; i < 100; i++) {
+                    sink.println(i % 2 == 0, Integer.toString(i));
+                }
+            }
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(100, lines.size());
+            assertEquals("99", lines.get(99));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new AsyncPrintSink(out, out, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncPrintSink(out, out, 16, 0));
+    }
+
+    // lines printed while close() runs go either to the sink or (after close) to System.out: none is lost
+    @Test
+    void noLineIsLostWhenClosing() throws Exception {
+        PrintStream systemOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(direct, true, StandardCharsets.UTF_8));
+        try {
+            for (int round = 0; round < 20; round++) {
+                out.reset();
+                direct.reset();
+                int threads = 4;
+                int perThread = 2_000;
+                AsyncPrintSink sink = new AsyncPrintSink(out, out, 64, 1);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Thread> producers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int id = t;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < perThread; i++) {
+                            sink.println(true, id + ":" + i);
+                        }
+                    });
+                    thread.start();
+                    producers.add(thread);
+                }
+                start.countDown();
+                Thread.sleep(round % 3);
+                sink.close();
+                for (Thread thread : producers) {
+                    thread.join();
+                }
+                System.out.flush();
+                Set<String> all = new HashSet<>(lines(out));
+                all.addAll(lines(direct));
+                assertEquals(threads * perThread, all.size(), "round " + round);
+            }
+        } finally {
+            System.setOut(systemOut);
+        }
+    }
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        String s = out.toString(StandardCharsets.UTF_8);
+        return s.isEmpty() ? List.of() : Arrays.asList(s.split("\\R"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedLinesTest {
+
+    @TempDir
+    Path directory;
+
+    private static final int[] CHUNK_SIZES = {1, 2, 7, 100, 4096, ChunkedLines.DEFAULT_CHUNK_SIZE};
+
+    // the lines of the parallel stream in encounter order, and those of its iterator (tryAdvance)
+    private static void check(Path path, int chunkSize) throws IOException {
+        List<String> expected = Files.readAllLines(path);
+        try (Stream<CharSequence> lines = ChunkedLines.lines(path, chunkSize)) {
+            assertTrue(lines.isParallel());
+            assertEquals(expected, lines.map(CharSequence::toString).collect(Collectors.toList()), "chunk size " + chunkSize);
+        }
+        try (Stream<CharSequence> lines = ChunkedLines.lines(path, chunkSize)) {
+            List<String> iterated = new ArrayList<>();
+            for (Iterator<CharSequence> i = lines.iterator(); i.hasNext(); ) {
+                iterated.add(i.next().toString());
+            }
+            assertEquals(expected, iterated, "chunk size " + chunkSize);
+        }
+    }
+
+    // random lines (some longer than the chunks, some empty), LF and CRLF, ASCII and multibyte
+    @Test
+    void matchesReadAllLines() throws IOException {
+        SplittableRandom random = new SplittableRandom(12);
+        String[] pieces = {"a", "line ", "ä", "€", "😀", "0123456789"};
+        for (int lines : new int[]{1, 10, 20_000}) {
+            for (boolean trailingNewline : new boolean[]{true, false}) {
+                StringBuilder text = new StringBuilder();
+                for (int line = 0; line < lines; line++) {
+                    for (int i = random.nextInt(8); i > 0; i--) {
+                        text.append(pieces[random.nextInt(pieces.length)]);
+                    }
+                    if (line < lines - 1 || trailingNewline) {
+                        text.append(random.nextInt(3) == 0 ? "\r\n" : "\n");
+                    }
+                }
+                Path path = Files.write(directory.resolve("lines.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+                for (int chunkSize : CHUNK_SIZES) {
+                    if (chunkSize < 7 && lines > 10) {
+                        continue;  // a mapping per line is slow
+                    }
+                    check(path, chunkSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyFileAndEmptyLines() throws IOException {
+        for (String text : new String[]{"", "\n", "\n\n\r\n", "no newline", "a\nb"}) {
+            Path path = Files.write(directory.resolve("small.txt"), text.getBytes(StandardCharsets.UTF_8));
+            for (int chunkSize : CHUNK_SIZES) {
+                check(path, chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void invalidChunkSize() throws IOException {
+        Path path = Files.write(directory.resolve("x.txt"), new byte[]{'x'});
+        assertThrows(IllegalArgumentException.class, () -> ChunkedLines.lines(path, 0));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalSortTest {
+
+    @TempDir
+    Path directory;
+
+    private long runFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private <T> List<T> sort(ExternalSort<T> sort, List<T> input) throws IOException {
+        try (Stream<T> sorted = sort.sorted(input.stream())) {
+            return sorted.collect(Collectors.toList());
+        }
+    }
+
+    // in memory, one run file, and many small runs: all as Stream.sorted()
+    @Test
+    void intsAndLongsMatchStreamSorted() throws IOException {
+        SplittableRandom random = new SplittableRandom(24);
+        for (int n : new int[]{0, 1, 2, 1000, 100_000}) {
+            for (int runSize : new int[]{1, 7, 1000, 1 << 20}) {
+                if (runSize == 1 && n > 1000) {
+                    continue;  // a file per element
+                }
+                // few distinct values for duplicates, the whole range for the deltas which wrap around
+                List<Integer> ints = (random.nextBoolean() ? random.ints(n, -5, 5) : random.ints(n))
+                        .boxed().collect(Collectors.toList());
+                List<Long> longs = random.longs(n).boxed().collect(Collectors.toList());
+                ExternalSort<Integer> intSort = ExternalSort.builder(ExternalSort.Codec.INTS)
+                        .runSize(runSize).parallelism(1 + random.nextInt(4)).directory(directory).build();
+                ExternalSort<Long> longSort = ExternalSort.builder(ExternalSort.Codec.LONGS)
+                        .runSize(runSize).directory(directory).build();
+                assertEquals(ints.stream().sorted().collect(Collectors.toList()), sort(intSort, ints));
+                assertEquals(longs.stream().sorted().collect(Collectors.toList()), sort(longSort, longs));
+                ExternalSort<Integer> reversed = ExternalSort.builder(ExternalSort.Codec.INTS, Comparator.reverseOrder())
+                        .runSize(runSize).directory(directory).build();
+                assertEquals(ints.stream().sorted(Comparator.reverseOrder()).collect(Collectors.toList()),
+                        sort(reversed, ints));
+                assertEquals(0, runFiles());
+            }
+        }
+    }
+
+    private static String randomString(SplittableRandom random) {
+        StringBuilder s = new StringBuilder();
+        for (int i = random.nextInt(8); i > 0; i--) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    s.appendCodePoint(0x1F600 + random.nextInt(3));  // a surrogate pair
+                    break;
+                case 1:
+                    s.append((char) ('ä' + random.nextInt(3)));
+                    break;
+                default:
+                    s.append((char) ('a' + random.nextInt(3)));
+            }
+        }
+        return s.toString();
+    }
+
+    @Test
+    void stringsMatchStreamSorted() throws IOException {
+        SplittableRandom random = new SplittableRandom(24);
+        List<String> strings = Stream.generate(() -> randomString(random)).limit(50_000).collect(Collectors.toList());
+        for (int runSize : new int[]{3, 1000, 1 << 20}) {
+            ExternalSort<String> sort = ExternalSort.builder(ExternalSort.Codec.STRINGS)
+                    .runSize(runSize).directory(directory).build();
+            assertEquals(strings.stream().sorted().collect(Collectors.toList()), sort(sort, strings));
+        }
+    }
+
+    // equal elements (here: strings of the same length) keep their input order, across runs too
+    @Test
+    void stable() throws IOException {
+        SplittableRandom random = new SplittableRandom(24);
+        List<String> strings = Stream.generate(() -> randomString(random)).limit(20_000).collect(Collectors.toList());
+        Comparator<String> byLength = Comparator.comparingInt(String::length);
+        for (int runSize : new int[]{5, 1000, 1 << 20}) {
+            ExternalSort<String> sort = ExternalSort.builder(ExternalSort.Codec.STRINGS, byLength)
+                    .runSize(runSize).directory(directory).build();
+            assertEquals(strings.stream().sorted(byLength).collect(Collectors.toList()), sort(sort, strings));
+        }
+    }
+
+    // the run files stay until the stream is closed or fully consumed
+    @Test
+    void runFilesAreDeleted() throws IOException {
+        List<Integer> ints = new SplittableRandom(24).ints(10_000).boxed().collect(Collectors.toList());
+        ExternalSort<Integer> sort = ExternalSort.builder(ExternalSort.Codec.INTS)
+                .runSize(1000).directory(directory).build();
+        try (Stream<Integer> sorted = sort.sorted(ints.stream())) {
+            assertEquals(10, runFiles());
+            assertEquals(ints.stream().min(Integer::compare), sorted.findFirst());
+        }
+        assertEquals(0, runFiles());
+
+        Iterator<Integer> iterator = sort.sorted(ints.stream()).iterator();
+        int n = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            n++;
+        }
+        assertEquals(ints.size(), n);
+        assertEquals(0, runFiles());
+    }
+
+    // closed before the end: the run files are closed and deleted (no mapping keeps them on Windows)
+    @Test
+    void closeDeletesTheRunFiles() throws IOException {
+        List<Long> longs = new SplittableRandom(24).longs(100_000).boxed().collect(Collectors.toList());
+        ExternalSort<Long> sort = ExternalSort.builder(ExternalSort.Codec.LONGS)
+                .runSize(10_000).directory(directory).build();
+        Stream<Long> sorted = sort.sorted(longs.stream());
+        Iterator<Long> iterator = sorted.iterator();
+        for (int i = 0; i < 1000; i++) {
+            iterator.next();
+        }
+        assertEquals(10, runFiles());
+        sorted.close();
+        assertEquals(0, runFiles());
+        sorted.close();
+        assertEquals(0, runFiles());
+    }
+
+    // elements which do not fit in the read buffer of a run, or start in one fill and end in the next
+    @Test
+    void elementsLargerThanTheReadBuffer() throws IOException {
+        SplittableRandom random = new SplittableRandom(24);
+        List<String> strings = Stream.generate(() -> randomString(random).repeat(random.nextInt(1, 30_000)))
+                .limit(40).collect(Collectors.toList());
+        ExternalSort<String> sort = ExternalSort.builder(ExternalSort.Codec.STRINGS)
+                .runSize(7).directory(directory).build();
+        assertEquals(strings.stream().sorted().collect(Collectors.toList()), sort(sort, strings));
+        assertEquals(0, runFiles());
+    }
+
+    @Test
+    void invalidArguments() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ExternalSort.builder(ExternalSort.Codec.INTS).runSize(0));
+        assertThrows(IllegalArgumentException.class, () -> ExternalSort.builder(ExternalSort.Codec.INTS).parallelism(0));
+        ExternalSort<Integer> sort = ExternalSort.builder(ExternalSort.Codec.INTS).runSize(2).directory(directory).build();
+        assertThrows(NullPointerException.class, () -> sort.sorted(Stream.of(3, 1, 4, null, 5)));
+        assertEquals(0, runFiles());  // the runs written before the null are deleted
+    }
+}
@@ -0,0 +1,259 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCopierTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * a FileChannel which transfers and reads at most maxBytes at a time, and may pretend to be larger than it is
+     */
+    private static class ShortChannel extends FileChannel {
+        final FileChannel channel;
+        final int maxBytes;
+        long reportedSize = -1;  // the size() to report, if not -1
+        int transfers;
+
+        ShortChannel(FileChannel channel, int maxBytes) {
+            this.channel = channel;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            transfers++;
+            return channel.transferTo(position, Math.min(count, maxBytes), target);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ByteBuffer part = dst.slice();
+            part.limit(Math.min(part.limit(), maxBytes));
+            int n = channel.read(part);
+            if (n > 0) {
+                dst.position(dst.position() + n);
+            }
+            return n;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return reportedSize >= 0 ? reportedSize : channel.size();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return channel.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            channel.force(metaData);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return channel.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+
+    private Path randomFile(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new SplittableRandom(11).nextBytes(bytes);
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    @Test
+    void copyWholeFile() throws IOException {
+        for (int size : new int[]{0, 1, 100_000}) {
+            Path in = randomFile("in" + size, size);
+            Path out = directory.resolve("out" + size);
+            Files.write(out, new byte[size + 10]);  // truncated
+            assertEquals(size, FileCopier.copy(in, out));
+            assertArrayEquals(Files.readAllBytes(in), Files.readAllBytes(out));
+        }
+    }
+
+    // transferTo() copies less than asked for: the copy goes on from where it stopped
+    @Test
+    void copyWithShortTransfers() throws IOException {
+        Path in = randomFile("in", 10_000);
+        Path out = directory.resolve("out");
+        try (ShortChannel source = new ShortChannel(FileChannel.open(in, StandardOpenOption.READ), 999);
+             FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertEquals(10_000, FileCopier.copy(source, target));
+            assertEquals(11, source.transfers);
+        }
+        assertArrayEquals(Files.readAllBytes(in), Files.readAllBytes(out));
+    }
+
+    // the source is truncated after its size was read: the copy stops at the new end instead of spinning
+    @Test
+    void copyStopsWhenTheSourceShrinks() throws IOException {
+        Path in = randomFile("in", 10_000);
+        byte[] start = Arrays.copyOf(Files.readAllBytes(in), 4000);
+        Path out = directory.resolve("out");
+        try (ShortChannel source = new ShortChannel(FileChannel.open(in, StandardOpenOption.READ, StandardOpenOption.WRITE), 1000) {
+                 @Override
+                 public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                     if (transfers == 2) {
+                         channel.truncate(4000);
+                     }
+                     return super.transferTo(position, count, target);
+                 }
+             };
+             FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            source.reportedSize = 10_000;  // what size() said before the truncation
+            long copied = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> FileCopier.copy(source, target));
+            assertEquals(4000, copied);
+        }
+        assertArrayEquals(start, Files.readAllBytes(out));
+    }
+
+    // only a-z, as ASCII_UPPER_CASE: String.toUpperCase() would also change 'ü' and 'ß'
+    private static String asciiUpperCase(CharSequence text) {
+        StringBuilder upper = new StringBuilder(text.length());
+        text.chars().forEach(c -> upper.append((char) (c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c)));
+        return upper.toString();
+    }
+
+    @Test
+    void transformMatchesAsciiUpperCase() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append("line ").append(i).append(i % 7 == 0 ? " grüße 你好\n" : " abc XYZ\n");
+        }
+        Path in = Files.write(directory.resolve("in.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+        Path out = directory.resolve("out.txt");
+        assertEquals(Files.size(in), FileCopier.transform(in, out, FileCopier.ASCII_UPPER_CASE));
+        String expected = asciiUpperCase(text);
+        assertEquals(expected, Files.readString(out));
+
+        // short reads from the source, into a small buffer
+        BufferPool pool = new BufferPool(100, 1);
+        try (ShortChannel source = new ShortChannel(FileChannel.open(in, StandardOpenOption.READ), 37);
+             FileChannel target = FileChannel.open(out, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            assertEquals(Files.size(in), FileCopier.transform(source, target, FileCopier.ASCII_UPPER_CASE, pool));
+        }
+        assertEquals(expected, Files.readString(out));
+    }
+
+    // the buffer goes back to the pool also when the transform fails
+    @Test
+    void bufferIsReleasedAfterAnException() throws IOException {
+        Path in = randomFile("in", 1000);
+        Path out = directory.resolve("out");
+        BufferPool pool = new BufferPool(64, 1);
+        AtomicReference<ByteBuffer> used = new AtomicReference<>();
+        try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThrows(IllegalStateException.class, () -> FileCopier.transform(source, target, bytes -> {
+                used.set(bytes);
+                throw new IllegalStateException("transform failed");
+            }, pool));
+        }
+        ByteBuffer buffer = pool.acquire();
+        assertSame(used.get(), buffer);
+        assertEquals(0, buffer.position());
+        assertEquals(64, buffer.limit());
+        assertNotSame(buffer, pool.acquire());  // the pool is empty now: a new buffer
+    }
+
+    @Test
+    void poolKeepsOnlyItsOwnBuffers() {
+        BufferPool pool = new BufferPool(16, 2);
+        ByteBuffer a = pool.acquire();
+        ByteBuffer b = pool.acquire();
+        ByteBuffer c = pool.acquire();
+        assertTrue(a.isDirect());
+        assertEquals(16, a.capacity());
+        pool.release(ByteBuffer.allocate(16));        // not direct
+        pool.release(ByteBuffer.allocateDirect(8));   // another size
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);                              // the pool is full
+        assertSame(a, pool.acquire());
+        assertSame(b, pool.acquire());
+        ByteBuffer d = pool.acquire();
+        assertNotSame(c, d);
+        assertTrue(d.isDirect());
+    }
+}
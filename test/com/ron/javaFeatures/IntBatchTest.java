@@ -0,0 +1,99 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntBatchTest {
+
+    // the processed batches, concatenated, are the added ints in order
+    @Test
+    void batchesMatchTheAddedInts() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (int capacity : new int[]{5, 7, 64}) {
+            List<Integer> added = new ArrayList<>();
+            List<Integer> processed = new ArrayList<>();
+            long[] sum = {0};
+            IntBatch batch = new IntBatch(capacity, (numbers, from, to) -> {
+                assertTrue(to - from <= capacity);
+                sum[0] += IntBatch.sum(numbers, from, to);
+                for (int i = from; i < to; i++) {
+                    processed.add(numbers[i]);
+                }
+            });
+            for (int call = 0; call < 2000; call++) {
+                int[] args = random.ints(random.nextInt(1, 6)).toArray();
+                switch (args.length) {
+                    case 1:
+                        batch.add(args[0]);
+                        break;
+                    case 2:
+                        batch.add(args[0], args[1]);
+                        break;
+                    case 3:
+                        batch.add(args[0], args[1], args[2]);
+                        break;
+                    case 4:
+                        batch.add(args[0], args[1], args[2], args[3]);
+                        break;
+                    default:
+                        batch.add(args[0], args[1], args[2], args[3], args[4]);
+                }
+                Arrays.stream(args).forEach(added::add);
+                if (call % 100 == 0) {
+                    int[] more = random.ints(random.nextInt(0, 3 * capacity)).toArray();
+                    batch.add(more);
+                    Arrays.stream(more).forEach(added::add);
+                }
+            }
+            assertEquals(added.size() - processed.size(), batch.size());
+            batch.flush();
+            assertEquals(0, batch.size());
+            assertEquals(added, processed);
+            assertEquals(added.stream().mapToLong(Integer::longValue).sum(), sum[0]);
+        }
+    }
+
+    // the arguments of one fixed-arity call are processed in the same batch
+    @Test
+    void callsAreNotSplit() {
+        List<int[]> batches = new ArrayList<>();
+        IntBatch batch = new IntBatch(7, (numbers, from, to) -> batches.add(Arrays.copyOfRange(numbers, from, to)));
+        batch.add(1, 2, 3).add(4, 5, 6).add(7, 8, 9);
+        batch.flush();
+        batch.flush();  // nothing left: no empty batch
+        assertEquals(2, batches.size());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, batches.get(0));
+        assertArrayEquals(new int[]{7, 8, 9}, batches.get(1));
+    }
+
+    @Test
+    void bufferView() {
+        IntBatch batch = new IntBatch(8, (numbers, from, to) -> fail("flushed"));
+        batch.add(3, 4);
+        IntBuffer buffer = batch.buffer();
+        assertEquals(2, buffer.position());
+        buffer.flip();
+        assertEquals(7, IntStream.range(0, buffer.limit()).map(buffer::get).sum());
+    }
+
+    @Test
+    void sumOfRange() {
+        int[] numbers = {Integer.MAX_VALUE, Integer.MAX_VALUE, 1, -5};
+        assertEquals(2L * Integer.MAX_VALUE, IntBatch.sum(numbers, 0, 2));
+        assertEquals(-4, IntBatch.sum(numbers, 2, 4));
+        assertEquals(0, IntBatch.sum(numbers, 1, 1));
+    }
+
+    @Test
+    void invalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IntBatch(4, (numbers, from, to) -> { }));
+    }
+}
@@ -0,0 +1,86 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+
+    private static Map<Integer, Integer> toMap(IntIntMap map) {
+        Map<Integer, Integer> entries = new HashMap<>();
+        map.forEach((key, value) -> assertNull(entries.put(key, value), "key twice: " + key));
+        return entries;
+    }
+
+    // random puts and removes (which shift the following slots back) on a small key range, 0 included
+    @Test
+    void matchesHashMap() {
+        SplittableRandom random = new SplittableRandom(19);
+        for (int range : new int[]{10, 1000, 200_000}) {
+            IntIntMap map = new IntIntMap();
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 300_000; i++) {
+                int key = random.nextInt(-range, range);
+                int op = random.nextInt(8);
+                if (op < 2) {
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                } else if (op == 2) {
+                    int value = random.nextInt();
+                    assertEquals(expected.putIfAbsent(key, value) == null, map.putIfAbsent(key, value));
+                } else if (op == 3) {
+                    int value = random.nextInt(100);
+                    assertEquals(expected.merge(key, value, Integer::sum), map.merge(key, value, Integer::sum));
+                } else {
+                    int value = random.nextInt();
+                    expected.put(key, value);
+                    map.put(key, value);
+                }
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.isEmpty(), map.isEmpty());
+            for (int key = -range - 1; key <= range; key++) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+            }
+            assertEquals(expected, toMap(map));
+
+            Map<Integer, Integer> parallel = new ConcurrentHashMap<>();
+            map.parallelForEach(parallel::put);
+            assertEquals(expected, parallel);
+            assertEquals(expected, map.entries().parallel().boxed()
+                    .collect(Collectors.toMap(e -> IntIntMap.key(e), e -> IntIntMap.value(e))));
+        }
+    }
+
+    @Test
+    void entryPacking() {
+        for (int key : new int[]{0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            for (int value : new int[]{0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+                long entry = IntIntMap.entry(key, value);
+                assertEquals(key, IntIntMap.key(entry));
+                assertEquals(value, IntIntMap.value(entry));
+            }
+        }
+    }
+
+    // the same shape as Utils.getRandomMap: consecutive keys mapped to their squares
+    @Test
+    void randomIntIntMap() {
+        for (int i = 0; i < 100; i++) {
+            IntIntMap map = Utils.getRandomIntIntMap(100, 7);
+            Map<Integer, Integer> entries = toMap(map);
+            assertFalse(entries.isEmpty());
+            assertTrue(entries.size() <= 7);
+            int min = entries.keySet().stream().min(Integer::compare).orElseThrow();
+            for (int key = min; key < min + entries.size(); key++) {
+                assertEquals(key * key, entries.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntListTest {
+
+    private static List<Integer> toList(IntList list) {
+        return list.stream().boxed().collect(Collectors.toList());
+    }
+
+    // random adds, sets, removes (by index, by filter and through the iterator) on both lists
+    @Test
+    void matchesArrayList() {
+        SplittableRandom random = new SplittableRandom(20);
+        IntList list = new IntList(0);
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(20);
+            if (op < 10) {
+                int value = random.nextInt(-100, 100);
+                list.add(value);
+                expected.add(value);
+            } else if (op < 12) {
+                int[] values = random.ints(random.nextInt(5), -100, 100).toArray();
+                list.addAll(values);
+                for (int value : values) {
+                    expected.add(value);
+                }
+            } else if (op < 15 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                int value = random.nextInt();
+                assertEquals(expected.set(index, value), list.set(index, value));
+            } else if (op < 18 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.removeAt(index));
+            } else if (op == 18) {
+                int divisor = random.nextInt(2, 50);
+                assertEquals(expected.removeIf(v -> v % divisor == 0), list.removeIf(v -> v % divisor == 0));
+            } else {
+                Iterator<Integer> expectedIterator = expected.iterator();
+                PrimitiveIterator.OfInt iterator = list.iterator();
+                while (expectedIterator.hasNext()) {
+                    assertTrue(iterator.hasNext());
+                    int value = expectedIterator.next();
+                    assertEquals(value, iterator.nextInt());
+                    if (value % 3 == 0) {
+                        expectedIterator.remove();
+                        iterator.remove();
+                    }
+                }
+                assertFalse(iterator.hasNext());
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, toList(list));
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(expected.toString(), list.toString());
+        assertEquals(list, IntList.copyOf(expected));
+        assertEquals(list, IntList.copyOf(list));
+
+        List<Integer> visited = new ArrayList<>();
+        list.forEach(visited::add);
+        assertEquals(expected, visited);
+        list.forEachIndexed((index, value) -> assertEquals(expected.get(index), value));
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void parallelForEachVisitsEveryValue() {
+        for (int n : new int[]{0, 10, 1 << 18}) {
+            IntList list = new IntList();
+            long expected = 0;
+            for (int i = 0; i < n; i++) {
+                list.add(i);
+                expected += i;
+            }
+            LongAdder sum = new LongAdder();
+            list.parallelForEach(sum::add);
+            assertEquals(expected, sum.sum());
+        }
+    }
+
+    @Test
+    void iteratorsFailFast() {
+        IntList list = IntList.of(1, 2, 3);
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        iterator.nextInt();
+        list.add(4);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+        assertThrows(ConcurrentModificationException.class, () -> list.forEach(v -> list.add(v)));
+        PrimitiveIterator.OfInt fresh = IntList.of().iterator();
+        assertThrows(NoSuchElementException.class, fresh::nextInt);
+        assertThrows(IllegalStateException.class, fresh::remove);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(list.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.removeAt(-1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntPipelineTest {
+
+    private static final IntPredicate[] FILTERS = {
+            i -> i > 0, i -> i % 3 == 0, i -> (i & 1) == 0, i -> i < 1_000_000, i -> false, i -> true};
+    private static final IntUnaryOperator[] MAPS = {
+            i -> i * 2, i -> -i, i -> i + Integer.MAX_VALUE, i -> i >> 3, i -> i * i};
+
+    // random filter/map pipelines, sequential and parallel, against the IntStream equivalent
+    @Test
+    void matchesIntStream() {
+        SplittableRandom random = new SplittableRandom(21);
+        for (int n : new int[]{0, 1, 100, 1 << 17, 300_001}) {
+            int[] values = random.ints(n, -1_000_000_000, 1_000_000_000).toArray();
+            for (int round = 0; round < 20; round++) {
+                int from = n == 0 ? 0 : random.nextInt(n / 4 + 1);
+                int to = n - (n == 0 ? 0 : random.nextInt(n / 4 + 1));
+                IntPipeline pipeline = random.nextBoolean() ? IntPipeline.of(values, from, to)
+                        : IntPipeline.of(Arrays.copyOfRange(values, from, to));
+                IntStream stream = Arrays.stream(values, from, to);
+                StringBuilder shape = new StringBuilder();
+                for (int stage = random.nextInt(4); stage > 0; stage--) {
+                    if (random.nextBoolean()) {
+                        IntPredicate filter = FILTERS[random.nextInt(FILTERS.length)];
+                        pipeline = pipeline.filter(filter);
+                        stream = stream.filter(filter);
+                        shape.append("filter ");
+                    } else {
+                        IntUnaryOperator map = MAPS[random.nextInt(MAPS.length)];
+                        pipeline = pipeline.map(map);
+                        stream = stream.map(map);
+                        shape.append("map ");
+                    }
+                }
+                boolean parallel = random.nextBoolean();
+                if (parallel) {
+                    pipeline = pipeline.parallel();
+                }
+                int[] expected = stream.toArray();
+                String message = "n = " + n + ", " + shape + (parallel ? "parallel" : "");
+                assertArrayEquals(expected, pipeline.toArray(), message);
+                assertEquals(Arrays.stream(expected).sum(), pipeline.sum(), message);
+                assertEquals(expected.length, pipeline.count(), message);
+                assertEquals(Arrays.stream(expected).min(), pipeline.min(), message);
+                assertEquals(Arrays.stream(expected).max(), pipeline.max(), message);
+                assertEquals(Arrays.stream(expected).sum(), pipeline.sequential().sum(), message);
+            }
+        }
+    }
+
+    // as in a Stream, a map() after a filter() only gets the elements which pass it
+    @Test
+    void functionsOnlySeeElementsThatReachThem() {
+        int[] values = IntStream.range(-1000, 1000).toArray();
+        IntPipeline pipeline = IntPipeline.of(values)
+                .filter(i -> i > 0)
+                .map(i -> {
+                    assertTrue(i > 0, "mapped " + i);
+                    return i * 2;
+                })
+                .filter(i -> i % 4 == 0)
+                .map(i -> {
+                    assertEquals(0, i % 4, "mapped " + i);
+                    return i;
+                });
+        assertEquals(IntStream.range(1, 1000).filter(i -> i % 2 == 0).map(i -> i * 2).sum(), pipeline.sum());
+        assertEquals(499, pipeline.parallel().count());
+    }
+
+    @Test
+    void invalidRange() {
+        int[] values = new int[10];
+        assertThrows(IndexOutOfBoundsException.class, () -> IntPipeline.of(values, -1, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> IntPipeline.of(values, 5, 11));
+        assertThrows(IndexOutOfBoundsException.class, () -> IntPipeline.of(values, 6, 5));
+    }
+}
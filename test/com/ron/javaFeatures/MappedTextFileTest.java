@@ -0,0 +1,115 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTextFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<String> bufferedReaderLines(String text) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    // the lines of the reader, each checked as a CharSequence against its String
+    private static List<String> readLines(MappedTextFile file) {
+        List<String> lines = new ArrayList<>();
+        try (MappedTextFile.LineReader reader = file.reader()) {
+            for (CharSequence line = reader.readLine(); line != null; line = reader.readLine()) {
+                String s = line.toString();
+                assertEquals(s.length(), line.length());
+                for (int i = 0; i < s.length(); i++) {
+                    assertEquals(s.charAt(i), line.charAt(i));
+                }
+                assertEquals(s.substring(1 % (s.length() + 1)), line.subSequence(1 % (s.length() + 1), s.length()).toString());
+                lines.add(s);
+            }
+        }
+        return lines;
+    }
+
+    private void check(String text, int segmentSize) throws IOException {
+        Path path = directory.resolve("text.txt");
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        MappedTextFile file = MappedTextFile.open(path, segmentSize);
+        List<String> expected = bufferedReaderLines(text);
+        String message = "segment size " + segmentSize + ": " + text.replace("\r", "\\r").replace("\n", "\\n");
+        assertEquals(expected, readLines(file), message);
+        assertEquals(expected, readLines(file), message);  // a second cursor over the same mapping
+        assertEquals(expected, file.lines().map(CharSequence::toString).collect(Collectors.toList()), message);
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, file.size());
+    }
+
+    @Test
+    void segmentBoundaries() throws IOException {
+        check("ab\ncd\n", 3);           // exactly after a '\n'
+        check("ab\ncd\n", 4);           // mid-line: the segment ends after the '\n' before
+        check("ab\ncd", 4);             // the last line has no '\n'
+        check("a\r\nbc\r\nd", 5);       // CRLF, the boundary between '\r' and '\n' is moved back
+        check("a\r\nbc\r\nd", 4);       // the boundaries right after "\r\n"
+        check("aä\nä€\n😀\n", 6);       // "aä\nä" and "ä€\n😀": boundaries between multibyte characters
+        check("aä\nä€\n😀\n", 7);       // "aä\nä" and one byte of '€', "ä€\n" and three bytes of the emoji
+        check("aä\nä€\n😀\n", 8);
+        check("\n\n\n", 1);             // empty lines, one per segment
+    }
+
+    @Test
+    void emptyFileAndNoTrailingNewline() throws IOException {
+        check("", 4);
+        check("", MappedTextFile.SEGMENT_SIZE);
+        check("last", MappedTextFile.SEGMENT_SIZE);
+        check("a\r\nlast\r", MappedTextFile.SEGMENT_SIZE);
+        check("one line\n", MappedTextFile.SEGMENT_SIZE);
+    }
+
+    // random lines of ASCII and multibyte characters, LF and CRLF, with every segment size that fits the lines
+    @Test
+    void matchesBufferedReader() throws IOException {
+        SplittableRandom random = new SplittableRandom(10);
+        String[] pieces = {"a", "xyz", "ä", "€", "😀", " "};
+        for (int round = 0; round < 20; round++) {
+            StringBuilder text = new StringBuilder();
+            int longest = 0;
+            for (int line = random.nextInt(30); line > 0; line--) {
+                int start = text.length();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    text.append(pieces[random.nextInt(pieces.length)]);
+                }
+                if (line > 1 || random.nextBoolean()) {
+                    text.append(random.nextBoolean() ? "\n" : "\r\n");
+                }
+                longest = Math.max(longest, text.substring(start).getBytes(StandardCharsets.UTF_8).length);
+            }
+            for (int segmentSize = Math.max(1, longest); segmentSize < longest + 12; segmentSize++) {
+                check(text.toString(), segmentSize);
+            }
+        }
+    }
+
+    @Test
+    void lineLongerThanASegment() throws IOException {
+        Path path = directory.resolve("long.txt");
+        Files.write(path, "a\nlong line\nb".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> MappedTextFile.open(path, 5));
+    }
+}
@@ -0,0 +1,124 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchScanTest {
+
+    // predicates with no match, a rare match, and many matches
+    private static List<Predicate<Integer>> predicates(int n) {
+        return List.of(i -> i < 0, i -> i == n - 3, i -> i % 1000 == 999, i -> i % 2 == 0, i -> i >= 0, i -> i > n / 2);
+    }
+
+    // all five queries of every predicate in one scan, against one stream each
+    @Test
+    void matchesStreams() {
+        SplittableRandom random = new SplittableRandom(23);
+        for (int n : new int[]{0, 1, 5, 3000, 1 << 16, 300_001}) {
+            List<Integer> values = random.ints(n, 0, n + 1).boxed().collect(Collectors.toList());
+            List<Integer> linked = new LinkedList<>(values);
+            for (List<Integer> list : List.of(values, linked)) {
+                for (boolean parallel : new boolean[]{false, true}) {
+                    if (parallel && list == linked && n > 3000) {
+                        continue;  // scanned sequentially anyway, and slowly
+                    }
+                    MatchScan<Integer> scan = MatchScan.of(list);
+                    List<Predicate<Integer>> predicates = predicates(n);
+                    MatchScan.Match[] any = new MatchScan.Match[predicates.size()];
+                    MatchScan.Match[] none = new MatchScan.Match[predicates.size()];
+                    MatchScan.Match[] all = new MatchScan.Match[predicates.size()];
+                    @SuppressWarnings("unchecked")
+                    MatchScan.Find<Integer>[] first = new MatchScan.Find[predicates.size()];
+                    @SuppressWarnings("unchecked")
+                    MatchScan.Find<Integer>[] found = new MatchScan.Find[predicates.size()];
+                    for (int p = 0; p < predicates.size(); p++) {
+                        any[p] = scan.anyMatch(predicates.get(p));
+                        none[p] = scan.noneMatch(predicates.get(p));
+                        all[p] = scan.allMatch(predicates.get(p));
+                        first[p] = scan.findFirst(predicates.get(p));
+                        found[p] = scan.findAny(predicates.get(p));
+                    }
+                    if (parallel) {
+                        scan.parallel();
+                    }
+                    scan.run();
+                    for (int p = 0; p < predicates.size(); p++) {
+                        Predicate<Integer> predicate = predicates.get(p);
+                        String message = "n=" + n + " predicate " + p + (parallel ? " parallel" : "");
+                        assertEquals(list.stream().anyMatch(predicate), any[p].get(), message);
+                        assertEquals(list.stream().noneMatch(predicate), none[p].get(), message);
+                        assertEquals(list.stream().allMatch(predicate), all[p].get(), message);
+                        assertEquals(list.parallelStream().filter(predicate).findFirst(), first[p].get(), message);
+                        assertEquals(values.indexOf(first[p].get().orElse(-1)), first[p].index(), message);
+                        assertEquals(list.stream().anyMatch(predicate), found[p].get().isPresent(), message);
+                        found[p].get().ifPresent(v -> assertTrue(predicate.test(v), message));
+                        if (found[p].index() >= 0) {
+                            assertEquals(found[p].get().orElseThrow(), values.get(found[p].index()), message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // a query decided early stops the scan, also in parallel, unless another query still needs the elements
+    @Test
+    void stopsWhenDecided() {
+        int n = 1 << 21;
+        List<Integer> values = new SplittableRandom(23).ints(n, 0, 100).boxed().collect(Collectors.toList());
+        for (boolean parallel : new boolean[]{false, true}) {
+            AtomicInteger tests = new AtomicInteger();
+            MatchScan<Integer> scan = MatchScan.of(values);
+            MatchScan.Match any = scan.anyMatch(i -> tests.incrementAndGet() > 0 && i < 100);
+            MatchScan.Find<Integer> first = scan.findFirst(i -> tests.incrementAndGet() > 0 && i >= 0);
+            if (parallel) {
+                scan.parallel();
+            }
+            scan.run();
+            assertTrue(any.get());
+            assertEquals(0, first.index());
+            assertTrue(tests.get() < n / 8, tests.get() + " tests" + (parallel ? " parallel" : ""));
+
+            AtomicInteger rest = new AtomicInteger();
+            MatchScan<Integer> scanAll = MatchScan.of(values);
+            scanAll.anyMatch(i -> i < 100);
+            MatchScan.Match never = scanAll.anyMatch(i -> rest.incrementAndGet() > 0 && i >= 100);
+            if (parallel) {
+                scanAll.parallel();
+            }
+            scanAll.run();
+            assertFalse(never.get());
+            assertEquals(n, rest.get());
+        }
+    }
+
+    @Test
+    void runAgainAndNulls() {
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3));
+        MatchScan<Integer> scan = MatchScan.of(list);
+        MatchScan.Find<Integer> even = scan.findFirst(i -> i % 2 == 0);
+        scan.run();
+        assertEquals(2, even.get().orElseThrow());
+        list.set(1, 5);
+        scan.run();
+        assertEquals(list.stream().filter(i -> i % 2 == 0).findFirst(), even.get());
+        assertEquals(-1, even.index());
+        assertThrows(NullPointerException.class, () -> scan.anyMatch(null));
+        List<Integer> withNull = Arrays.asList(1, null);
+        MatchScan<Integer> nullScan = MatchScan.of(withNull);
+        nullScan.findFirst(i -> i == null);
+        // like Stream.findFirst(), a null match is a NullPointerException
+        assertThrows(NullPointerException.class, nullScan::run);
+        assertThrows(NullPointerException.class, () -> withNull.stream().filter(i -> i == null).findFirst());
+    }
+}
@@ -0,0 +1,105 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCollectionsTest {
+
+    @Test
+    void intMapMatchesTreeMap() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int n : new int[]{0, 1, 2, 100, 100_000}) {
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            OffHeapIntMap.IntValueBuilder builder = OffHeapIntMap.intBuilder();
+            while (expected.size() < n) {
+                int key = random.nextInt();
+                if (expected.putIfAbsent(key, key * 3) == null) {
+                    builder.put(key, key * 3);
+                }
+            }
+            OffHeapIntMap<Integer> map = builder.build();
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));  // key order
+            int[] keys = expected.keySet().stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < 1000; i++) {
+                int key = random.nextBoolean() && n > 0 ? keys[random.nextInt(n)] : random.nextInt();
+                assertEquals(expected.get(key), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(expected.getOrDefault(key, -1), map.getInt(key, -1));
+            }
+            assertNull(map.get("not an int"));
+            assertFalse(map.containsKey((Object) null));
+        }
+    }
+
+    @Test
+    void stringMapMatchesMapOf() {
+        Map<Integer, String> expected = Map.of(1, "one", 2, "two", -3, "drei", 0, "", 100, "grüße 你好");
+        OffHeapIntMap.StringValueBuilder builder = OffHeapIntMap.stringBuilder();
+        expected.forEach(builder::put);
+        OffHeapIntMap<String> map = builder.build();
+        assertEquals(expected, map);
+        assertEquals(new TreeMap<>(expected).toString(), map.toString());
+        assertEquals(-3, map.keyAt(0));
+        assertEquals("drei", map.valueAt(0));
+        assertEquals(-1, map.indexOf(5));
+        assertNull(map.get(5));
+    }
+
+    @Test
+    void mapsAreImmutableAndRejectDuplicates() {
+        OffHeapIntMap<Integer> map = OffHeapIntMap.intBuilder().put(1, 1).build();
+        assertThrows(UnsupportedOperationException.class, () -> map.put(2, 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove(1));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+        assertThrows(IllegalArgumentException.class, () -> OffHeapIntMap.intBuilder().put(1, 1).put(1, 2).build());
+        assertThrows(IllegalArgumentException.class, () -> OffHeapIntMap.stringBuilder().put(1, "a").put(1, "b").build());
+        assertThrows(NullPointerException.class, () -> OffHeapIntMap.stringBuilder().put(1, null));
+    }
+
+    @Test
+    void intListMatchesArrayList() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int n : new int[]{0, 1, 16, 17, 100_000}) {
+            List<Integer> expected = new ArrayList<>();
+            OffHeapIntList.Builder builder = OffHeapIntList.builder();
+            for (int i = 0; i < n; i++) {
+                int value = random.nextInt(-50, 50);
+                expected.add(value);
+                builder.add(value);
+            }
+            OffHeapIntList list = builder.build();
+            assertEquals(expected, list);
+            assertEquals(list, expected);
+            assertEquals(expected.hashCode(), list.hashCode());
+            assertEquals(expected.stream().mapToLong(Integer::longValue).sum(), list.ints().asLongStream().sum());
+            for (int value = -51; value <= 51; value++) {
+                assertEquals(expected.indexOf(value), list.indexOf(value));
+                assertEquals(expected.lastIndexOf(value), list.lastIndexOf(value));
+                assertEquals(expected.contains(value), list.contains(value));
+            }
+            assertEquals(-1, list.indexOf("1"));
+            assertEquals(0, builder.build().size());  // the builder starts again, empty
+        }
+        assertEquals(List.of(1, 3, 5, 3, 1), OffHeapIntList.of(1, 3, 5, 3, 1));
+    }
+
+    @Test
+    void intListIsImmutable() {
+        OffHeapIntList list = OffHeapIntList.of(1, 2, 3);
+        assertThrows(UnsupportedOperationException.class, () -> list.add(4));
+        assertThrows(UnsupportedOperationException.class, () -> list.set(0, 4));
+        assertThrows(UnsupportedOperationException.class, () -> list.remove(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getInt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    }
+}
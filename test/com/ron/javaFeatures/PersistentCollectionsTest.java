@@ -0,0 +1,208 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentCollectionsTest {
+
+    // random updates of a list; every version must stay equal to the ArrayList it was compared with
+    @Test
+    void listMatchesArrayList() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int n : new int[]{0, 1, 31, 32, 33, 1024, 1057, 40_000}) {
+            List<Integer> expected = IntStream.range(0, n).boxed().collect(Collectors.toList());
+            PersistentList<Integer> list = random.nextBoolean()
+                    ? PersistentList.copyOf(expected)
+                    : expected.stream().collect(PersistentList.toPersistentList());
+            assertEquals(expected, list);
+            List<PersistentList<Integer>> versions = new ArrayList<>();
+            List<List<Integer>> snapshots = new ArrayList<>();
+            for (int step = 0; step < 2000; step++) {
+                int op = random.nextInt(10);
+                if (op < 4) {
+                    expected.add(step);
+                    list = list.plus(step);
+                } else if (op < 7 && !expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    expected.set(index, -step);
+                    list = list.with(index, -step);
+                } else if (op < 9 && !expected.isEmpty()) {
+                    expected.remove(expected.size() - 1);
+                    list = list.withoutLast();
+                } else if (!expected.isEmpty() && expected.size() < 2000) {
+                    int index = random.nextInt(expected.size());
+                    expected.remove(index);
+                    list = list.without(index);
+                }
+                if (step % 200 == 0) {
+                    versions.add(list);
+                    snapshots.add(new ArrayList<>(expected));
+                }
+            }
+            assertEquals(expected, list);
+            assertEquals(expected.hashCode(), list.hashCode());
+            List<Integer> iterated = new ArrayList<>();
+            list.forEach(iterated::add);
+            assertEquals(expected, iterated);
+            for (int i = 0; i < versions.size(); i++) {
+                assertEquals(snapshots.get(i), versions.get(i), "version " + i);
+            }
+        }
+    }
+
+    // without(index) around the leaf and level boundaries; the result must grow and shrink like any other version
+    @Test
+    void listWithoutEveryKindOfIndex() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int n : new int[]{2, 32, 33, 34, 64, 65, 66, 1056, 1057, 1058, 1089, 32 * 32 * 32 + 32, 32 * 32 * 32 + 33,
+                32 * 32 * 32 + 65}) {
+            List<Integer> elements = IntStream.range(0, n).boxed().collect(Collectors.toList());
+            PersistentList<Integer> list = PersistentList.copyOf(elements);
+            List<Integer> indexes = new ArrayList<>(List.of(0, 1, 31, 32, 33, 1023, 1024, 1025, n - 34, n - 33, n - 32,
+                    n - 31, n - 2, n - 1));
+            random.ints(10, 0, n).forEach(indexes::add);
+            for (int index : indexes) {
+                if (index < 0 || index >= n) {
+                    continue;
+                }
+                List<Integer> expected = new ArrayList<>(elements);
+                expected.remove(index);
+                PersistentList<Integer> without = list.without(index);
+                assertEquals(expected, without, "n=" + n + " index=" + index);
+                for (int i = 0; i < 40; i++) {
+                    expected.add(-i);
+                    without = without.plus(-i);
+                }
+                assertEquals(expected, without, "n=" + n + " index=" + index + " plus");
+                for (int i = 0; i < 80 && !expected.isEmpty(); i++) {
+                    expected.remove(expected.size() - 1);
+                    without = without.withoutLast();
+                }
+                assertEquals(expected, without, "n=" + n + " index=" + index + " withoutLast");
+            }
+            assertEquals(elements, list);
+        }
+    }
+
+    // the varargs array (or toArray() of a collection) may be a String[]: the nodes must still accept any element
+    @Test
+    void listOfSubtypeArrayAcceptsOtherElements() {
+        String[] strings = new String[100];
+        Arrays.fill(strings, "x");
+        PersistentList<Object> list = PersistentList.<Object>of((Object[]) strings);
+        assertEquals(1, list.with(0, 1).get(0));
+        assertEquals(1, list.with(99, 1).get(99));
+        assertEquals(1, list.withoutLast().plus(1).get(99));
+        assertEquals(1, PersistentList.<Object>copyOf(Arrays.asList(strings)).with(5, 1).get(5));
+    }
+
+    @Test
+    void listRejectsNullsAndMutation() {
+        assertThrows(NullPointerException.class, () -> PersistentList.of("a", null));
+        assertThrows(NullPointerException.class, () -> PersistentList.of("a").plus(null));
+        PersistentList<String> list = PersistentList.of("a", "b");
+        assertThrows(UnsupportedOperationException.class, () -> list.add("c"));
+        assertThrows(UnsupportedOperationException.class, () -> list.set(0, "c"));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.with(3, "c"));
+        assertEquals(List.of("a", "b", "c"), list.with(2, "c"));  // index == size() appends
+        assertSame(PersistentList.of(), PersistentList.of("a").withoutLast());
+    }
+
+    // a key with few distinct hash codes, so that the map has to handle collisions
+    private static final class Key {
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 7;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + id;
+        }
+    }
+
+    @Test
+    void mapMatchesHashMap() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (boolean collisions : new boolean[]{false, true}) {
+            Function<Integer, Object> key = i -> collisions ? new Key(i) : i;
+            Map<Object, Integer> expected = new HashMap<>();
+            PersistentMap<Object, Integer> map = PersistentMap.of();
+            List<PersistentMap<Object, Integer>> versions = new ArrayList<>();
+            List<Map<Object, Integer>> snapshots = new ArrayList<>();
+            for (int step = 0; step < 20_000; step++) {
+                Object k = key.apply(random.nextInt(collisions ? 300 : 5000));
+                if (random.nextInt(3) < 2) {
+                    expected.put(k, step);
+                    map = map.with(k, step);
+                } else {
+                    expected.remove(k);
+                    map = map.without(k);
+                }
+                if (step % 2000 == 0) {
+                    versions.add(map);
+                    snapshots.add(new HashMap<>(expected));
+                }
+            }
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+            for (int i = -1; i < 5001; i++) {
+                Object k = key.apply(i);
+                assertEquals(expected.get(k), map.get(k));
+                assertEquals(expected.containsKey(k), map.containsKey(k));
+            }
+            Map<Object, Integer> iterated = new HashMap<>();
+            map.forEach(iterated::put);
+            assertEquals(expected, iterated);
+            assertEquals(expected, PersistentMap.copyOf(expected));
+            for (int i = 0; i < versions.size(); i++) {
+                assertEquals(snapshots.get(i), versions.get(i), "version " + i);
+            }
+        }
+    }
+
+    @Test
+    void mapCollectorLastValueWins() {
+        PersistentMap<Integer, Integer> map = IntStream.range(0, 10_000).boxed().parallel()
+                .collect(PersistentMap.toPersistentMap(i -> i % 100, i -> i));
+        Map<Integer, Integer> expected = new HashMap<>();
+        IntStream.range(0, 10_000).forEach(i -> expected.put(i % 100, i));
+        assertEquals(expected, map);
+    }
+
+    @Test
+    void mapRejectsNullsAndMutation() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>of().with("a", 1);
+        assertThrows(NullPointerException.class, () -> map.with(null, 1));
+        assertThrows(NullPointerException.class, () -> map.with("b", null));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+        assertNull(map.get(null));
+        assertSame(map, map.without("b"));
+        assertEquals(0, map.without("a").size());
+    }
+}
@@ -0,0 +1,171 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonTableTest {
+
+    private static final int[] COLUMNS = {PersonTable.NAME, PersonTable.ADDRESS, PersonTable.AGE};
+    private static final String[] WORDS = {"apple", "Apple", "Äpfel", "banana", "zebra", "Zürich", "", "éclair", "eclair"};
+
+    private static final class Person {
+        final String name;
+        final String address;
+        final int age;
+
+        Person(String name, String address, int age) {
+            this.name = name;
+            this.address = address;
+            this.age = age;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + address + ", " + age + ")";
+        }
+    }
+
+    // random records with many duplicate values, so that the stability of the sorts is checked
+    private static List<Person> people(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            people.add(new Person(WORDS[random.nextInt(WORDS.length)] + random.nextInt(3),
+                    WORDS[random.nextInt(WORDS.length)], random.nextInt(-300, 300)));
+        }
+        return people;
+    }
+
+    private static PersonTable table(List<Person> people, Collator collator) {
+        PersonTable table = new PersonTable(collator);
+        for (Person p : people) {
+            table.add(p.name, p.address, p.age);
+        }
+        return table;
+    }
+
+    // the JDK equivalent: a stable List.sort, so equal records stay in insertion order in both directions
+    static List<String> expected(List<Person> people, Collator collator, int column, boolean ascending) {
+        Comparator<Person> comparator = column == PersonTable.AGE
+                ? Comparator.comparingInt(p -> p.age)
+                : Comparator.comparing(p -> column == PersonTable.NAME ? p.name : p.address, collator);
+        List<Person> sorted = new ArrayList<>(people);
+        sorted.sort(ascending ? comparator : comparator.reversed());
+        return sorted.stream().map(Person::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void sortMatchesListSort() {
+        Collator collator = Collator.getInstance(Locale.GERMAN);
+        for (int n : new int[]{0, 1, 2, 17, 1000, PersonTable.PARALLEL_THRESHOLD + 100}) {
+            List<Person> people = people(n, n);
+            PersonTable table = table(people, collator);
+            for (int column : COLUMNS) {
+                for (boolean ascending : new boolean[]{true, false}) {
+                    assertEquals(expected(people, collator, column, ascending), table.sort(column, ascending),
+                            "n = " + n + ", column = " + column + ", ascending = " + ascending);
+                }
+            }
+        }
+    }
+
+    // a page (without a cached full sort) is the same as the sublist of the full sort
+    @Test
+    void pageMatchesSubListOfListSort() {
+        Collator collator = Collator.getInstance(Locale.GERMAN);
+        for (int n : new int[]{0, 1, 5, 300}) {
+            List<Person> people = people(n, n + 1);
+            for (int column : COLUMNS) {
+                for (boolean ascending : new boolean[]{true, false}) {
+                    List<String> all = expected(people, collator, column, ascending);
+                    for (int limit : new int[]{0, 1, 3, 50, n + 1}) {
+                        for (int offset : new int[]{0, 1, 7, n}) {
+                            PersonTable table = table(people, collator);
+                            int from = Math.min(offset, n);
+                            int to = Math.min(offset + limit, n);
+                            String message = "n = " + n + ", column = " + column + ", ascending = " + ascending
+                                    + ", limit = " + limit + ", offset = " + offset;
+                            assertArrayEquals(toRows(all.subList(0, to), people),
+                                    table.topRows(column, ascending, to), message);
+                            assertEquals(all.subList(from, to), table.sort(column, ascending, limit, offset), message);
+                        }
+                    }
+                    // and served from the cached full sort
+                    PersonTable table = table(people, collator);
+                    table.sort(column, ascending);
+                    assertEquals(all.subList(Math.min(1, n), Math.min(4, n)), table.sort(column, ascending, 3, 1));
+                }
+            }
+        }
+    }
+
+    // the row numbers of the expected records; equal records are in row order (the sorts are stable),
+    // so each record maps to the first unused row with the same text
+    private static int[] toRows(List<String> records, List<Person> people) {
+        boolean[] used = new boolean[people.size()];
+        int[] rows = new int[records.size()];
+        for (int i = 0; i < rows.length; i++) {
+            for (int row = 0; row < people.size(); row++) {
+                if (!used[row] && people.get(row).toString().equals(records.get(i))) {
+                    used[row] = true;
+                    rows[i] = row;
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void invalidPage() {
+        PersonTable table = new PersonTable();
+        assertThrows(IllegalArgumentException.class, () -> table.sort(PersonTable.NAME, true, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> table.sort(PersonTable.NAME, true, 1, -1));
+    }
+
+    // an empty page (limit 0, or offset past the end) is returned without sorting; the column is still checked
+    @Test
+    void emptyPage() {
+        PersonTable table = new PersonTable();
+        table.add("b", "x", 2);
+        table.add("a", "y", 1);
+        assertSame(List.of(), table.sort(PersonTable.NAME, true, 0, 0));
+        assertSame(List.of(), table.sort(PersonTable.AGE, false, 5, 2));
+        assertSame(List.of(), table.sort(PersonTable.ADDRESS, true, 1, Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> table.sort(7, true, 0, 0));
+    }
+
+    @Test
+    void cacheIsClearedWhenDataChanges() {
+        PersonTable table = new PersonTable();
+        table.add("b", "x", 2);
+        table.add("a", "y", 1);
+        List<String> sorted = table.sort(PersonTable.NAME, true);
+        assertSame(sorted, table.sort(PersonTable.NAME, true));
+        assertEquals(List.of("a (y, 1)", "b (x, 2)"), sorted);
+        table.set(1, "c", "y", 1);
+        assertEquals(List.of("b (x, 2)", "c (y, 1)"), table.sort(PersonTable.NAME, true));
+        table.add("a", "z", 0);
+        assertEquals(List.of("a (z, 0)", "c (y, 1)", "b (x, 2)"), table.sort(PersonTable.AGE, true));
+    }
+
+    @Test
+    void invalidArguments() {
+        PersonTable table = new PersonTable();
+        table.add("a", "b", 1);
+        assertThrows(IllegalArgumentException.class, () -> table.sort(0, true));
+        assertThrows(IllegalArgumentException.class, () -> table.sort(4, true));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.name(1));
+        assertThrows(UnsupportedOperationException.class, () -> PersonTable.empty().add("a", "b", 1));
+        assertThrows(UnsupportedOperationException.class, () -> table.sort(PersonTable.AGE, true).add("x"));
+    }
+}
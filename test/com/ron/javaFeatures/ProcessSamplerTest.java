@@ -0,0 +1,104 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProcessSamplerTest {
+
+    @Test
+    void longLongMapMatchesHashMap() {
+        SplittableRandom random = new SplittableRandom(14);
+        LongLongMap map = new LongLongMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // small keys, so that keys are overwritten; 0 and negative keys included
+            long key = random.nextInt(-5_000, 5_000);
+            long value = random.nextLong();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -5_001; key <= 5_001; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1));
+        }
+        Map<Long, Long> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertEquals(expected, entries);
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+    }
+
+    @Test
+    void samplesStartedAndEndedChildren() throws Exception {
+        ProcessHandle self = ProcessHandle.current();
+        assumeTrue(self.info().totalCpuDuration().isPresent(), "no CPU times on this platform");
+        Process child;
+        try {
+            child = new ProcessBuilder("sleep", "30").start();
+        } catch (IOException e) {
+            assumeTrue(false, "cannot start sleep: " + e.getMessage());
+            return;
+        }
+        try (ProcessSampler sampler = new ProcessSampler(self, Duration.ofSeconds(1))) {
+            assertNull(sampler.latest());
+            ProcessSampler.Snapshot first = sampler.sample();
+            assertSame(first, sampler.latest());
+            assertEquals(0, first.elapsedNanos());
+            assertTrue(first.cpuNanos(self.pid()) > 0);
+            assertEquals(first.cpuNanos(self.pid()), first.cpuDeltaNanos(self.pid()));
+            assertArrayEquals(sorted(first.pids()), sorted(first.started()));
+
+            child.destroy();
+            child.waitFor(10, TimeUnit.SECONDS);
+            ProcessSampler.Snapshot second = sampler.sample();
+            assertTrue(second.elapsedNanos() > 0);
+            assertEquals(-1, second.cpuNanos(child.pid()));
+            assertTrue(second.cpuNanos(self.pid()) >= first.cpuNanos(self.pid()));
+            assertEquals(second.cpuNanos(self.pid()) - first.cpuNanos(self.pid()), second.cpuDeltaNanos(self.pid()));
+            if (first.cpuNanos(child.pid()) >= 0) {
+                assertTrue(Arrays.stream(second.ended()).anyMatch(pid -> pid == child.pid()));
+            }
+            assertEquals(0, second.started().length);
+        } finally {
+            child.destroyForcibly();
+        }
+    }
+
+    @Test
+    void listenersGetContinuousSamples() throws Exception {
+        CountDownLatch samples = new CountDownLatch(3);
+        try (ProcessSampler sampler = new ProcessSampler(ProcessHandle.current(), Duration.ofMillis(10), 1, 1.0)) {
+            sampler.addListener(snapshot -> samples.countDown());
+            sampler.start();
+            assertTrue(samples.await(10, TimeUnit.SECONDS));
+            assertNotNull(sampler.latest());
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        ProcessHandle self = ProcessHandle.current();
+        assertThrows(IllegalArgumentException.class, () -> new ProcessSampler(self, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new ProcessSampler(self, Duration.ofSeconds(1), 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ProcessSampler(self, Duration.ofSeconds(1), 1, 0));
+    }
+
+    private static long[] sorted(long[] pids) {
+        long[] copy = pids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
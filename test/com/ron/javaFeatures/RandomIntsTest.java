@@ -0,0 +1,107 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomIntsTest {
+
+    // larger than PARALLEL_THRESHOLD, so it is filled in parallel
+    private static final int LARGE = RandomInts.PARALLEL_THRESHOLD * 4 + 3;
+
+    @Test
+    void arrayHasSizeAndRange() {
+        for (int size : new int[]{0, 1, 100, LARGE}) {
+            int[] values = RandomInts.array(size, -5, 5);
+            assertEquals(size, values.length);
+            for (int v : values) {
+                assertTrue(v >= -5 && v <= 5, "out of range: " + v);
+            }
+        }
+    }
+
+    @Test
+    void bothBoundsAreReached() {
+        int[] values = RandomInts.array(10_000, 1, 3, 7L);
+        assertTrue(contains(values, 1));
+        assertTrue(contains(values, 3));
+    }
+
+    @Test
+    void fullIntRange() {
+        int[] values = RandomInts.array(1_000, Integer.MIN_VALUE, Integer.MAX_VALUE, 1L);
+        assertTrue(contains(values, v -> v < 0) && contains(values, v -> v > 0));
+        assertEquals(5, RandomInts.stream(5, Integer.MIN_VALUE, Integer.MAX_VALUE).count());
+    }
+
+    @Test
+    void singleValueRange() {
+        for (int v : RandomInts.array(100, 42, 42)) {
+            assertEquals(42, v);
+        }
+    }
+
+    @Test
+    void minGreaterThanMaxIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RandomInts.array(1, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> RandomInts.stream(1, 2, 1, 0L));
+    }
+
+    @Test
+    void seededIsReproducible() {
+        int[] array = RandomInts.array(LARGE, -1000, 1000, 42L);
+        assertArrayEquals(array, RandomInts.array(LARGE, -1000, 1000, 42L));
+        assertArrayEquals(array, RandomInts.stream(LARGE, -1000, 1000, 42L).toArray());
+        assertArrayEquals(array, RandomInts.stream(LARGE, -1000, 1000, 42L).parallel().toArray());
+        assertFalse(java.util.Arrays.equals(array, RandomInts.array(LARGE, -1000, 1000, 43L)));
+    }
+
+    @Test
+    void streamIsSized() {
+        assertEquals(LARGE, RandomInts.stream(LARGE, 0, 9).spliterator().getExactSizeIfKnown());
+        assertEquals(LARGE, RandomInts.stream(LARGE, 0, 9).parallel().count());
+        assertTrue(RandomInts.stream(LARGE, 0, 9).parallel().allMatch(v -> v >= 0 && v <= 9));
+    }
+
+    @Test
+    void asListIsMutable() {
+        List<Integer> list = RandomInts.asList(new int[]{1, 2, 3, 4});
+        list.set(0, 10);
+        list.add(5);
+        list.add(0, 0);
+        list.remove(2);
+        assertEquals(List.of(0, 10, 3, 4, 5), list);
+        for (Iterator<Integer> iter = list.iterator(); iter.hasNext(); ) {
+            if (iter.next() % 2 == 0) {
+                iter.remove();
+            }
+        }
+        assertEquals(List.of(3, 5), list);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertEquals(new ArrayList<>(List.of(3, 5)), list);
+    }
+
+    @Test
+    void getRandomListWithSeed() {
+        assertEquals(Utils.getRandomList(1000, -10, 10, 5L), Utils.getRandomList(1000, -10, 10, 5L));
+        assertTrue(Utils.getRandomList(1000, -10, 10, 5L).size() < 1000);
+        assertTrue(Utils.getRandomListByStream(1000, -10, 10).size() < 1000);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        return contains(values, v -> v == value);
+    }
+
+    private static boolean contains(int[] values, java.util.function.IntPredicate predicate) {
+        for (int v : values) {
+            if (predicate.test(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
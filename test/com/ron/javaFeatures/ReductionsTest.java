@@ -0,0 +1,159 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReductionsTest {
+
+    // longs of all sizes, so that some sums overflow a long and some do not
+    private static long[] randomLongs(SplittableRandom random, int n) {
+        return random.longs(n).map(v -> v >> random.nextInt(64)).toArray();
+    }
+
+    private static BigInteger bigSum(long[] values) {
+        return Arrays.stream(values).mapToObj(BigInteger::valueOf).reduce(BigInteger.ZERO, BigInteger::add);
+    }
+
+    // the exact sum, correctly rounded (parseDouble rounds correctly, BigDecimal.doubleValue does not before JDK 19)
+    private static double exactSum(double[] values) {
+        BigDecimal sum = Arrays.stream(values).mapToObj(BigDecimal::new).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Double.parseDouble(sum.toString());
+    }
+
+    @Test
+    void sumMatchesBigInteger() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int n : new int[]{0, 1, 2, 100, 100_000}) {
+            for (int round = 0; round < 10; round++) {
+                long[] values = randomLongs(random, n);
+                BigInteger expected = bigSum(values);
+                Reductions.ExactSum sum = Reductions.sum(Arrays.stream(values));
+                assertEquals(expected, sum.bigIntegerValue());
+                assertEquals(expected.toString(), sum.toString());
+                assertEquals(expected.bitLength() < Long.SIZE, sum.fitsInLong());
+                if (sum.fitsInLong()) {
+                    assertEquals(expected.longValueExact(), sum.longValue());
+                } else {
+                    assertThrows(ArithmeticException.class, sum::longValue);
+                }
+                assertEquals(expected, Reductions.sum(Arrays.stream(values).parallel()).bigIntegerValue());
+                assertEquals(expected, Arrays.stream(values).boxed().parallel()
+                        .collect(Reductions.summing(Long::longValue)));
+            }
+        }
+    }
+
+    // the overflows cancel out: the sum fits in a long again, as with Math.addExact on the exact sum
+    @Test
+    void sumBackInLongRange() {
+        long[] values = {Long.MAX_VALUE, Long.MAX_VALUE, 5, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+        Reductions.ExactSum sum = Reductions.sum(LongStream.of(values));
+        assertTrue(sum.fitsInLong());
+        assertEquals(bigSum(values).longValueExact(), sum.longValue());
+        assertEquals(Long.MIN_VALUE + 3, sum.longValue());
+        assertEquals(0, Reductions.sum(LongStream.empty()).longValue());
+    }
+
+    @Test
+    void combineMatchesOneSum() {
+        SplittableRandom random = new SplittableRandom(22);
+        long[] values = randomLongs(random, 10_000);
+        Reductions.ExactSum left = Reductions.sum(Arrays.stream(values, 0, 3000));
+        Reductions.ExactSum right = Reductions.sum(Arrays.stream(values, 3000, values.length));
+        assertSame(left, left.combine(right));
+        assertEquals(bigSum(values), left.bigIntegerValue());
+
+        long[] factors = random.longs(200, -1000, 1000).toArray();
+        Reductions.ExactProduct product = Reductions.product(Arrays.stream(factors, 0, 50));
+        assertSame(product, product.combine(Reductions.product(Arrays.stream(factors, 50, factors.length))));
+        assertEquals(bigProduct(factors), product.bigIntegerValue());
+    }
+
+    private static BigInteger bigProduct(long[] values) {
+        return Arrays.stream(values).mapToObj(BigInteger::valueOf).reduce(BigInteger.ONE, BigInteger::multiply);
+    }
+
+    @Test
+    void productMatchesBigInteger() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int n : new int[]{0, 1, 2, 10, 1000}) {
+            for (int round = 0; round < 10; round++) {
+                long bound = round < 5 ? 4 : 1L << 40;  // small factors fit in a long for a while, big ones do not
+                long[] values = random.longs(n, -bound, bound).map(v -> v == 0 ? 1 : v).toArray();
+                BigInteger expected = bigProduct(values);
+                Reductions.ExactProduct product = Reductions.product(Arrays.stream(values));
+                assertEquals(expected, product.bigIntegerValue());
+                assertEquals(expected.toString(), product.toString());
+                assertEquals(expected.bitLength() < Long.SIZE, product.fitsInLong());
+                if (product.fitsInLong()) {
+                    assertEquals(expected.longValueExact(), product.longValue());
+                } else {
+                    assertThrows(ArithmeticException.class, product::longValue);
+                }
+                assertEquals(expected, Reductions.product(Arrays.stream(values).parallel()).bigIntegerValue());
+                assertEquals(expected, Arrays.stream(values).boxed().parallel()
+                        .collect(Reductions.multiplying(Long::longValue)));
+            }
+        }
+        assertEquals(0, Reductions.product(LongStream.of(Long.MAX_VALUE, Long.MAX_VALUE, 0)).longValue());
+        assertEquals(Long.MIN_VALUE, Reductions.product(LongStream.of(1L << 31, -(1L << 32))).longValue());
+    }
+
+    // doubles of very different magnitudes, where DoubleStream.sum() (compensated, but not exact) loses precision
+    @Test
+    void doubleSumIsCorrectlyRounded() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int n : new int[]{0, 1, 2, 100, 10_000}) {
+            for (int round = 0; round < 10; round++) {
+                double[] values = random.doubles(n)
+                        .map(d -> (random.nextBoolean() ? d : -d) * Math.pow(2, random.nextInt(-80, 80)))
+                        .toArray();
+                double expected = exactSum(values);
+                assertEquals(expected, Reductions.sum(Arrays.stream(values)).doubleValue());
+                assertEquals(expected, Reductions.sum(Arrays.stream(values).parallel()).doubleValue());
+                List<Double> boxed = Arrays.stream(values).boxed().collect(Collectors.toList());
+                assertEquals(expected, boxed.parallelStream().collect(Reductions.summingDouble(Double::doubleValue)));
+                // the same values in another order give the same sum
+                double[] reversed = new double[n];
+                Arrays.setAll(reversed, i -> values[n - 1 - i]);
+                assertEquals(expected, Reductions.sum(Arrays.stream(reversed)).doubleValue());
+            }
+        }
+    }
+
+    @Test
+    void doubleSumCancellation() {
+        double[] values = {1e100, 1.0, -1e100, 1e-100, 3.0, -1e-100};
+        assertEquals(4.0, Reductions.sum(DoubleStream.of(values)).doubleValue());
+        assertEquals(exactSum(values), Reductions.sum(DoubleStream.of(values)).doubleValue());
+        assertNotEquals(4.0, DoubleStream.of(1e100, 1.0, -1e100, 3.0).reduce(0, Double::sum));
+        // the rounding of the sum of the two largest partials depends on the (tiny) rest
+        double[] halfway = {1.0, 0x1p-53, 0x1p-100};
+        assertEquals(exactSum(halfway), Reductions.sum(DoubleStream.of(halfway)).doubleValue());
+        assertEquals(1.0 + 0x1p-52, Reductions.sum(DoubleStream.of(halfway)).doubleValue());
+        assertEquals("0.1", Reductions.sum(DoubleStream.of(0.1)).toString());
+    }
+
+    @Test
+    void doubleSumSpecialValues() {
+        assertEquals(0.0, Reductions.sum(DoubleStream.empty()).doubleValue());
+        assertEquals(Double.POSITIVE_INFINITY, Reductions.sum(DoubleStream.of(1, Double.POSITIVE_INFINITY)).doubleValue());
+        assertTrue(Double.isNaN(Reductions.sum(
+                DoubleStream.of(Double.POSITIVE_INFINITY, 1, Double.NEGATIVE_INFINITY)).doubleValue()));
+        assertTrue(Double.isNaN(Reductions.sum(DoubleStream.of(2, Double.NaN)).doubleValue()));
+        assertEquals(Double.POSITIVE_INFINITY,
+                Reductions.sum(DoubleStream.of(Double.MAX_VALUE, Double.MAX_VALUE)).doubleValue());
+        assertEquals(DoubleStream.of(Double.NEGATIVE_INFINITY, -1).sum(),
+                Reductions.sum(DoubleStream.of(Double.NEGATIVE_INFINITY, -1)).doubleValue());
+    }
+}
@@ -0,0 +1,203 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizedCollectorsTest {
+
+    private static final int[] SIZES = {0, 1, 2, 1000, 100_000};
+
+    // the same elements as a SIZED stream or not (after a filter), sequential or parallel
+    private static Stream<Integer> stream(int[] values, boolean sized, boolean parallel) {
+        Stream<Integer> stream = Arrays.stream(values).boxed();
+        if (!sized) {
+            stream = stream.filter(i -> true);
+        }
+        return parallel ? stream.parallel() : stream;
+    }
+
+    private static void forAll(SplittableRandom random, Shape test) {
+        for (int n : SIZES) {
+            int[] values = random.ints(n, 0, 2 * n + 1).toArray();
+            for (boolean sized : new boolean[]{true, false}) {
+                for (boolean parallel : new boolean[]{false, true}) {
+                    test.check(() -> stream(values, sized, parallel),
+                            "n=" + n + (sized ? " sized" : "") + (parallel ? " parallel" : ""));
+                }
+            }
+        }
+    }
+
+    private interface Shape {
+        void check(Supplier<Stream<Integer>> stream, String message);
+    }
+
+    @Test
+    void listAndSetMatchCollectors() {
+        forAll(new SplittableRandom(25), (stream, message) -> {
+            List<Integer> list = SizedCollectors.toList(stream.get());
+            assertEquals(stream.get().collect(Collectors.toList()), list, message);
+            list.add(-1);  // mutable
+            assertEquals(stream.get().collect(Collectors.toSet()), SizedCollectors.toSet(stream.get()), message);
+            assertArrayEquals(stream.get().mapToInt(i -> i * 3).toArray(),
+                    SizedCollectors.toIntArray(stream.get(), i -> i * 3), message);
+        });
+    }
+
+    @Test
+    void mapMatchesCollectors() {
+        // associative but not commutative: the values must be merged in encounter order, as the Collector does
+        BinaryOperator<String> concat = (a, b) -> a + "," + b;
+        forAll(new SplittableRandom(25), (stream, message) -> {
+            assertEquals(stream.get().collect(Collectors.toMap(i -> i % 97, i -> "" + i, concat)),
+                    SizedCollectors.toMap(stream.get(), i -> i % 97, i -> "" + i, concat), message);
+            assertEquals(stream.get().distinct().collect(Collectors.toMap(i -> i, i -> -i)),
+                    SizedCollectors.toMap(stream.get().distinct(), i -> i, i -> -i), message);
+            // the first value wins: associative (as the parallel Collector needs), but not commutative
+            Map<Integer, Integer> expected = stream.get().collect(Collectors.toMap(i -> i % 97, i -> i, (a, b) -> a));
+            Map<Integer, Integer> entries = new HashMap<>();
+            SizedCollectors.toIntIntMap(stream.get(), i -> i % 97, i -> i, (a, b) -> a).forEach(entries::put);
+            assertEquals(expected, entries, message);
+        });
+    }
+
+    @Test
+    void concurrentMapMatchesCollectors() {
+        forAll(new SplittableRandom(25), (stream, message) -> {
+            assertEquals(stream.get().collect(Collectors.toConcurrentMap(i -> i % 97, i -> i, Integer::sum)),
+                    SizedCollectors.toConcurrentMap(stream.get(), i -> i % 97, i -> i, Integer::sum), message);
+            assertEquals(stream.get().distinct().collect(Collectors.toConcurrentMap(i -> i, i -> -i)),
+                    SizedCollectors.toConcurrentMap(stream.get().distinct(), i -> i, i -> -i, null), message);
+        });
+    }
+
+    // a large parallel stream is hashed into partitions; the Set and Map over them behave like a HashSet and HashMap
+    @Test
+    void partitionedSetAndMapAreMutable() {
+        int n = SizedCollectors.PARALLEL_THRESHOLD * 2;
+        Set<Integer> set = SizedCollectors.toSet(IntStream.range(0, n).boxed().parallel());
+        Set<Integer> expectedSet = new HashSet<>(IntStream.range(0, n).boxed().collect(Collectors.toList()));
+        assertEquals(expectedSet, set);
+        assertEquals(expectedSet.hashCode(), set.hashCode());
+        assertTrue(set.contains(7) && !set.contains(n) && !set.contains(null) && !set.contains("7"));
+        assertTrue(set.add(n) && !set.add(7) && set.remove(7) && !set.remove(7));
+        set.add(null);
+        expectedSet.add(n);
+        expectedSet.remove(7);
+        expectedSet.add(null);
+        assertEquals(expectedSet, set);
+        set.removeIf(i -> i != null && i % 3 == 0);  // through the iterator
+        expectedSet.removeIf(i -> i != null && i % 3 == 0);
+        assertEquals(expectedSet, set);
+        assertEquals(expectedSet.size(), set.size());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+
+        Map<Integer, Integer> map = SizedCollectors.toMap(IntStream.range(0, n).boxed().parallel(), i -> i % 1000, i -> i,
+                Integer::sum);
+        Map<Integer, Integer> expectedMap = IntStream.range(0, n).boxed().collect(Collectors.toMap(i -> i % 1000, i -> i,
+                Integer::sum, HashMap::new));
+        assertEquals(expectedMap, map);
+        assertEquals(expectedMap.hashCode(), map.hashCode());
+        assertEquals(expectedMap.get(5), map.get(5));
+        assertNull(map.get(-1));
+        assertNull(map.get(null));
+        assertEquals(expectedMap.put(5, 0), map.put(5, 0));
+        assertNull(map.putIfAbsent(-1, 1));
+        assertEquals(2, map.merge(-1, 1, Integer::sum));
+        assertEquals(expectedMap.remove(6), map.remove(6));
+        assertFalse(map.containsKey(6));
+        expectedMap.put(-1, 2);
+        assertEquals(expectedMap, map);
+        map.keySet().removeIf(k -> k % 2 == 0);  // through the iterator
+        map.entrySet().iterator().next().setValue(42);
+        expectedMap.keySet().removeIf(k -> k % 2 == 0);
+        assertEquals(expectedMap.size(), map.size());
+        assertEquals(expectedMap.keySet(), map.keySet());
+        assertTrue(map.containsValue(42));
+        assertThrows(NoSuchElementException.class, () -> {
+            Iterator<Integer> iterator = map.values().iterator();
+            while (true) {
+                iterator.next();
+            }
+        });
+        map.clear();
+        assertEquals(Map.of(), map);
+    }
+
+    // without a merge function, a duplicate key is an IllegalStateException, as from the Collectors
+    @Test
+    void duplicateKeys() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            Supplier<Stream<Integer>> stream = () -> stream(new SplittableRandom(25).ints(100_000).toArray(), true, parallel)
+                    .map(i -> i & 0xFFF);
+            assertThrows(IllegalStateException.class, () -> stream.get().collect(Collectors.toMap(i -> i, i -> i)));
+            assertThrows(IllegalStateException.class, () -> SizedCollectors.toMap(stream.get(), i -> i, i -> i));
+            assertThrows(IllegalStateException.class,
+                    () -> stream.get().collect(Collectors.toConcurrentMap(i -> i, i -> i)));
+            assertThrows(IllegalStateException.class,
+                    () -> SizedCollectors.toConcurrentMap(stream.get(), i -> i, i -> i, null));
+        }
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> SizedCollectors.toMap(Stream.of("a", "bb", "c"), String::length, s -> s));
+        assertEquals("Duplicate key 1 (attempted merging values a and c)", e.getMessage());
+
+        // the same for an IntIntMap, whose merge function may be null too; key 0 is kept apart in the map
+        for (int key : new int[]{0, 5}) {
+            e = assertThrows(IllegalStateException.class,
+                    () -> SizedCollectors.toIntIntMap(Stream.of(key, 1, key), i -> i, i -> i + 10, null));
+            assertEquals(String.format("Duplicate key %d (attempted merging values %d and %d)", key, key + 10, key + 10),
+                    e.getMessage());
+        }
+        IntIntMap distinct = SizedCollectors.toIntIntMap(Stream.of(0, 1, 2), i -> i, i -> -i, null);
+        assertEquals(3, distinct.size());
+        assertEquals(-2, distinct.get(2, 0));
+    }
+
+    // a merge function which returns null removes the key, which a later element may add again (Map.merge)
+    @Test
+    void mergeToNullRemovesTheKey() {
+        BinaryOperator<Integer> sumBelow100 = (a, b) -> a + b < 100 ? a + b : null;
+        Supplier<Stream<Integer>> stream = () -> new SplittableRandom(25).ints(10_000, 0, 60).boxed();
+        Map<Integer, Integer> expected = stream.get().collect(Collectors.toMap(i -> i % 7, i -> i, sumBelow100));
+        Map<Integer, Integer> map = SizedCollectors.toMap(stream.get(), i -> i % 7, i -> i, sumBelow100);
+        assertEquals(expected, map);
+        assertFalse(map.containsValue(null));
+        assertEquals(Map.of(), SizedCollectors.toMap(Stream.of(1, 1), i -> i, i -> i, (a, b) -> null));
+        assertEquals(Map.of(1, 1), SizedCollectors.toMap(Stream.of(1, 1, 1), i -> i, i -> i, (a, b) -> null));
+        assertEquals(Map.of(), SizedCollectors.toConcurrentMap(Stream.of(1, 1), i -> i, i -> i, (a, b) -> null));
+    }
+
+    // the class rejects nulls everywhere, also where the Collectors would accept them
+    @Test
+    void nullsAreRejected() {
+        List<Integer> withNull = Arrays.asList(1, null, 3);
+        assertThrows(NullPointerException.class, () -> SizedCollectors.toList(withNull.stream()));
+        assertThrows(NullPointerException.class, () -> SizedCollectors.toSet(withNull.stream()));
+        assertThrows(NullPointerException.class,
+                () -> SizedCollectors.toMap(Stream.of(1, 2), i -> i == 2 ? null : i, i -> i));
+        assertThrows(NullPointerException.class,
+                () -> SizedCollectors.toMap(Stream.of(1, 2), i -> i, i -> i == 2 ? null : i, Integer::sum));
+        assertThrows(NullPointerException.class,
+                () -> SizedCollectors.toConcurrentMap(Stream.of(1, 2), i -> i == 2 ? null : i, i -> i, null));
+        assertThrows(NullPointerException.class,
+                () -> SizedCollectors.toConcurrentMap(Stream.of(1, 2), i -> i, i -> i == 2 ? null : i, Integer::sum));
+    }
+}
@@ -0,0 +1,92 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamPrinterTest {
+
+    private final List<String> lines = new ArrayList<>();
+    private PrintSink previous;
+
+    @BeforeEach
+    void captureOutput() {
+        previous = Utils.setSink((isOk, s) -> lines.add(s));
+    }
+
+    @AfterEach
+    void restoreOutput() {
+        Utils.setSink(previous);
+    }
+
+    private static String expected(String text, IntStream elements) {
+        return text + " = " + elements.mapToObj(i -> i + ", ").collect(Collectors.joining());
+    }
+
+    @Test
+    void appendableGetsOneLine() {
+        for (int size : new int[]{0, 1, 3, 4, 5, 100, 10_000}) {
+            StringBuilder out = new StringBuilder();
+            long count = StreamPrinter.current().print(out, "ints", IntStream.range(0, size).boxed(), 4, Long.MAX_VALUE);
+            assertEquals(size, count);
+            assertEquals(expected("ints", IntStream.range(0, size)) + System.lineSeparator(), out.toString());
+        }
+    }
+
+    @Test
+    void limitOnInfiniteParallelStream() {
+        StringBuilder out = new StringBuilder();
+        long count = StreamPrinter.current().print(out, "iterate",
+                Stream.iterate(0, i -> i + 1).parallel(), 3, 50);
+        assertEquals(50, count);
+        assertEquals(expected("iterate", IntStream.range(0, 50)) + System.lineSeparator(), out.toString());
+    }
+
+    // a sink gets one line per window; together they are the single line of the Appendable
+    @Test
+    void sinkGetsOneLinePerWindow() {
+        long count = Utils.printStream("ints", IntStream.range(0, 1000).boxed(), 2, Long.MAX_VALUE);
+        assertEquals(1000, count);
+        assertTrue(lines.size() > 1);
+        assertEquals(expected("ints", IntStream.range(0, 1000)), String.join("", lines));
+
+        lines.clear();
+        assertEquals(0, Utils.printStream("empty", Stream.empty(), 2, 10));
+        assertEquals(List.of("empty = "), lines);
+    }
+
+    // with the default sink the line goes to the current System.out
+    @Test
+    void defaultSinkWritesToSystemOut() {
+        PrintStream systemOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            Utils.setSink(PrintSink.SYSTEM);
+            Utils.print("before");
+            Utils.printStream("ints", Stream.of(1, 2, 3), 2, 10);
+            System.out.flush();
+        } finally {
+            System.setOut(systemOut);
+        }
+        String n = System.lineSeparator();
+        assertEquals("before" + n + "ints = 1, 2, 3, " + n, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void invalidChunkSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamPrinter.current().print(new StringBuilder(), "x", Stream.of(1), 0, 1));
+    }
+}
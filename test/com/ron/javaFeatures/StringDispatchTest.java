@@ -0,0 +1,88 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDispatchTest {
+
+    // random keys of lengths 0..maxLength over an alphabet (a wide one gives SEARCH nodes, a narrow one TABLE nodes)
+    private static String randomKey(SplittableRandom random, int maxLength, char first, int alphabet) {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (first + random.nextInt(alphabet));
+        }
+        return new String(chars);
+    }
+
+    @Test
+    void matchesHashMap() {
+        SplittableRandom random = new SplittableRandom(15);
+        int[][] alphabets = {{'a', 3}, {'a', 26}, {'!', 90}, {0x4E00, 500}};
+        for (int[] alphabet : alphabets) {
+            for (int numKeys : new int[]{1, 2, 10, 200}) {
+                Map<String, Integer> expected = new HashMap<>();
+                StringDispatch.Builder<Integer> builder = StringDispatch.builder();
+                while (expected.size() < numKeys) {
+                    String key = randomKey(random, 8, (char) alphabet[0], alphabet[1]);
+                    if (!expected.containsKey(key)) {
+                        expected.put(key, expected.size());
+                        builder.on(expected.size() - 1, key);
+                    }
+                }
+                StringDispatch<Integer> dispatch = builder.otherwise(-1).build();
+                assertEquals(numKeys, dispatch.size());
+
+                List<String> lookups = new ArrayList<>(expected.keySet());
+                for (String key : expected.keySet()) {
+                    lookups.add(new String(key.toCharArray()));  // equal, but not the same String
+                    if (!key.isEmpty()) {
+                        lookups.add(key.substring(1));
+                        char[] changed = key.toCharArray();
+                        changed[random.nextInt(changed.length)]++;
+                        lookups.add(new String(changed));
+                    }
+                    lookups.add(key + "x");
+                }
+                for (int i = 0; i < 1000; i++) {
+                    lookups.add(randomKey(random, 10, (char) alphabet[0], alphabet[1]));
+                }
+                for (String s : lookups) {
+                    assertEquals(expected.getOrDefault(s, -1), dispatch.get(s), s);
+                }
+            }
+        }
+    }
+
+    // several keys sharing one action, like case labels falling through to the same statements
+    @Test
+    void groupsOfKeys() {
+        StringDispatch<String> dispatch = StringDispatch.<String>builder()
+                .on("abc", "abc")
+                .on("many", "foo", "bar", "janfu")
+                .on("empty", "")
+                .build();
+        assertEquals("abc", dispatch.get("abc"));
+        assertEquals("many", dispatch.get("foo"));
+        assertEquals("many", dispatch.get("bar"));
+        assertEquals("many", dispatch.get("janfu"));
+        assertEquals("empty", dispatch.get(""));
+        assertNull(dispatch.get("ab"));   // no otherwise action
+        assertNull(dispatch.get("fox"));
+        assertNull(dispatch.get("abcdefgh"));
+    }
+
+    @Test
+    void invalidKeys() {
+        assertThrows(IllegalArgumentException.class, () -> StringDispatch.<Integer>builder().on(1, "a", "b", "a"));
+        assertThrows(NullPointerException.class, () -> StringDispatch.<Integer>builder().on(1, (String) null));
+        StringDispatch<Integer> dispatch = StringDispatch.<Integer>builder().on(1, "a").build();
+        assertThrows(NullPointerException.class, () -> dispatch.get(null));
+    }
+}
@@ -0,0 +1,244 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextFilesTest {
+
+    private static final int CHARS = 8 * 1024;      // the char buffer of the decoder
+    private static final int BYTES = 64 * 1024;     // a read from the file (a pooled buffer)
+
+    @TempDir
+    Path directory;
+
+    private List<String> lines(Path file, Charset charset) throws IOException {
+        try (Stream<String> lines = TextFiles.lines(file, charset)) {
+            return lines.collect(Collectors.toList());
+        }
+    }
+
+    private void check(String text) throws IOException {
+        Path file = Files.writeString(directory.resolve("text.txt"), text);
+        assertEquals(text.lines().collect(Collectors.toList()), lines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void lineTerminators() throws IOException {
+        for (String text : new String[]{"", "a", "\n", "\r", "\r\n", "\n\r", "a\rb\nc\r\nd", "a\r\r\nb\n\n", "last\r"}) {
+            check(text);
+        }
+    }
+
+    // "\r\n" split between two fills of the char buffer: the '\n' must not give an empty line
+    @Test
+    void crlfAcrossRefills() throws IOException {
+        for (int at = CHARS - 3; at <= CHARS + 1; at++) {
+            check("x".repeat(at) + "\r\n" + "y".repeat(10) + "\r\nz");
+            check("x".repeat(at) + "\r" + "y".repeat(10));  // a lone '\r' at the edge
+        }
+        check("ab\r\n".repeat(3 * CHARS));
+    }
+
+    // 2, 3 and 4 byte characters split between two reads from the file
+    @Test
+    void multibyteAcrossReads() throws IOException {
+        for (String c : new String[]{"ä", "€", "😀"}) {
+            for (int shift = 0; shift < 4; shift++) {
+                check("a".repeat(shift) + c.repeat(2 * BYTES / c.getBytes(StandardCharsets.UTF_8).length + 3) + "\nend");
+            }
+        }
+    }
+
+    @Test
+    void randomText() throws IOException {
+        SplittableRandom random = new SplittableRandom(13);
+        String[] pieces = {"a", "line", "\n", "\r", "\r\n", "ä", "€", "😀", ""};
+        for (int round = 0; round < 10; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(100_000); i > 0; i--) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            check(text.toString());
+        }
+    }
+
+    @Test
+    void malformedInput() throws IOException {
+        Path file = Files.write(directory.resolve("bad.txt"), new byte[]{'a', '\n', (byte) 0xC3, '\n'});
+        try (Stream<String> lines = TextFiles.lines(file)) {
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> lines.forEach(line -> { }));
+            assertTrue(e.getCause() instanceof CharacterCodingException);
+        }
+    }
+
+    /**
+     * ISO-8859-1, whose decoder writes trailer when it is flushed (like a stateful charset closing its state),
+     * and which checks that it is not asked to decode once flushing has started
+     */
+    private static final class TrailerCharset extends Charset {
+        private final String trailer;
+
+        TrailerCharset(String trailer) {
+            super("x-test-trailer", null);
+            this.trailer = trailer;
+        }
+
+        @Override
+        public boolean contains(Charset cs) {
+            return false;
+        }
+
+        @Override
+        public CharsetDecoder newDecoder() {
+            return new CharsetDecoder(this, 1, 1) {
+                private int flushed;
+
+                @Override
+                protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+                    if (flushed > 0) {
+                        // the JDK decoders allow this (while the flush overflows), but the contract does not
+                        throw new IllegalStateException("decode() after flush()");
+                    }
+                    while (in.hasRemaining()) {
+                        if (!out.hasRemaining()) {
+                            return CoderResult.OVERFLOW;
+                        }
+                        out.put((char) (in.get() & 0xFF));
+                    }
+                    return CoderResult.UNDERFLOW;
+                }
+
+                @Override
+                protected CoderResult implFlush(CharBuffer out) {
+                    while (flushed < trailer.length()) {
+                        if (!out.hasRemaining()) {
+                            return CoderResult.OVERFLOW;
+                        }
+                        out.put(trailer.charAt(flushed++));
+                    }
+                    return CoderResult.UNDERFLOW;
+                }
+
+                @Override
+                protected void implReset() {
+                    flushed = 0;
+                }
+            };
+        }
+
+        @Override
+        public CharsetEncoder newEncoder() {
+            return StandardCharsets.ISO_8859_1.newEncoder();
+        }
+    }
+
+    // the flush needs several fills of the char buffer: no decode() may come after it started
+    @Test
+    void flushWithOutput() throws IOException {
+        String trailer = IntStream.range(0, 5000).mapToObj(i -> "t" + i).collect(Collectors.joining("\n"));
+        for (String text : new String[]{"", "a\nb", "x".repeat(CHARS - 1)}) {
+            Path file = Files.writeString(directory.resolve("text.txt"), text, StandardCharsets.ISO_8859_1);
+            assertEquals((text + trailer).lines().collect(Collectors.toList()), lines(file, new TrailerCharset(trailer)));
+        }
+    }
+
+    // ---------------------------------------- writing ----------------------------------------
+
+    @Test
+    void writeMatchesFilesReadString() throws IOException {
+        SplittableRandom random = new SplittableRandom(13);
+        String[] pieces = {"a", "line", "ä", "€", "😀", "\n"};
+        for (boolean async : new boolean[]{false, true}) {
+            for (int length : new int[]{0, 1, CHARS - 1, CHARS, 3 * BYTES}) {
+                StringBuilder text = new StringBuilder();
+                while (text.length() < length) {
+                    text.append(pieces[random.nextInt(pieces.length)]);
+                }
+                Path file = directory.resolve("out.txt");
+                // piecewise, so that surrogate pairs are split between appends and between buffers
+                try (TextFiles.TextWriter writer = TextFiles.newWriter(file, StandardCharsets.UTF_8, async)) {
+                    for (int i = 0; i < text.length(); ) {
+                        int n = Math.min(text.length() - i, 1 + random.nextInt(100));
+                        if (n == 1) {
+                            writer.append(text.charAt(i));
+                        } else {
+                            writer.append(random.nextBoolean() ? text : text.toString(), i, i + n);
+                        }
+                        i += n;
+                    }
+                }
+                assertEquals(text.toString(), Files.readString(file), async ? "async" : "sync");
+            }
+            List<String> lines = IntStream.range(0, 100_000).mapToObj(i -> "line " + i).collect(Collectors.toList());
+            Path file = TextFiles.write(directory.resolve("lines.txt"), lines.stream(), async);
+            assertEquals(lines, Files.readAllLines(file));
+        }
+        Path file = TextFiles.writeString(directory.resolve("string.txt"), "grüße\r\n你好");
+        assertEquals("grüße\r\n你好", Files.readString(file));
+    }
+
+    // at most one write in flight: the file never lags far behind what was appended, and all of it is there
+    // once close() returns (the writes complete in order, each at its position)
+    @Test
+    void asyncWriterBackpressure() throws IOException {
+        Path file = directory.resolve("async.txt");
+        String block = "0123456789abcdef".repeat(1024);  // 16K ASCII chars, one byte each
+        long appended = 0;
+        try (TextFiles.TextWriter writer = TextFiles.newWriter(file, StandardCharsets.UTF_8, true)) {
+            for (int i = 0; i < 200; i++) {
+                writer.append(block);
+                appended += block.length();
+                // pending: the write in flight, the buffer being filled, and the chars not encoded yet
+                long pending = 2L * BYTES + CHARS;
+                assertTrue(Files.size(file) >= appended - pending, "file " + Files.size(file) + ", appended " + appended);
+            }
+        }
+        assertEquals(appended, Files.size(file));
+        assertEquals(block.repeat(200), Files.readString(file));
+    }
+
+    @Test
+    void closeWritesEverythingOnce() throws IOException {
+        for (boolean async : new boolean[]{false, true}) {
+            Path file = directory.resolve("close.txt");
+            TextFiles.TextWriter writer = TextFiles.newWriter(file, StandardCharsets.UTF_8, async);
+            writer.append("abc").append('\n').append("😀");
+            writer.close();
+            assertEquals("abc\n😀", Files.readString(file));
+            writer.close();  // nothing more
+            assertEquals("abc\n😀", Files.readString(file));
+            assertThrows(IllegalStateException.class, () -> writer.append("x"));
+            assertThrows(IllegalStateException.class, () -> writer.append('x'));
+        }
+    }
+
+    // a lone surrogate cannot be encoded: reported when the writer gets to it, at the latest by close()
+    @Test
+    void unmappableOutput() throws IOException {
+        for (boolean async : new boolean[]{false, true}) {
+            TextFiles.TextWriter writer = TextFiles.newWriter(directory.resolve("bad.txt"), StandardCharsets.UTF_8, async);
+            writer.append("a\uD800");
+            assertThrows(CharacterCodingException.class, writer::close);
+        }
+    }
+}
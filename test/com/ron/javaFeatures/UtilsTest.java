@@ -0,0 +1,169 @@
+package com.ron.javaFeatures;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UtilsTest {
+
+    private final List<String> lines = new ArrayList<>();
+    private PrintSink previous;
+
+    @BeforeEach
+    void captureOutput() {
+        previous = Utils.setSink((isOk, s) -> lines.add(s));
+    }
+
+    @AfterEach
+    void restoreOutput() {
+        Utils.setSink(previous);
+    }
+
+    @Test
+    void nullBoxedValueIsSkipped() {
+        Map<String, Integer> map = new HashMap<>();
+        assertEquals("value:", Utils.print("value:", map.get("x")));
+        map.put("x", 42);
+        assertEquals("value: 42", Utils.print("value:", map.get("x")));
+        assertEquals(List.of("value:", "value: 42"), lines);
+    }
+
+    @Test
+    void primitiveVariantsPrintLikeObjects() {
+        assertEquals(Utils.print("sum =", 7), Utils.printInt("sum =", 7));
+        assertEquals(Utils.print("sum =", 7L), Utils.printLong("sum =", 7L));
+        assertEquals(Utils.print("avg =", 1.5), Utils.printDouble("avg =", 1.5));
+        assertEquals(Utils.print("ok =", true), Utils.printBoolean("ok =", true));
+        assertEquals(Utils.print(null, 3), Utils.printInt(null, 3));
+        assertEquals(10, lines.size());
+    }
+
+    @Test
+    void formatSkipsNulls() {
+        assertEquals("a,1,b", Utils.format(new StringBuilder(), ',', "a", null, 1, "b").toString());
+        assertEquals("a-2", Utils.format(new StringBuffer(), '-', "a", null, 2L).toString());
+    }
+
+    // a sink which is not interested: the text is never built
+    @Test
+    void disabledSinkSkipsBuildingTheText() {
+        Utils.setSink(new PrintSink() {
+            @Override
+            public void println(boolean isOk, String s) {
+                fail("printed " + s);
+            }
+
+            @Override
+            public boolean isEnabled(boolean isOk) {
+                return false;
+            }
+        });
+        Object noToString = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("toString() called");
+            }
+        };
+        assertEquals("", Utils.print(noToString));
+        assertEquals("", Utils.print("label", noToString));
+        assertEquals("", Utils.print(() -> fail("supplier called")));
+        assertEquals("", Utils.printerr(() -> fail("supplier called")));
+        assertEquals("", Utils.printInt("sum =", 1));
+    }
+
+    // with a LoggerPrintSink the logger level decides: INFO is off here, WARNING (printerr) is on
+    @Test
+    void loggerSinkFollowsTheLevel() {
+        Logger logger = Logger.getLogger(UtilsTest.class.getName() + ".loggerSinkFollowsTheLevel");
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        logger.setLevel(Level.WARNING);
+        try {
+            Utils.setSink(new LoggerPrintSink(logger));
+            assertEquals("", Utils.print(() -> fail("supplier called")));
+            assertEquals("bad", Utils.printerr(() -> "bad"));
+            assertEquals(1, records.size());
+            assertEquals(Level.WARNING, records.get(0).getLevel());
+            assertEquals("bad", records.get(0).getMessage());
+        } finally {
+            logger.removeHandler(handler);
+        }
+    }
+
+    // a sink gets the elements in windows of bounded size, which together are the single line
+    @Test
+    void printStreamToSinkInWindows() {
+        Utils.printStream("ints", IntStream.range(0, 100_000).boxed().parallel(), false);
+        assertTrue(lines.size() > 1);
+        assertEquals(IntStream.range(0, 100_000).mapToObj(i -> i + ", ").collect(Collectors.joining("", "ints = ", "")),
+                String.join("", lines));
+
+        lines.clear();
+        Utils.printStream("list", Stream.of(1, 2), true);
+        assertEquals(List.of("list = [1, 2]"), lines);
+    }
+
+    // the default sink prints element by element to the current System.out, with forEach()
+    @Test
+    void printStreamToSystemOut() {
+        PrintStream systemOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            Utils.setSink(PrintSink.SYSTEM);
+            Utils.printStream("ints", Stream.of(1, 2, 3), false);
+            System.out.flush();
+        } finally {
+            System.setOut(systemOut);
+        }
+        assertEquals("ints = 1, 2, 3, " + System.lineSeparator(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void printStreamToDisabledSinkSkipsTheStream() {
+        Utils.setSink(new PrintSink() {
+            @Override
+            public void println(boolean isOk, String s) {
+                fail("printed " + s);
+            }
+
+            @Override
+            public boolean isEnabled(boolean isOk) {
+                return false;
+            }
+        });
+        Utils.printStream("ints", Stream.of(1, 2).peek(i -> fail("consumed")), false);
+    }
+}